@@ -2,6 +2,7 @@ package com.baidu.carplayer;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.View;
 import android.widget.ImageButton;
 import android.widget.ProgressBar;
@@ -14,29 +15,32 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.baidu.carplayer.adapter.FileAdapter;
 import com.baidu.carplayer.auth.BaiduAuthService;
+import com.baidu.carplayer.database.DataExecutor;
+import com.baidu.carplayer.manager.DirectoryCache;
+import com.baidu.carplayer.manager.FolderScanner;
 import com.baidu.carplayer.manager.PlaylistManager;
+import com.baidu.carplayer.manager.SidecarIndex;
 import com.baidu.carplayer.model.AuthInfo;
 import com.baidu.carplayer.model.FileItem;
-import com.baidu.carplayer.model.FileListResponse;
 import com.baidu.carplayer.model.Song;
 import com.baidu.carplayer.network.BaiduPanService;
 import com.baidu.carplayer.network.RetrofitClient;
 import com.google.android.material.button.MaterialButton;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
-
 /**
  * 文件浏览器Activity - 从百度网盘选择音频文件
  */
 public class FileBrowserActivity extends AppCompatActivity implements FileAdapter.OnFileClickListener {
 
+    private static final String TAG = "FileBrowserActivity";
     public static final String EXTRA_PLAYLIST_ID = "playlist_id";
+    // 打开目录后在后台预取的子文件夹数量
+    private static final int PREFETCH_CHILD_FOLDERS = 3;
 
     private RecyclerView fileRecyclerView;
     private FileAdapter fileAdapter;
@@ -56,12 +60,12 @@ public class FileBrowserActivity extends AppCompatActivity implements FileAdapte
     private String currentPath = "/";
     private List<FileItem> currentFiles = new ArrayList<>();
     private PlaylistManager playlistManager;
+    private DirectoryCache directoryCache;
     private BaiduPanService baiduPanService;
     private String accessToken;
     private boolean sortAscending = true; // 排序状态：true为正序，false为倒序
     
     // 用于递归扫描文件夹
-    private int pendingScans = 0;
     private List<Song> songsToAdd = new ArrayList<>();
     private android.app.ProgressDialog progressDialog;
 
@@ -111,11 +115,12 @@ public class FileBrowserActivity extends AppCompatActivity implements FileAdapte
         selectAllButton.setOnClickListener(v -> toggleSelectAll());
         addButton.setOnClickListener(v -> addSelectedFiles());
         clearSelectionButton.setOnClickListener(v -> clearSelection());
-        refreshButton.setOnClickListener(v -> loadFiles());
+        refreshButton.setOnClickListener(v -> loadFiles(true));
     }
 
     private void initData() {
         playlistManager = new PlaylistManager(this);
+        directoryCache = DirectoryCache.getInstance(this);
         baiduPanService = RetrofitClient.getInstance().create(BaiduPanService.class);
 
         // 获取访问令牌
@@ -129,81 +134,141 @@ public class FileBrowserActivity extends AppCompatActivity implements FileAdapte
     }
 
     private void loadFiles() {
+        loadFiles(false);
+    }
+
+    /**
+     * 加载当前目录：有缓存时立即显示，缓存较旧时在后台重新验证，内容变化才刷新列表
+     * @param forceRefresh 忽略缓存直接从网盘获取（刷新按钮）
+     */
+    private void loadFiles(boolean forceRefresh) {
         if (accessToken == null) {
             return;
         }
 
-        showLoading();
-
-        Call<FileListResponse> call = baiduPanService.getFileList(
-                "list",
-                accessToken,
-                currentPath,
-                "name",
-                0,
-                1000,
-                1,
-                0,
-                0
-        );
-
-        call.enqueue(new Callback<FileListResponse>() {
-            @Override
-            public void onResponse(Call<FileListResponse> call, Response<FileListResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    parseFileList(response.body());
-                } else {
-                    runOnUiThread(() -> {
-                        hideLoading();
-                        Toast.makeText(FileBrowserActivity.this, "加载文件列表失败", Toast.LENGTH_SHORT).show();
-                    });
-                }
+        String path = currentPath;
+        DirectoryCache.Listing memoryListing = forceRefresh ? null : directoryCache.getFromMemory(path);
+        if (memoryListing != null) {
+            showFileList(memoryListing.getItems());
+            if (memoryListing.getAge() < DirectoryCache.REVALIDATE_AFTER_MS) {
+                prefetchChildFolders(memoryListing.getItems());
+                return;
             }
+        } else {
+            showLoading();
+        }
 
-            @Override
-            public void onFailure(Call<FileListResponse> call, Throwable t) {
+        if (memoryListing != null || forceRefresh) {
+            DataExecutor.getInstance().executeNetwork(() -> revalidate(path, memoryListing));
+            return;
+        }
+
+        // 在读线程查询数据库缓存，需要重新验证时再交给网络通道
+        DataExecutor.getInstance().executeRead(() -> {
+            DirectoryCache.Listing cached = directoryCache.get(path);
+            if (cached != null) {
+                boolean fresh = cached.getAge() < DirectoryCache.REVALIDATE_AFTER_MS;
                 runOnUiThread(() -> {
-                    hideLoading();
-                    Toast.makeText(FileBrowserActivity.this, "网络错误: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+                    if (path.equals(currentPath)) {
+                        showFileList(cached.getItems());
+                        if (fresh) {
+                            prefetchChildFolders(cached.getItems());
+                        }
+                    }
                 });
+                if (fresh) {
+                    return;
+                }
             }
+            DataExecutor.getInstance().executeNetwork(() -> revalidate(path, cached));
         });
     }
 
-    private void parseFileList(FileListResponse response) {
-        List<FileItem> files = new ArrayList<>();
-
+    /**
+     * 从网盘获取目录的完整列表（所有分页响应流式解析，在网络通道中执行）
+     * @param shown 已显示的缓存列表，没有时为null；内容相同时不刷新界面，获取失败时保持显示
+     */
+    private void revalidate(String path, DirectoryCache.Listing shown) {
+        DirectoryCache.Listing listing = null;
+        String error = null;
         try {
-            List<FileItem> list = response.getList();
-            if (list != null) {
-                for (FileItem fileItem : list) {
-                    // 只显示目录和音频文件
-                    if (fileItem.getIsdir() == 1 || fileItem.isAudioFile()) {
-                        files.add(fileItem);
-                    }
-                }
+            listing = directoryCache.fetch(baiduPanService, accessToken, path);
+            if (listing == null) {
+                error = "加载文件列表失败";
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            error = "网络错误: " + e.getMessage();
         }
 
-        currentFiles = files;
-
+        DirectoryCache.Listing fresh = listing;
+        String finalError = error;
+        boolean unchanged = fresh != null && fresh.hasSameItems(shown);
+        if (unchanged) {
+            directoryCache.recordUnchanged();
+        }
         runOnUiThread(() -> {
-            hideLoading();
-            currentPathText.setText(currentPath);
-            fileAdapter.setFiles(files);
-            // 应用当前的排序设置
-            fileAdapter.sortByName(sortAscending);
-
-            if (files.isEmpty()) {
-                showEmpty();
-            } else {
-                hideEmpty();
+            if (!path.equals(currentPath)) {
+                // 加载期间已切换到其他目录，丢弃旧结果
+                return;
             }
+            if (finalError != null) {
+                if (shown == null) {
+                    hideLoading();
+                    Toast.makeText(FileBrowserActivity.this, finalError, Toast.LENGTH_SHORT).show();
+                } else {
+                    // 已显示缓存的列表，重新验证失败时保持不变
+                    Log.w(TAG, "重新验证目录失败: " + path + ", " + finalError);
+                }
+                return;
+            }
+            if (!unchanged) {
+                showFileList(fresh.getItems());
+            }
+            prefetchChildFolders(fresh.getItems());
+            Log.d(TAG, "目录缓存: " + directoryCache.getStatsSummary());
         });
     }
 
+    /**
+     * 在后台预取当前目录中排在最前面的几个子文件夹（与列表显示顺序一致）
+     */
+    private void prefetchChildFolders(List<FileItem> items) {
+        List<FileItem> folders = new ArrayList<>();
+        for (FileItem item : items) {
+            if (item.isDirectory()) {
+                folders.add(item);
+            }
+        }
+        if (folders.isEmpty()) {
+            return;
+        }
+        Collections.sort(folders, (a, b) -> {
+            int result = a.getName().compareToIgnoreCase(b.getName());
+            return sortAscending ? result : -result;
+        });
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < folders.size() && i < PREFETCH_CHILD_FOLDERS; i++) {
+            paths.add(folders.get(i).getPath());
+        }
+        directoryCache.prefetch(baiduPanService, accessToken, paths);
+    }
+
+    private void showFileList(List<FileItem> files) {
+        currentFiles = files;
+
+        hideLoading();
+        currentPathText.setText(currentPath);
+        fileAdapter.setFiles(files);
+        // 应用当前的排序设置
+        fileAdapter.sortByName(sortAscending);
+
+        if (files.isEmpty()) {
+            showEmpty();
+        } else {
+            hideEmpty();
+        }
+    }
+
     private void navigateUp() {
         if ("/".equals(currentPath)) {
             finish();
@@ -255,7 +320,6 @@ public class FileBrowserActivity extends AppCompatActivity implements FileAdapte
         }
 
         songsToAdd.clear();
-        pendingScans = 0;
         
         // 显示进度对话框
         progressDialog = new android.app.ProgressDialog(this);
@@ -264,20 +328,22 @@ public class FileBrowserActivity extends AppCompatActivity implements FileAdapte
         progressDialog.show();
 
         // 处理选中的文件和文件夹
+        List<String> folders = new ArrayList<>();
         for (FileItem fileItem : selectedFiles) {
             if (fileItem.getIsdir() == 1) {
-                // 文件夹，递归扫描
-                scanFolder(fileItem.getPath());
+                folders.add(fileItem.getPath());
             } else if (fileItem.isAudioFile()) {
                 // 音频文件，直接添加
                 addFileToList(fileItem);
             }
         }
         
-        // 如果没有异步任务，直接完成
-        if (pendingScans == 0) {
+        // 没有文件夹需要扫描时直接完成
+        if (folders.isEmpty()) {
             finishAddingFiles();
+            return;
         }
+        scanFolders(folders);
     }
     
     private void addFileToList(FileItem fileItem) {
@@ -291,57 +357,38 @@ public class FileBrowserActivity extends AppCompatActivity implements FileAdapte
         songsToAdd.add(song);
     }
     
-    private void scanFolder(String path) {
-        pendingScans++;
-        if (progressDialog != null) {
-            progressDialog.setMessage("正在扫描: " + path);
-        }
-        
-        Call<FileListResponse> call = baiduPanService.getFileList(
-                "list",
-                accessToken,
-                path,
-                "name",
-                0,
-                1000,
-                1, // 递归参数? 百度API好像不支持一步递归，必须手动递归
-                0,
-                0
-        );
-
-        call.enqueue(new Callback<FileListResponse>() {
-            @Override
-            public void onResponse(Call<FileListResponse> call, Response<FileListResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    List<FileItem> list = response.body().getList();
-                    if (list != null) {
-                        for (FileItem item : list) {
-                            if (item.getIsdir() == 1) {
-                                // 递归扫描子文件夹
-                                scanFolder(item.getPath());
-                            } else if (item.isAudioFile()) {
-                                addFileToList(item);
+    /**
+     * 递归扫描选中的文件夹（FolderScanner并发扫描，文件列表流式解析）
+     */
+    private void scanFolders(List<String> folders) {
+        DataExecutor.getInstance().executeNetwork(() -> {
+            List<FileItem> files;
+            try {
+                FolderScanner scanner = new FolderScanner(baiduPanService, accessToken);
+                scanner.setSidecarIndex(SidecarIndex.getInstance(this));
+                // 浏览和预取时刚列出的文件夹直接复用，不再请求
+                scanner.setDirectoryCache(directoryCache, DirectoryCache.FRESH_MS);
+                files = scanner.scan(folders,
+                        (foldersDone, foldersQueued, filesFound) -> runOnUiThread(() -> {
+                            if (progressDialog != null && progressDialog.isShowing()) {
+                                progressDialog.setMessage("正在扫描: " + foldersDone + "/" + foldersQueued
+                                        + " 个文件夹, 找到 " + filesFound + " 个音频文件");
                             }
-                        }
-                    }
-                }
-                checkScanCompletion();
-            }
-
-            @Override
-            public void onFailure(Call<FileListResponse> call, Throwable t) {
-                checkScanCompletion();
+                        }));
+            } catch (Exception e) {
+                Log.e(TAG, "扫描文件夹失败", e);
+                files = new ArrayList<>();
             }
+            List<FileItem> scannedFiles = files;
+            runOnUiThread(() -> {
+                for (FileItem item : scannedFiles) {
+                    addFileToList(item);
+                }
+                finishAddingFiles();
+            });
         });
     }
     
-    private synchronized void checkScanCompletion() {
-        pendingScans--;
-        if (pendingScans <= 0) {
-            runOnUiThread(this::finishAddingFiles);
-        }
-    }
-    
     private void finishAddingFiles() {
         if (progressDialog != null && progressDialog.isShowing()) {
             progressDialog.dismiss();
@@ -352,25 +399,30 @@ public class FileBrowserActivity extends AppCompatActivity implements FileAdapte
             return;
         }
         
-        // 批量添加到数据库
-        // 这里为了简单，循环添加，实际应该用批量接口
+        // 批量添加到数据库（单个事务，已存在的歌曲自动跳过）
         int total = songsToAdd.size();
-        for (Song song : songsToAdd) {
-            playlistManager.addSongToPlaylist(playlistId, song, new PlaylistManager.OnResultListener() {
-                @Override
-                public void onSuccess(Object result) {
-                    // ignore
-                }
-
-                @Override
-                public void onError(String error) {
-                    // ignore
-                }
-            });
-        }
+        playlistManager.addSongsToPlaylist(playlistId, new ArrayList<>(songsToAdd), new PlaylistManager.OnResultListener() {
+            @Override
+            public void onSuccess(Object result) {
+                int added = (Integer) result;
+                runOnUiThread(() -> {
+                    String message = "已添加 " + added + " 个音频文件";
+                    if (added < total) {
+                        message += "，跳过已存在的 " + (total - added) + " 个";
+                    }
+                    Toast.makeText(FileBrowserActivity.this, message, Toast.LENGTH_SHORT).show();
+                    finish();
+                });
+            }
 
-        Toast.makeText(this, "已添加 " + total + " 个音频文件", Toast.LENGTH_SHORT).show();
-        finish();
+            @Override
+            public void onError(String error) {
+                runOnUiThread(() -> {
+                    Toast.makeText(FileBrowserActivity.this, "添加失败: " + error, Toast.LENGTH_SHORT).show();
+                    finish();
+                });
+            }
+        });
     }
 
     private void updateSelectionInfo() {
@@ -417,6 +469,14 @@ public class FileBrowserActivity extends AppCompatActivity implements FileAdapte
         fileRecyclerView.setVisibility(View.VISIBLE);
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (directoryCache != null) {
+            directoryCache.cancelPrefetch();
+        }
+    }
+
     @Override
     public void onFileClick(FileItem file) {
         if (file.getIsdir() == 1) {
@@ -26,13 +26,12 @@ import com.baidu.carplayer.manager.PlaylistManager;
 import com.baidu.carplayer.model.AuthInfo;
 import com.baidu.carplayer.model.Playlist;
 import com.baidu.carplayer.network.BaiduPanService;
+import com.baidu.carplayer.network.NetworkTrace;
 import com.baidu.carplayer.network.RetrofitClient;
 import com.baidu.carplayer.service.AudioPlayerService;
 import com.google.android.material.textfield.TextInputEditText;
 import androidx.media3.common.PlaybackException;
 
-import java.util.List;
-
 /**
  * 主页面 - 播放列表管理页面（矩阵网格布局）
  */
@@ -136,6 +135,24 @@ public class MainActivity extends AppCompatActivity implements PlaylistAdapter.O
         nowPlayingButton.setOnClickListener(v -> openCurrentPlayer());
         
         findViewById(R.id.add_playlist_empty_button).setOnClickListener(v -> showCreatePlaylistDialog());
+        
+        // 调试版长按添加按钮查看网络跟踪记录
+        if (BuildConfig.DEBUG) {
+            addPlaylistButton.setOnLongClickListener(v -> {
+                showNetworkTraceDialog();
+                return true;
+            });
+        }
+    }
+    
+    private void showNetworkTraceDialog() {
+        NetworkTrace trace = RetrofitClient.getNetworkTrace();
+        new AlertDialog.Builder(this)
+                .setTitle("网络跟踪")
+                .setMessage(RetrofitClient.getStatsSummary() + "\n\n" + trace.dump())
+                .setPositiveButton("关闭", null)
+                .setNegativeButton("清空", (dialog, which) -> trace.clear())
+                .show();
     }
     
     private void checkNowPlayingStatus() {
@@ -168,30 +185,23 @@ public class MainActivity extends AppCompatActivity implements PlaylistAdapter.O
             accessToken = authInfo.getAccessToken();
         }
         
-        loadPlaylists();
+        observePlaylists();
     }
 
-    private void loadPlaylists() {
-        playlistManager.getAllPlaylists(new PlaylistManager.OnPlaylistsLoadListener() {
-            @Override
-            public void onSuccess(List<Playlist> playlists) {
-                runOnUiThread(() -> {
-                    playlistAdapter.setPlaylists(playlists);
-                    
-                    // 显示或隐藏空状态
-                    if (playlists.isEmpty()) {
-                        emptyState.setVisibility(View.VISIBLE);
-                        playlistListView.setVisibility(View.GONE);
-                    } else {
-                        emptyState.setVisibility(View.GONE);
-                        playlistListView.setVisibility(View.VISIBLE);
-                    }
-                });
-            }
-
-            @Override
-            public void onError(String error) {
-                runOnUiThread(() -> Toast.makeText(MainActivity.this, "加载播放列表失败: " + error, Toast.LENGTH_SHORT).show());
+    /**
+     * 观察播放列表（含歌曲数量），创建、重命名、删除及歌曲增删后自动刷新网格
+     */
+    private void observePlaylists() {
+        playlistManager.getPlaylistsLiveData().observe(this, playlists -> {
+            playlistAdapter.setPlaylists(playlists);
+            
+            // 显示或隐藏空状态
+            if (playlists.isEmpty()) {
+                emptyState.setVisibility(View.VISIBLE);
+                playlistListView.setVisibility(View.GONE);
+            } else {
+                emptyState.setVisibility(View.GONE);
+                playlistListView.setVisibility(View.VISIBLE);
             }
         });
     }
@@ -221,7 +231,6 @@ public class MainActivity extends AppCompatActivity implements PlaylistAdapter.O
             public void onSuccess(Object result) {
                 runOnUiThread(() -> {
                     Toast.makeText(MainActivity.this, "播放列表已创建", Toast.LENGTH_SHORT).show();
-                    loadPlaylists();
 
                     // 直接跳转到文件浏览器添加歌曲
                     if (result instanceof Playlist) {
@@ -323,7 +332,6 @@ public class MainActivity extends AppCompatActivity implements PlaylistAdapter.O
             public void onSuccess(Object result) {
                 runOnUiThread(() -> {
                     Toast.makeText(MainActivity.this, "已重命名", Toast.LENGTH_SHORT).show();
-                    loadPlaylists();
                 });
             }
 
@@ -355,7 +363,6 @@ public class MainActivity extends AppCompatActivity implements PlaylistAdapter.O
             public void onSuccess(Object result) {
                 runOnUiThread(() -> {
                     Toast.makeText(MainActivity.this, "已删除", Toast.LENGTH_SHORT).show();
-                    loadPlaylists();
                 });
             }
 
@@ -391,9 +398,7 @@ public class MainActivity extends AppCompatActivity implements PlaylistAdapter.O
                     if (progressDialog.isShowing()) {
                         progressDialog.dismiss();
                     }
-                    Toast.makeText(MainActivity.this, (String) result, Toast.LENGTH_LONG).show();
-                    // 刷新播放列表显示
-                    loadPlaylists();
+                    Toast.makeText(MainActivity.this, String.valueOf(result), Toast.LENGTH_LONG).show();
                 });
             }
             
@@ -408,11 +413,4 @@ public class MainActivity extends AppCompatActivity implements PlaylistAdapter.O
             }
         });
     }
-
-    @Override
-    protected void onResume() {
-        super.onResume();
-        // 刷新播放列表（可能在其他页面修改了）
-        loadPlaylists();
-    }
 }
\ No newline at end of file
@@ -23,6 +23,7 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.baidu.carplayer.adapter.CurrentPlaylistAdapter;
+import com.baidu.carplayer.database.SongSearch;
 
 import com.baidu.carplayer.manager.LyricsManager;
 import com.baidu.carplayer.manager.PlaylistManager;
@@ -35,6 +36,7 @@ import com.baidu.carplayer.widget.ParticleBackgroundView;
 import androidx.media3.common.PlaybackException;
 
 import android.graphics.LinearGradient;
+import android.graphics.Matrix;
 import android.graphics.Shader;
 import android.graphics.Color;
 import android.graphics.drawable.GradientDrawable;
@@ -100,6 +102,7 @@ public class PlayerActivity extends AppCompatActivity {
 
     // 数据管理
     private PlaylistManager playlistManager;
+    private SongSearch songSearch;
     private LyricsManager lyricsManager;
     private String playlistId;
     private String playlistName;
@@ -117,6 +120,11 @@ public class PlayerActivity extends AppCompatActivity {
     private float shimmerOffset = 0f;
     private int shimmerColor1 = Color.rgb(255, 255, 255);
     private int shimmerColor2 = Color.rgb(200, 200, 255);
+    // 标题渐变缓存：标题文本变化时才重新创建，动画帧中只平移矩阵
+    private LinearGradient titleShader;
+    private String titleShaderText;
+    private float titleShaderWidth;
+    private final Matrix titleShaderMatrix = new Matrix();
 
     // 服务连接
     private ServiceConnection serviceConnection = new ServiceConnection() {
@@ -336,6 +344,16 @@ public class PlayerActivity extends AppCompatActivity {
     private void resumePlaybackState() {
         if (!serviceBound || audioPlayerService == null) return;
         
+        // 服务冷启动时队列在后台加载，等待加载完成后再恢复
+        if (!audioPlayerService.isPlaybackStateRestored()) {
+            audioPlayerService.whenPlaybackStateRestored(() -> {
+                if (!isFinishing() && !isDestroyed()) {
+                    resumePlaybackState();
+                }
+            });
+            return;
+        }
+        
         // 获取保存的播放列表和位置
         List<Song> savedPlaylist = audioPlayerService.getSavedPlaylist();
         int savedPosition = audioPlayerService.getSavedPosition();
@@ -390,7 +408,8 @@ public class PlayerActivity extends AppCompatActivity {
             return;
         }
 
-        playlistManager.getSongsForPlaylist(playlistId, new PlaylistManager.OnSongsLoadListener() {
+        // 在数据库中按与SongListActivity相同的规则排序
+        playlistManager.getSortedSongsForPlaylist(playlistId, sortAscending, new PlaylistManager.OnSongsLoadListener() {
             @Override
             public void onSuccess(List<Song> songs) {
                 runOnUiThread(() -> {
@@ -402,9 +421,6 @@ public class PlayerActivity extends AppCompatActivity {
 
                     playlistSongs = songs;
 
-                    // 应用与SongListActivity相同的排序规则
-                    Song.sortSongs(playlistSongs, sortAscending);
-
                     // 确定要播放的位置
                     int positionToPlay = currentPosition;
                     if (songId != -1) {
@@ -526,6 +542,7 @@ public class PlayerActivity extends AppCompatActivity {
 
     private void loadLyrics() {
         if (currentSong == null) {
+            lyricsManager.cancel();
             lrcView.setLrcEntries(null);
             return;
         }
@@ -676,24 +693,37 @@ public class PlayerActivity extends AppCompatActivity {
         
         // 设置点击事件
         currentPlaylistAdapter.setOnSongClickListener((song, position) -> {
+            if (!serviceBound) {
+                return;
+            }
             // 获取歌曲在原始列表中的位置
             int originalPosition = currentPlaylistAdapter.getOriginalPosition(song);
-            if (originalPosition >= 0 && serviceBound) {
+            if (originalPosition >= 0) {
                 audioPlayerService.playAtPosition(originalPosition);
                 updatePlayerState();
                 hidePlaylist();
+            } else {
+                // 搜索结果来自其他播放列表，切换到该播放列表播放
+                playSongFromPlaylist(song);
             }
         });
         
-        // 设置搜索功能
+        // 设置搜索功能：全文检索全部播放列表，输入防抖
+        songSearch = new SongSearch(this);
         playlistSearchInput.addTextChangedListener(new TextWatcher() {
             @Override
             public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
 
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
-                if (currentPlaylistAdapter != null) {
-                    currentPlaylistAdapter.getFilter().filter(s);
+                if (currentPlaylistAdapter == null) {
+                    return;
+                }
+                if (s.toString().trim().isEmpty()) {
+                    songSearch.cancel();
+                    currentPlaylistAdapter.clearSearch();
+                } else {
+                    songSearch.search(s.toString(), (query, songs) -> currentPlaylistAdapter.showSearchResults(songs));
                 }
             }
 
@@ -705,6 +735,34 @@ public class PlayerActivity extends AppCompatActivity {
         playlistContainer.setVisibility(View.GONE);
     }
     
+    /**
+     * 加载歌曲所在的播放列表并从该歌曲开始播放
+     */
+    private void playSongFromPlaylist(Song song) {
+        playlistManager.getSortedSongsForPlaylist(song.getPlaylistId(), sortAscending, new PlaylistManager.OnSongsLoadListener() {
+            @Override
+            public void onSuccess(List<Song> songs) {
+                runOnUiThread(() -> {
+                    if (!serviceBound || songs.isEmpty()) {
+                        return;
+                    }
+                    int position = Math.max(0, Song.findSongPosition(songs, song.getFsId()));
+                    playlistId = song.getPlaylistId();
+                    playlistSongs = songs;
+                    audioPlayerService.setPlaylist(songs);
+                    audioPlayerService.playAtPosition(position);
+                    updatePlayerState();
+                    hidePlaylist();
+                });
+            }
+
+            @Override
+            public void onError(String error) {
+                runOnUiThread(() -> Toast.makeText(PlayerActivity.this, "加载播放列表失败: " + error, Toast.LENGTH_SHORT).show());
+            }
+        });
+    }
+    
     /**
      * 切换播放列表显示状态
      */
@@ -723,7 +781,16 @@ public class PlayerActivity extends AppCompatActivity {
         if (serviceBound && audioPlayerService != null) {
             List<Song> currentPlaylist = audioPlayerService.getSavedPlaylist();
             if (currentPlaylist != null && !currentPlaylist.isEmpty()) {
-                currentPlaylistAdapter.setSongs(currentPlaylist);
+                // 先清空搜索框（会提交一次列表），再设置队列，避免滚动回调被后提交的列表覆盖
+                playlistSearchInput.setText("");
+                
+                // 列表差异在后台计算，应用后再滚动到当前播放位置
+                int currentPosition = audioPlayerService.getSavedPosition();
+                currentPlaylistAdapter.setSongs(currentPlaylist, () -> {
+                    if (currentPosition >= 0 && currentPosition < currentPlaylist.size()) {
+                        playlistRecyclerView.scrollToPosition(currentPosition);
+                    }
+                });
                 
                 // 高亮当前播放歌曲
                 Song currentSong = audioPlayerService.getCurrentSong();
@@ -733,15 +800,6 @@ public class PlayerActivity extends AppCompatActivity {
                 
                 playlistContainer.setVisibility(View.VISIBLE);
                 playlistVisible = true;
-                
-                // 清空搜索框
-                playlistSearchInput.setText("");
-                
-                // 滚动到当前播放位置
-                int currentPosition = audioPlayerService.getSavedPosition();
-                if (currentPosition >= 0 && currentPosition < currentPlaylist.size()) {
-                    playlistRecyclerView.scrollToPosition(currentPosition);
-                }
             } else {
                 Toast.makeText(this, "播放列表为空", Toast.LENGTH_SHORT).show();
             }
@@ -855,6 +913,12 @@ public class PlayerActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        if (songSearch != null) {
+            songSearch.cancel();
+        }
+        if (lyricsManager != null) {
+            lyricsManager.cancel();
+        }
         if (serviceBound) {
             unbindService(serviceConnection);
             serviceBound = false;
@@ -1007,20 +1071,25 @@ public class PlayerActivity extends AppCompatActivity {
         
         TextPaint paint = songTitle.getPaint();
         String text = songTitle.getText().toString();
-        float textWidth = paint.measureText(text);
+        
+        // 创建多色渐变，颜色始终可见，只是位置在移动（标题变化时才重新创建）
+        if (titleShader == null || !text.equals(titleShaderText)) {
+            titleShaderText = text;
+            titleShaderWidth = paint.measureText(text);
+            titleShader = new LinearGradient(
+                    0, 0, titleShaderWidth, songTitle.getTextSize(),
+                    new int[]{shimmerColor1, shimmerColor2, shimmerColor1},
+                    new float[]{0f, 0.5f, 1f},
+                    Shader.TileMode.MIRROR);
+        }
         
         // 保持原有的水平渐变方向，让颜色位置随时间偏移产生流动效果
         // 使用TileMode.MIRROR使渐变来回移动
-        float offset = shimmerOffset * textWidth;
-        
-        // 创建多色渐变，颜色始终可见，只是位置在移动
-        Shader textShader = new LinearGradient(
-                -offset, 0, textWidth - offset, songTitle.getTextSize(),
-                new int[]{shimmerColor1, shimmerColor2, shimmerColor1},
-                new float[]{0f, 0.5f, 1f},
-                Shader.TileMode.MIRROR);
+        float offset = shimmerOffset * titleShaderWidth;
+        titleShaderMatrix.setTranslate(-offset, 0);
+        titleShader.setLocalMatrix(titleShaderMatrix);
         
-        songTitle.getPaint().setShader(textShader);
+        paint.setShader(titleShader);
         songTitle.invalidate();
     }
 
@@ -13,6 +13,10 @@ import android.widget.Button;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.LiveData;
+import androidx.paging.LoadState;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -59,7 +63,7 @@ public class SongListActivity extends AppCompatActivity implements SongAdapter.O
 
     private String playlistId;
     private String playlistName;
-    private List<Song> currentSongs;
+    private LiveData<PagingData<Song>> pagedSongs;
     private boolean sortAscending = true; // 排序状态：true为正序，false为倒序
     
     private BaiduPanService baiduPanService;
@@ -128,7 +132,7 @@ public class SongListActivity extends AppCompatActivity implements SongAdapter.O
 
         initData();
         initViews();
-        loadSongs();
+        observeSongs();
         
         // 绑定服务（服务连接成功后会自动调用checkNowPlayingStatus）
         Intent intent = new Intent(this, AudioPlayerService.class);
@@ -140,19 +144,19 @@ public class SongListActivity extends AppCompatActivity implements SongAdapter.O
         if (songAdapter.isSelectionMode()) {
             return; // 多选模式下的点击已经在Adapter中处理
         }
-        openPlayerActivity(position);
+        openPlayerActivity(song.getFsId());
     }
 
     @Override
     public void onPlayFromHereClick(Song song, int position) {
-        openPlayerActivity(position);
+        openPlayerActivity(song.getFsId());
     }
     
     @Override
     public void onSongLongClick(Song song, int position) {
         if (!songAdapter.isSelectionMode()) {
             songAdapter.setSelectionMode(true);
-            songAdapter.toggleSelection(song.getFsId());
+            songAdapter.toggleSelection(song.getFsId(), position);
             updateSelectionUI();
         }
     }
@@ -202,6 +206,17 @@ public class SongListActivity extends AppCompatActivity implements SongAdapter.O
             tvSelectionCount.setText("已选择 " + count + " 项");
             btnSelectionDelete.setEnabled(count > 0);
         });
+        songAdapter.addLoadStateListener(loadStates -> {
+            // 首页加载完成后根据总数显示或隐藏空状态
+            if (loadStates.getRefresh() instanceof LoadState.NotLoading) {
+                updateEmptyState(songAdapter.getItemCount() == 0);
+            }
+            return kotlin.Unit.INSTANCE;
+        });
+        songAdapter.addOnPagesUpdatedListener(() -> {
+            songAdapter.refreshStripes();
+            return kotlin.Unit.INSTANCE;
+        });
         songRecyclerView.setAdapter(songAdapter);
 
         // 设置按钮点击事件
@@ -221,7 +236,7 @@ public class SongListActivity extends AppCompatActivity implements SongAdapter.O
             updateSelectionUI();
         });
         
-        btnSelectionSelectAll.setOnClickListener(v -> songAdapter.selectAll());
+        btnSelectionSelectAll.setOnClickListener(v -> selectAllSongs());
         
         btnSelectionDelete.setOnClickListener(v -> deleteSelectedSongs());
     }
@@ -244,22 +259,43 @@ public class SongListActivity extends AppCompatActivity implements SongAdapter.O
         }
     }
     
+    /**
+     * 全选：列表只加载了部分页面，从数据库读取全部歌曲的fsId
+     */
+    private void selectAllSongs() {
+        playlistManager.getSongIds(playlistId, new PlaylistManager.OnResultListener() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void onSuccess(Object result) {
+                runOnUiThread(() -> {
+                    if (songAdapter.isSelectionMode()) {
+                        songAdapter.selectAll((List<Long>) result);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(String error) {
+                runOnUiThread(() -> Toast.makeText(SongListActivity.this, "全选失败: " + error, Toast.LENGTH_SHORT).show());
+            }
+        });
+    }
+    
     private void deleteSelectedSongs() {
-        List<Song> selectedSongs = songAdapter.getSelectedSongs();
-        if (selectedSongs.isEmpty()) return;
+        List<Long> selectedSongIds = songAdapter.getSelectedSongIds();
+        if (selectedSongIds.isEmpty()) return;
         
         new android.app.AlertDialog.Builder(this)
             .setTitle("确认删除")
-            .setMessage("确定要从该歌单中移除选中的 " + selectedSongs.size() + " 首歌曲吗？")
+            .setMessage("确定要从该歌单中移除选中的 " + selectedSongIds.size() + " 首歌曲吗？")
             .setPositiveButton("删除", (dialog, which) -> {
-                playlistManager.removeSongsFromPlaylist(selectedSongs, playlistId, new PlaylistManager.OnResultListener() {
+                playlistManager.removeSongsByIdFromPlaylist(selectedSongIds, playlistId, new PlaylistManager.OnResultListener() {
                     @Override
                     public void onSuccess(Object result) {
                         runOnUiThread(() -> {
                             Toast.makeText(SongListActivity.this, "删除成功", Toast.LENGTH_SHORT).show();
                             songAdapter.setSelectionMode(false);
                             updateSelectionUI();
-                            loadSongs();
                         });
                     }
                     
@@ -286,8 +322,8 @@ public class SongListActivity extends AppCompatActivity implements SongAdapter.O
         } else {
             sortButton.setImageResource(android.R.drawable.ic_menu_sort_alphabetically);
         }
-        // 对当前歌曲列表进行排序
-        songAdapter.sortByTitle(sortAscending);
+        // 排序在数据库中完成，切换后重新分页加载
+        observeSongs();
     }
     
     private void checkNowPlayingStatus() {
@@ -323,32 +359,27 @@ public class SongListActivity extends AppCompatActivity implements SongAdapter.O
         }
     }
 
-    private void loadSongs() {
-        playlistManager.getSongsForPlaylist(playlistId, new PlaylistManager.OnSongsLoadListener() {
-            @Override
-            public void onSuccess(List<Song> songs) {
-                runOnUiThread(() -> {
-                    currentSongs = songs;
-                    songAdapter.setSongs(songs);
-                    // 应用当前的排序设置
-                    songAdapter.sortByTitle(sortAscending);
-                    
-                    // 显示或隐藏空状态
-                    if (songs.isEmpty()) {
-                        emptyState.setVisibility(View.VISIBLE);
-                        songRecyclerView.setVisibility(View.GONE);
-                    } else {
-                        emptyState.setVisibility(View.GONE);
-                        songRecyclerView.setVisibility(View.VISIBLE);
-                    }
-                });
-            }
+    /**
+     * 分页加载歌曲列表（排序在数据库中完成），歌曲增删后Room会自动重新加载
+     */
+    private void observeSongs() {
+        if (pagedSongs != null) {
+            pagedSongs.removeObservers(this);
+        }
+        pagedSongs = PagingLiveData.cachedIn(
+                playlistManager.getPagedSongs(playlistId, sortAscending), getLifecycle());
+        pagedSongs.observe(this, pagingData -> songAdapter.submitData(getLifecycle(), pagingData));
+    }
 
-            @Override
-            public void onError(String error) {
-                runOnUiThread(() -> Toast.makeText(SongListActivity.this, "加载歌曲失败: " + error, Toast.LENGTH_SHORT).show());
-            }
-        });
+    private void updateEmptyState(boolean empty) {
+        // 显示或隐藏空状态
+        if (empty) {
+            emptyState.setVisibility(View.VISIBLE);
+            songRecyclerView.setVisibility(View.GONE);
+        } else {
+            emptyState.setVisibility(View.GONE);
+            songRecyclerView.setVisibility(View.VISIBLE);
+        }
     }
 
     private void loadPlaylistInfo() {
@@ -415,16 +446,20 @@ public class SongListActivity extends AppCompatActivity implements SongAdapter.O
         progressDialog.show();
         
         // 调用PlaylistManager的刷新方法
-        playlistManager.refreshPlaylist(playlistId, baiduPanService, accessToken, new PlaylistManager.OnResultListener() {
+        playlistManager.refreshPlaylist(playlistId, baiduPanService, accessToken, (foldersDone, foldersQueued, filesFound) -> {
+            runOnUiThread(() -> {
+                if (progressDialog.isShowing()) {
+                    progressDialog.setMessage("正在扫描文件夹 " + foldersDone + "/" + foldersQueued + "，已找到 " + filesFound + " 首歌曲...");
+                }
+            });
+        }, new PlaylistManager.OnResultListener() {
             @Override
             public void onSuccess(Object result) {
                 runOnUiThread(() -> {
                     if (progressDialog.isShowing()) {
                         progressDialog.dismiss();
                     }
-                    Toast.makeText(SongListActivity.this, (String) result, Toast.LENGTH_LONG).show();
-                    // 刷新列表显示
-                    loadSongs();
+                    Toast.makeText(SongListActivity.this, String.valueOf(result), Toast.LENGTH_LONG).show();
                 });
             }
             
@@ -441,25 +476,39 @@ public class SongListActivity extends AppCompatActivity implements SongAdapter.O
     }
 
     private void playAll() {
-        if (currentSongs == null || currentSongs.isEmpty()) {
+        if (songAdapter.getItemCount() == 0) {
             Toast.makeText(this, "播放列表为空", Toast.LENGTH_SHORT).show();
             return;
         }
 
-        // 打开播放页面并播放第一首
-        openPlayerActivity(0);
+        // 打开播放页面并播放第一首（找不到歌曲ID时从第一首开始）
+        openPlayerActivity(-1);
     }
 
     private void shufflePlay() {
-        if (currentSongs == null || currentSongs.isEmpty()) {
+        if (songAdapter.getItemCount() == 0) {
             Toast.makeText(this, "播放列表为空", Toast.LENGTH_SHORT).show();
             return;
         }
 
-       // 随机选择一首歌曲开始播放
-        int randomPosition = new SecureRandom().nextInt(currentSongs.size());
-        long songId = currentSongs.get(randomPosition).getFsId();
-        openPlayerActivity(songId, true);
+        // 随机选择一首歌曲开始播放（从数据库读取ID，不依赖已加载的页面）
+        playlistManager.getSongIds(playlistId, new PlaylistManager.OnResultListener() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void onSuccess(Object result) {
+                List<Long> songIds = (List<Long>) result;
+                if (songIds == null || songIds.isEmpty()) {
+                    return;
+                }
+                long songId = songIds.get(new SecureRandom().nextInt(songIds.size()));
+                runOnUiThread(() -> openPlayerActivity(songId, true));
+            }
+
+            @Override
+            public void onError(String error) {
+                runOnUiThread(() -> Toast.makeText(SongListActivity.this, "加载歌曲失败: " + error, Toast.LENGTH_SHORT).show());
+            }
+        });
     }
 
     private void openPlayerActivity(long songId) {
@@ -488,8 +537,7 @@ public class SongListActivity extends AppCompatActivity implements SongAdapter.O
     @Override
     protected void onResume() {
         super.onResume();
-        // 刷新歌曲列表
-        loadSongs();
+        // 歌曲列表由分页数据源自动更新，无需手动刷新
         // 检查播放状态（确保每次恢复时都能正确显示/隐藏按钮）
         checkNowPlayingStatus();
     }
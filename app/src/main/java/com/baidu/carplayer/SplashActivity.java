@@ -51,7 +51,8 @@ public class SplashActivity extends AppCompatActivity {
             if (isLoggedIn) {
                 // 检查是否有保存的播放状态
                 SharedPreferences prefs = getSharedPreferences("AudioPlayerPrefs", MODE_PRIVATE);
-                boolean hasSavedState = prefs.contains("playlist");
+                // queue_size 在保存播放队列时写入，playlist 为旧版本保存的整个列表
+                boolean hasSavedState = prefs.contains("queue_size") || prefs.contains("playlist");
                 boolean isPlaying = prefs.getBoolean("is_playing", false);
                 Log.d(TAG, "Has saved state: " + hasSavedState + ", Is playing: " + isPlaying);
                 
@@ -3,12 +3,11 @@ package com.baidu.carplayer.adapter;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.Filter;
-import android.widget.Filterable;
 import android.widget.ImageButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.baidu.carplayer.R;
@@ -19,12 +18,15 @@ import java.util.List;
 
 /**
  * 当前播放列表适配器
- * 支持搜索过滤和惰性加载（通过RecyclerView本身的特性支持）
+ * 支持搜索（由 SongSearch 全文检索全部播放列表）和惰性加载（通过RecyclerView本身的特性支持）
+ * 基于ListAdapter，列表差异在后台线程计算；播放状态变化通过payload只更新高亮
  */
-public class CurrentPlaylistAdapter extends RecyclerView.Adapter<CurrentPlaylistAdapter.ViewHolder> implements Filterable {
+public class CurrentPlaylistAdapter extends ListAdapter<Song, CurrentPlaylistAdapter.ViewHolder> {
+
+    // 局部刷新的payload：只更新播放高亮和斑马纹背景
+    static final String PAYLOAD_STATE = "state";
 
     private List<Song> originalSongs = new ArrayList<>();
-    private List<Song> filteredSongs = new ArrayList<>();
     private OnSongClickListener listener;
     private long currentPlayingSongId = -1;
 
@@ -32,27 +34,63 @@ public class CurrentPlaylistAdapter extends RecyclerView.Adapter<CurrentPlaylist
         void onSongClick(Song song, int position);
     }
 
+    public CurrentPlaylistAdapter() {
+        super(new SongDiffCallback());
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getCurrentList().get(position).getFsId();
+    }
+
     public void setOnSongClickListener(OnSongClickListener listener) {
         this.listener = listener;
     }
 
     public void setSongs(List<Song> songs) {
+        setSongs(songs, null);
+    }
+
+    /**
+     * 设置当前队列
+     * @param onCommitted 差异应用到列表后回调（如滚动到指定位置），可为null
+     */
+    public void setSongs(List<Song> songs, Runnable onCommitted) {
         this.originalSongs = songs != null ? new ArrayList<>(songs) : new ArrayList<>();
-        this.filteredSongs = new ArrayList<>(this.originalSongs);
-        notifyDataSetChanged();
+        submitSongs(new ArrayList<>(this.originalSongs), onCommitted);
+    }
+
+    /**
+     * 提交新列表，差异应用后刷新斑马纹（只重绑背景）
+     */
+    private void submitSongs(List<Song> songs) {
+        submitSongs(songs, null);
+    }
+
+    private void submitSongs(List<Song> songs, Runnable onCommitted) {
+        submitList(songs, () -> {
+            notifyItemRangeChanged(0, getItemCount(), PAYLOAD_STATE);
+            if (onCommitted != null) {
+                onCommitted.run();
+            }
+        });
     }
     
+    @Override
     public Song getItem(int position) {
-        if (position >= 0 && position < filteredSongs.size()) {
-            return filteredSongs.get(position);
+        List<Song> songs = getCurrentList();
+        if (position >= 0 && position < songs.size()) {
+            return songs.get(position);
         }
         return null;
     }
     
-    // 获取歌曲在原始列表中的位置
+    // 获取歌曲在原始列表中的位置，不在当前队列中时返回-1
+    // 按fsId匹配：队列只包含一个播放列表，搜索结果可能是同一首歌在其他播放列表中的记录
     public int getOriginalPosition(Song song) {
         for (int i = 0; i < originalSongs.size(); i++) {
-            if (originalSongs.get(i).getId() == song.getId()) {
+            if (originalSongs.get(i).getFsId() == song.getFsId()) {
                 return i;
             }
         }
@@ -65,11 +103,10 @@ public class CurrentPlaylistAdapter extends RecyclerView.Adapter<CurrentPlaylist
             this.currentPlayingSongId = songId;
             
             // 刷新受影响的项
-            if (filteredSongs != null) {
-                for (int i = 0; i < filteredSongs.size(); i++) {
-                    if (filteredSongs.get(i).getId() == oldId || filteredSongs.get(i).getId() == songId) {
-                        notifyItemChanged(i);
-                    }
+            List<Song> songs = getCurrentList();
+            for (int i = 0; i < songs.size(); i++) {
+                if (songs.get(i).getId() == oldId || songs.get(i).getId() == songId) {
+                    notifyItemChanged(i, PAYLOAD_STATE);
                 }
             }
         }
@@ -85,62 +122,33 @@ public class CurrentPlaylistAdapter extends RecyclerView.Adapter<CurrentPlaylist
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Song song = filteredSongs.get(position);
+        Song song = getItem(position);
         holder.bind(song);
-        
-        // 设置斑马纹背景
-        int backgroundColor = (position % 2 == 0)
-            ? holder.itemView.getContext().getResources().getColor(R.color.list_item_background, null)
-            : holder.itemView.getContext().getResources().getColor(R.color.list_item_background_alt, null);
-        
-        // 高亮当前播放歌曲
-        if (song.getId() == currentPlayingSongId) {
-             backgroundColor = holder.itemView.getContext().getResources().getColor(R.color.car_surface_highlight, null);
-        }
-        
-        holder.itemView.setBackgroundColor(backgroundColor);
+        holder.bindState(song, position);
     }
 
     @Override
-    public int getItemCount() {
-        return filteredSongs.size();
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+        } else {
+            // 唯一的payload类型是 PAYLOAD_STATE
+            holder.bindState(getItem(position), position);
+        }
     }
 
-    @Override
-    public Filter getFilter() {
-        return new Filter() {
-            @Override
-            protected FilterResults performFiltering(CharSequence constraint) {
-                String charString = constraint.toString();
-                List<Song> resultList;
-                
-                if (charString.isEmpty()) {
-                    resultList = originalSongs;
-                } else {
-                    List<Song> filteredList = new ArrayList<>();
-                    String filterPattern = charString.toLowerCase().trim();
-                    
-                    for (Song song : originalSongs) {
-                        if (song.getTitle().toLowerCase().contains(filterPattern) || 
-                            (song.getArtist() != null && song.getArtist().toLowerCase().contains(filterPattern))) {
-                            filteredList.add(song);
-                        }
-                    }
-                    resultList = filteredList;
-                }
-
-                FilterResults filterResults = new FilterResults();
-                filterResults.values = resultList;
-                filterResults.count = resultList.size();
-                return filterResults;
-            }
+    /**
+     * 显示搜索结果（来自全部播放列表的全文检索，可能包含不在当前队列中的歌曲）
+     */
+    public void showSearchResults(List<Song> results) {
+        submitSongs(results != null ? new ArrayList<>(results) : new ArrayList<>());
+    }
 
-            @Override
-            protected void publishResults(CharSequence constraint, FilterResults results) {
-                filteredSongs = (ArrayList<Song>) results.values;
-                notifyDataSetChanged();
-            }
-        };
+    /**
+     * 清除搜索，恢复显示当前队列
+     */
+    public void clearSearch() {
+        submitSongs(new ArrayList<>(originalSongs));
     }
 
     class ViewHolder extends RecyclerView.ViewHolder {
@@ -160,7 +168,7 @@ public class CurrentPlaylistAdapter extends RecyclerView.Adapter<CurrentPlaylist
             itemView.setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (listener != null && position != RecyclerView.NO_POSITION) {
-                    listener.onSongClick(filteredSongs.get(position), position);
+                    listener.onSongClick(getItem(position), position);
                 }
             });
         }
@@ -177,9 +185,24 @@ public class CurrentPlaylistAdapter extends RecyclerView.Adapter<CurrentPlaylist
             if (songPath != null) {
                 songPath.setText(song.getPath());
             }
+        }
+
+        void bindState(Song song, int position) {
+            boolean playing = song.getId() == currentPlayingSongId;
+
+            // 设置斑马纹背景，高亮当前播放歌曲
+            int backgroundColor;
+            if (playing) {
+                backgroundColor = itemView.getContext().getColor(R.color.car_surface_highlight);
+            } else {
+                backgroundColor = (position % 2 == 0)
+                    ? itemView.getContext().getColor(R.color.list_item_background)
+                    : itemView.getContext().getColor(R.color.list_item_background_alt);
+            }
+            itemView.setBackgroundColor(backgroundColor);
             
             // 显示播放状态
-            if (song.getId() == currentPlayingSongId) {
+            if (playing) {
                 songTitle.setTextColor(itemView.getContext().getColor(R.color.car_accent));
                 songTitle.setTextScaleX(1.05f);
                 if (songPath != null) {
@@ -8,6 +8,8 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.baidu.carplayer.R;
@@ -19,12 +21,33 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * 文件列表适配器
+ * 基于ListAdapter，列表差异在后台线程计算；选中状态变化通过payload只更新选中图标
  */
-public class FileAdapter extends RecyclerView.Adapter<FileAdapter.FileViewHolder> {
+public class FileAdapter extends ListAdapter<FileItem, FileAdapter.FileViewHolder> {
 
+    // 局部刷新的payload
+    static final String PAYLOAD_SELECTION = "selection";
+    static final String PAYLOAD_POSITION = "position";
+
+    private static final DiffUtil.ItemCallback<FileItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<FileItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull FileItem oldItem, @NonNull FileItem newItem) {
+            return oldItem.getFsId() == newItem.getFsId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull FileItem oldItem, @NonNull FileItem newItem) {
+            return oldItem.getSize() == newItem.getSize()
+                    && oldItem.getIsdir() == newItem.getIsdir()
+                    && Objects.equals(oldItem.getServerFilename(), newItem.getServerFilename());
+        }
+    };
+
+    // 最近一次提交的列表（差异可能尚未应用到显示列表），用于在其基础上生成新列表
     private List<FileItem> files = new ArrayList<>();
     private Map<Long, Boolean> selectedFiles = new HashMap<>();
     private OnFileClickListener listener;
@@ -34,13 +57,30 @@ public class FileAdapter extends RecyclerView.Adapter<FileAdapter.FileViewHolder
         void onFileCheckChanged(FileItem file, boolean isChecked);
     }
 
+    public FileAdapter() {
+        super(DIFF_CALLBACK);
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getFsId();
+    }
+
     public void setOnFileClickListener(OnFileClickListener listener) {
         this.listener = listener;
     }
 
     public void setFiles(List<FileItem> files) {
+        submitFiles(files != null ? new ArrayList<>(files) : new ArrayList<>());
+    }
+
+    /**
+     * 提交新列表，差异应用后刷新斑马纹（只重绑背景）
+     */
+    private void submitFiles(List<FileItem> files) {
         this.files = files;
-        notifyDataSetChanged();
+        submitList(files, () -> notifyItemRangeChanged(0, getItemCount(), PAYLOAD_POSITION));
     }
 
     @NonNull
@@ -53,13 +93,24 @@ public class FileAdapter extends RecyclerView.Adapter<FileAdapter.FileViewHolder
 
     @Override
     public void onBindViewHolder(@NonNull FileViewHolder holder, int position) {
-        FileItem file = files.get(position);
-        holder.bind(file);
+        FileItem file = getItem(position);
+        holder.bind(file, position);
     }
 
     @Override
-    public int getItemCount() {
-        return files.size();
+    public void onBindViewHolder(@NonNull FileViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        FileItem file = getItem(position);
+        for (Object payload : payloads) {
+            if (PAYLOAD_SELECTION.equals(payload)) {
+                holder.bindSelection(file);
+            } else if (PAYLOAD_POSITION.equals(payload)) {
+                holder.bindBackground(position);
+            }
+        }
     }
 
     public void selectAllAudioFiles(boolean select) {
@@ -69,7 +120,7 @@ public class FileAdapter extends RecyclerView.Adapter<FileAdapter.FileViewHolder
                 selectedFiles.put(file.getFsId(), select);
             }
         }
-        notifyDataSetChanged();
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
     }
 
     public boolean areAllAudioFilesSelected() {
@@ -86,7 +137,7 @@ public class FileAdapter extends RecyclerView.Adapter<FileAdapter.FileViewHolder
 
     public void clearSelection() {
         selectedFiles.clear();
-        notifyDataSetChanged();
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
     }
 
     public List<FileItem> getSelectedFiles() {
@@ -124,7 +175,8 @@ public class FileAdapter extends RecyclerView.Adapter<FileAdapter.FileViewHolder
      * @param ascending true为正序，false为倒序
      */
     public void sortByName(boolean ascending) {
-        Collections.sort(files, new Comparator<FileItem>() {
+        List<FileItem> sorted = new ArrayList<>(files);
+        Collections.sort(sorted, new Comparator<FileItem>() {
             @Override
             public int compare(FileItem f1, FileItem f2) {
                 // 文件夹始终排在前面
@@ -137,7 +189,7 @@ public class FileAdapter extends RecyclerView.Adapter<FileAdapter.FileViewHolder
                 return ascending ? result : -result;
             }
         });
-        notifyDataSetChanged();
+        submitFiles(sorted);
     }
 
     class FileViewHolder extends RecyclerView.ViewHolder {
@@ -158,7 +210,7 @@ public class FileAdapter extends RecyclerView.Adapter<FileAdapter.FileViewHolder
             itemView.setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (position != RecyclerView.NO_POSITION && listener != null) {
-                    FileItem file = files.get(position);
+                    FileItem file = getItem(position);
                     if (file.getIsdir() == 1) {
                         // 文件夹点击进入
                         listener.onFileClick(file);
@@ -172,7 +224,7 @@ public class FileAdapter extends RecyclerView.Adapter<FileAdapter.FileViewHolder
             itemView.setOnLongClickListener(v -> {
                 int position = getAdapterPosition();
                 if (position != RecyclerView.NO_POSITION && listener != null) {
-                    FileItem file = files.get(position);
+                    FileItem file = getItem(position);
                     if (file.getIsdir() == 1) {
                         // 文件夹长按切换选中状态
                         toggleSelection(file);
@@ -187,31 +239,16 @@ public class FileAdapter extends RecyclerView.Adapter<FileAdapter.FileViewHolder
             boolean isSelected = selectedFiles.containsKey(file.getFsId()) && selectedFiles.get(file.getFsId());
             boolean newStatus = !isSelected;
             selectedFiles.put(file.getFsId(), newStatus);
-            notifyItemChanged(getAdapterPosition());
+            notifyItemChanged(getAdapterPosition(), PAYLOAD_SELECTION);
             if (listener != null) {
                 listener.onFileCheckChanged(file, newStatus);
             }
         }
 
-        public void bind(FileItem file) {
+        public void bind(FileItem file, int position) {
             fileName.setText(file.getServerFilename());
-            
-            // 设置斑马纹背景
-            int position = getAdapterPosition();
-            if (position % 2 == 0) {
-                itemView.setBackgroundColor(0xFF1E1E1E); // 深色
-            } else {
-                itemView.setBackgroundColor(0xFF2A2A2A); // 稍浅色
-            }
-            
-            boolean isSelected = selectedFiles.containsKey(file.getFsId()) && selectedFiles.get(file.getFsId());
-            
-            // 设置选中状态图标
-            if (isSelected) {
-                selectedIcon.setVisibility(View.VISIBLE);
-            } else {
-                selectedIcon.setVisibility(View.GONE);
-            }
+            bindBackground(position);
+            bindSelection(file);
 
             // 设置图标
             if (file.getIsdir() == 1) {
@@ -237,6 +274,26 @@ public class FileAdapter extends RecyclerView.Adapter<FileAdapter.FileViewHolder
             fileCheckbox.setVisibility(View.GONE);
         }
 
+        void bindSelection(FileItem file) {
+            boolean isSelected = selectedFiles.containsKey(file.getFsId()) && selectedFiles.get(file.getFsId());
+            
+            // 设置选中状态图标
+            if (isSelected) {
+                selectedIcon.setVisibility(View.VISIBLE);
+            } else {
+                selectedIcon.setVisibility(View.GONE);
+            }
+        }
+
+        void bindBackground(int position) {
+            // 设置斑马纹背景
+            if (position % 2 == 0) {
+                itemView.setBackgroundColor(0xFF1E1E1E); // 深色
+            } else {
+                itemView.setBackgroundColor(0xFF2A2A2A); // 稍浅色
+            }
+        }
+
         private String formatFileSize(long size) {
             if (size < 1024) {
                 return size + " B";
@@ -8,6 +8,7 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.baidu.carplayer.R;
@@ -16,8 +17,16 @@ import com.baidu.carplayer.model.Playlist;
 import java.util.ArrayList;
 import java.util.List;
 
-public class PlaylistAdapter extends RecyclerView.Adapter<PlaylistAdapter.PlaylistViewHolder> {
+/**
+ * 播放列表适配器
+ * 基于ListAdapter，列表差异在后台线程计算；选中高亮变化通过payload只更新背景
+ */
+public class PlaylistAdapter extends ListAdapter<Playlist, PlaylistAdapter.PlaylistViewHolder> {
 
+    // 局部刷新的payload：只更新背景（斑马纹和选中高亮）
+    static final String PAYLOAD_BACKGROUND = "background";
+
+    // 最近一次提交的列表（差异可能尚未应用到显示列表），用于在其基础上生成新列表
     private List<Playlist> playlists = new ArrayList<>();
     private OnPlaylistClickListener listener;
     private int selectedPosition = -1;
@@ -28,40 +37,53 @@ public class PlaylistAdapter extends RecyclerView.Adapter<PlaylistAdapter.Playli
         void onPlaylistLongClick(Playlist playlist, int position);
     }
 
+    public PlaylistAdapter() {
+        super(new PlaylistDiffCallback());
+    }
+
     public void setOnPlaylistClickListener(OnPlaylistClickListener listener) {
         this.listener = listener;
     }
 
     public void setPlaylists(List<Playlist> playlists) {
-        this.playlists = playlists != null ? playlists : new ArrayList<>();
-        notifyDataSetChanged();
+        submitPlaylists(playlists != null ? new ArrayList<>(playlists) : new ArrayList<>());
     }
 
     public void addPlaylist(Playlist playlist) {
-        playlists.add(playlist);
-        notifyItemInserted(playlists.size() - 1);
+        List<Playlist> newPlaylists = new ArrayList<>(playlists);
+        newPlaylists.add(playlist);
+        submitPlaylists(newPlaylists);
     }
 
     public void removePlaylist(int position) {
         if (position >= 0 && position < playlists.size()) {
-            playlists.remove(position);
-            notifyItemRemoved(position);
+            List<Playlist> newPlaylists = new ArrayList<>(playlists);
+            newPlaylists.remove(position);
             if (selectedPosition == position) {
                 selectedPosition = -1;
             } else if (selectedPosition > position) {
                 selectedPosition--;
             }
+            submitPlaylists(newPlaylists);
         }
     }
 
+    /**
+     * 提交新列表，差异应用后刷新斑马纹（只重绑背景）
+     */
+    private void submitPlaylists(List<Playlist> playlists) {
+        this.playlists = playlists;
+        submitList(playlists, () -> notifyItemRangeChanged(0, getItemCount(), PAYLOAD_BACKGROUND));
+    }
+
     public void setSelectedPosition(int position) {
         int previousPosition = selectedPosition;
         selectedPosition = position;
         if (previousPosition >= 0) {
-            notifyItemChanged(previousPosition);
+            notifyItemChanged(previousPosition, PAYLOAD_BACKGROUND);
         }
         if (position >= 0) {
-            notifyItemChanged(position);
+            notifyItemChanged(position, PAYLOAD_BACKGROUND);
         }
     }
 
@@ -75,13 +97,18 @@ public class PlaylistAdapter extends RecyclerView.Adapter<PlaylistAdapter.Playli
 
     @Override
     public void onBindViewHolder(@NonNull PlaylistViewHolder holder, int position) {
-        Playlist playlist = playlists.get(position);
+        Playlist playlist = getItem(position);
         holder.bind(playlist, position);
     }
 
     @Override
-    public int getItemCount() {
-        return playlists.size();
+    public void onBindViewHolder(@NonNull PlaylistViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+        } else {
+            // 唯一的payload类型是 PAYLOAD_BACKGROUND
+            holder.bindBackground(position);
+        }
     }
 
     class PlaylistViewHolder extends RecyclerView.ViewHolder {
@@ -100,14 +127,14 @@ public class PlaylistAdapter extends RecyclerView.Adapter<PlaylistAdapter.Playli
             itemView.setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (listener != null && position != RecyclerView.NO_POSITION) {
-                    listener.onPlaylistClick(playlists.get(position), position);
+                    listener.onPlaylistClick(getItem(position), position);
                 }
             });
             
             itemView.setOnLongClickListener(v -> {
                 int position = getAdapterPosition();
                 if (listener != null && position != RecyclerView.NO_POSITION) {
-                    listener.onPlaylistLongClick(playlists.get(position), position);
+                    listener.onPlaylistLongClick(getItem(position), position);
                     return true;
                 }
                 return false;
@@ -116,7 +143,7 @@ public class PlaylistAdapter extends RecyclerView.Adapter<PlaylistAdapter.Playli
             playlistMore.setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (listener != null && position != RecyclerView.NO_POSITION) {
-                    listener.onPlaylistMoreClick(playlists.get(position), position);
+                    listener.onPlaylistMoreClick(getItem(position), position);
                 }
             });
         }
@@ -134,6 +161,10 @@ public class PlaylistAdapter extends RecyclerView.Adapter<PlaylistAdapter.Playli
                 playlistIcon.setText("?");
             }
 
+            bindBackground(position);
+        }
+
+        void bindBackground(int position) {
             // 高亮选中的播放列表
             if (position == selectedPosition) {
                 itemView.setBackgroundColor(itemView.getContext().getColor(R.color.list_item_selected));
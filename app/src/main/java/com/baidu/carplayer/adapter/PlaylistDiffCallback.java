@@ -0,0 +1,25 @@
+package com.baidu.carplayer.adapter;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.baidu.carplayer.model.Playlist;
+
+import java.util.Objects;
+
+/**
+ * 播放列表差异比较（在后台线程执行）
+ */
+class PlaylistDiffCallback extends DiffUtil.ItemCallback<Playlist> {
+
+    @Override
+    public boolean areItemsTheSame(@NonNull Playlist oldItem, @NonNull Playlist newItem) {
+        return Objects.equals(oldItem.getId(), newItem.getId());
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull Playlist oldItem, @NonNull Playlist newItem) {
+        return Objects.equals(oldItem.getName(), newItem.getName())
+                && oldItem.getSongCount() == newItem.getSongCount();
+    }
+}
@@ -7,6 +7,7 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.baidu.carplayer.R;
@@ -17,10 +18,10 @@ import java.util.List;
 
 /**
  * 播放列表网格适配器
+ * 基于ListAdapter，列表差异在后台线程计算，只重绑变化的项
  */
-public class PlaylistGridAdapter extends RecyclerView.Adapter<PlaylistGridAdapter.PlaylistViewHolder> {
+public class PlaylistGridAdapter extends ListAdapter<Playlist, PlaylistGridAdapter.PlaylistViewHolder> {
 
-    private List<Playlist> playlists = new ArrayList<>();
     private OnPlaylistClickListener listener;
 
     public interface OnPlaylistClickListener {
@@ -28,13 +29,16 @@ public class PlaylistGridAdapter extends RecyclerView.Adapter<PlaylistGridAdapte
         void onPlaylistLongClick(Playlist playlist);
     }
 
+    public PlaylistGridAdapter() {
+        super(new PlaylistDiffCallback());
+    }
+
     public void setOnPlaylistClickListener(OnPlaylistClickListener listener) {
         this.listener = listener;
     }
 
     public void setPlaylists(List<Playlist> playlists) {
-        this.playlists = playlists;
-        notifyDataSetChanged();
+        submitList(playlists != null ? new ArrayList<>(playlists) : new ArrayList<>());
     }
 
     @NonNull
@@ -47,15 +51,10 @@ public class PlaylistGridAdapter extends RecyclerView.Adapter<PlaylistGridAdapte
 
     @Override
     public void onBindViewHolder(@NonNull PlaylistViewHolder holder, int position) {
-        Playlist playlist = playlists.get(position);
+        Playlist playlist = getItem(position);
         holder.bind(playlist);
     }
 
-    @Override
-    public int getItemCount() {
-        return playlists.size();
-    }
-
     class PlaylistViewHolder extends RecyclerView.ViewHolder {
         private ImageView playlistCover;
         private TextView playlistName;
@@ -70,14 +69,14 @@ public class PlaylistGridAdapter extends RecyclerView.Adapter<PlaylistGridAdapte
             itemView.setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (position != RecyclerView.NO_POSITION && listener != null) {
-                    listener.onPlaylistClick(playlists.get(position));
+                    listener.onPlaylistClick(getItem(position));
                 }
             });
 
             itemView.setOnLongClickListener(v -> {
                 int position = getAdapterPosition();
                 if (position != RecyclerView.NO_POSITION && listener != null) {
-                    listener.onPlaylistLongClick(playlists.get(position));
+                    listener.onPlaylistLongClick(getItem(position));
                 }
                 return true;
             });
@@ -9,25 +9,36 @@ import android.widget.TextView;
 import android.widget.CheckBox;
 
 import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.baidu.carplayer.R;
 import com.baidu.carplayer.model.Song;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Set;
 
-public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder> {
+/**
+ * 歌曲列表适配器
+ * 基于PagingDataAdapter，歌曲按页从数据库加载，未加载的位置显示为占位项；
+ * 多选和播放状态变化通过payload只更新对应的视图
+ * 注意：PagingDataAdapter 不支持稳定ID
+ */
+public class SongAdapter extends PagingDataAdapter<Song, SongAdapter.SongViewHolder> {
+
+    // 局部刷新的payload
+    static final String PAYLOAD_SELECTION = "selection";
+    static final String PAYLOAD_NOW_PLAYING = "now_playing";
+    static final String PAYLOAD_POSITION = "position";
 
-    private List<Song> songs = new ArrayList<>();
     private OnSongClickListener listener;
     private long currentPlayingSongId = -1;
-    
+    // 正在播放歌曲最近一次绑定的位置（绑定时记录，避免切歌时查找整个列表）
+    private int currentPlayingPosition = RecyclerView.NO_POSITION;
+
     // 多选模式相关
     private boolean isSelectionMode = false;
     private Set<Long> selectedSongIds = new HashSet<>();
@@ -38,19 +49,23 @@ public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder
         void onPlayFromHereClick(Song song, int position);
         void onSongLongClick(Song song, int position);
     }
-    
+
     public interface OnSelectionChangeListener {
         void onSelectionChanged(int count);
     }
 
+    public SongAdapter() {
+        super(new SongDiffCallback());
+    }
+
     public void setOnSongClickListener(OnSongClickListener listener) {
         this.listener = listener;
     }
-    
+
     public void setOnSelectionChangeListener(OnSelectionChangeListener listener) {
         this.selectionChangeListener = listener;
     }
-    
+
     public void setSelectionMode(boolean selectionMode) {
         if (this.isSelectionMode != selectionMode) {
             this.isSelectionMode = selectionMode;
@@ -58,92 +73,91 @@ public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder
                 selectedSongIds.clear();
                 notifySelectionChanged();
             }
-            notifyDataSetChanged();
+            notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
         }
     }
-    
+
     public boolean isSelectionMode() {
         return isSelectionMode;
     }
-    
-    public void toggleSelection(long songId) {
+
+    /**
+     * 切换歌曲的选中状态
+     * @param position 歌曲在列表中的位置（点击时的绑定位置）
+     */
+    public void toggleSelection(long songId, int position) {
         if (selectedSongIds.contains(songId)) {
             selectedSongIds.remove(songId);
         } else {
             selectedSongIds.add(songId);
         }
         notifySelectionChanged();
-        notifyDataSetChanged();
-    }
-    
-    public void selectAll() {
-        for (Song song : songs) {
-            selectedSongIds.add(song.getFsId());
+        if (position >= 0 && position < getItemCount()) {
+            notifyItemChanged(position, PAYLOAD_SELECTION);
         }
+    }
+
+    /**
+     * 全选（列表只加载了部分页面，需要传入播放列表中全部歌曲的fsId）
+     */
+    public void selectAll(Collection<Long> songIds) {
+        selectedSongIds.addAll(songIds);
         notifySelectionChanged();
-        notifyDataSetChanged();
-    }
-    
-    public List<Song> getSelectedSongs() {
-        List<Song> result = new ArrayList<>();
-        for (Song song : songs) {
-            if (selectedSongIds.contains(song.getFsId())) {
-                result.add(song);
-            }
-        }
-        return result;
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
+    }
+
+    public List<Long> getSelectedSongIds() {
+        return new ArrayList<>(selectedSongIds);
     }
-    
+
     private void notifySelectionChanged() {
         if (selectionChangeListener != null) {
             selectionChangeListener.onSelectionChanged(selectedSongIds.size());
         }
     }
 
-    public void setSongs(List<Song> songs) {
-        this.songs = songs != null ? songs : new ArrayList<>();
-        notifyDataSetChanged();
-    }
-
-    public void addSong(Song song) {
-        songs.add(song);
-        notifyItemInserted(songs.size() - 1);
+    /**
+     * 在已加载的页面中查找歌曲位置，未加载时返回-1
+     * 使用 peek() 逐项检查，不复制快照，占位项直接跳过
+     */
+    private int findLoadedPosition(long songId) {
+        int count = getItemCount();
+        for (int i = 0; i < count; i++) {
+            Song song = peek(i);
+            if (song != null && song.getId() == songId) {
+                return i;
+            }
+        }
+        return -1;
     }
 
-    public void removeSong(int position) {
-        if (position >= 0 && position < songs.size()) {
-            songs.remove(position);
-            notifyItemRemoved(position);
-        }
+    /**
+     * 页面更新后刷新斑马纹（只重绑背景），由页面更新监听调用
+     */
+    public void refreshStripes() {
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_POSITION);
     }
 
     public void setCurrentPlayingSongId(long songId) {
         if (this.currentPlayingSongId != songId) {
             long oldId = this.currentPlayingSongId;
             this.currentPlayingSongId = songId;
-            
-            // 刷新受影响的项
-            if (songs != null) {
-                for (int i = 0; i < songs.size(); i++) {
-                    if (songs.get(i).getId() == oldId || songs.get(i).getId() == songId) {
-                        notifyItemChanged(i);
-                    }
+
+            // 刷新受影响的项：旧歌曲使用绑定时记录的位置，新歌曲只在已加载的页面中查找
+            int oldPosition = currentPlayingPosition;
+            if (oldPosition >= 0 && oldPosition < getItemCount()) {
+                Song oldSong = peek(oldPosition);
+                if (oldSong != null && oldSong.getId() == oldId) {
+                    notifyItemChanged(oldPosition, PAYLOAD_NOW_PLAYING);
                 }
             }
+            currentPlayingPosition = findLoadedPosition(songId);
+            if (currentPlayingPosition >= 0) {
+                notifyItemChanged(currentPlayingPosition, PAYLOAD_NOW_PLAYING);
+            }
         }
     }
 
-    /**
-     * 按路径和歌曲标题排序
-     * 先按路径（文件夹）排序，保证同一文件夹的歌曲在一起
-     * 然后在同一文件夹内按标题排序
-     * @param ascending true为正序，false为倒序
-     */
-    public void sortByTitle(boolean ascending) {
-        Song.sortSongs(songs, ascending);
-        notifyDataSetChanged();
-    }
-
     @NonNull
     @Override
     public SongViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -154,19 +168,30 @@ public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder
 
     @Override
     public void onBindViewHolder(@NonNull SongViewHolder holder, int position) {
-        Song song = songs.get(position);
+        Song song = getItem(position);
         holder.bind(song);
-        
-        // 设置斑马纹背景
-        int backgroundColor = (position % 2 == 0)
-            ? holder.itemView.getContext().getResources().getColor(R.color.list_item_background)
-            : holder.itemView.getContext().getResources().getColor(R.color.list_item_background_alt);
-        holder.itemView.setBackgroundColor(backgroundColor);
+        holder.bindBackground(position);
+        if (song != null && song.getId() == currentPlayingSongId) {
+            currentPlayingPosition = position;
+        }
     }
 
     @Override
-    public int getItemCount() {
-        return songs.size();
+    public void onBindViewHolder(@NonNull SongViewHolder holder, int position, @NonNull List<Object> payloads) {
+        Song song = peek(position);
+        if (payloads.isEmpty() || song == null) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        for (Object payload : payloads) {
+            if (PAYLOAD_SELECTION.equals(payload)) {
+                holder.bindSelection(song);
+            } else if (PAYLOAD_NOW_PLAYING.equals(payload)) {
+                holder.bindNowPlaying(song);
+            } else if (PAYLOAD_POSITION.equals(payload)) {
+                holder.bindBackground(position);
+            }
+        }
     }
 
     class SongViewHolder extends RecyclerView.ViewHolder {
@@ -185,18 +210,20 @@ public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder
             itemView.setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (position == RecyclerView.NO_POSITION) return;
-                Song song = songs.get(position);
+                Song song = peek(position);
+                if (song == null) return;
                 if (isSelectionMode) {
-                    toggleSelection(song.getFsId());
+                    toggleSelection(song.getFsId(), position);
                 } else if (listener != null) {
                     listener.onSongClick(song, position);
                 }
             });
-            
+
             itemView.setOnLongClickListener(v -> {
                 int position = getAdapterPosition();
-                if (position != RecyclerView.NO_POSITION && listener != null) {
-                    listener.onSongLongClick(songs.get(position), position);
+                Song song = position != RecyclerView.NO_POSITION ? peek(position) : null;
+                if (song != null && listener != null) {
+                    listener.onSongLongClick(song, position);
                     return true;
                 }
                 return false;
@@ -204,16 +231,29 @@ public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder
 
             songMore.setOnClickListener(v -> {
                 int position = getAdapterPosition();
-                if (listener != null && position != RecyclerView.NO_POSITION) {
-                    listener.onPlayFromHereClick(songs.get(position), position);
+                Song song = position != RecyclerView.NO_POSITION ? peek(position) : null;
+                if (listener != null && song != null) {
+                    listener.onPlayFromHereClick(song, position);
                 }
             });
         }
 
         public void bind(Song song) {
+            if (song == null) {
+                // 占位项：所在页面尚未加载
+                songTitle.setText("");
+                songPath.setText("");
+                checkboxSelect.setVisibility(View.GONE);
+                songMore.setVisibility(View.INVISIBLE);
+                return;
+            }
             songTitle.setText(song.getTitle());
             songPath.setText(song.getPath());
-            
+            bindSelection(song);
+            bindNowPlaying(song);
+        }
+
+        void bindSelection(Song song) {
             if (isSelectionMode) {
                 checkboxSelect.setVisibility(View.VISIBLE);
                 songMore.setVisibility(View.GONE);
@@ -222,7 +262,9 @@ public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder
                 checkboxSelect.setVisibility(View.GONE);
                 songMore.setVisibility(View.VISIBLE);
             }
-            
+        }
+
+        void bindNowPlaying(Song song) {
             // 显示播放状态
             if (song.getId() == currentPlayingSongId) {
                 songTitle.setTextColor(itemView.getContext().getColor(R.color.car_primary));
@@ -230,5 +272,13 @@ public class SongAdapter extends RecyclerView.Adapter<SongAdapter.SongViewHolder
                 songTitle.setTextColor(itemView.getContext().getColor(R.color.car_text_primary));
             }
         }
+
+        void bindBackground(int position) {
+            // 设置斑马纹背景
+            int backgroundColor = (position % 2 == 0)
+                ? itemView.getContext().getColor(R.color.list_item_background)
+                : itemView.getContext().getColor(R.color.list_item_background_alt);
+            itemView.setBackgroundColor(backgroundColor);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,28 @@
+package com.baidu.carplayer.adapter;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.baidu.carplayer.model.Song;
+
+import java.util.Objects;
+
+/**
+ * 歌曲列表差异比较（在后台线程执行）
+ * 同一播放列表中的同一文件视为同一项，标题、路径、歌手不变则内容相同
+ */
+class SongDiffCallback extends DiffUtil.ItemCallback<Song> {
+
+    @Override
+    public boolean areItemsTheSame(@NonNull Song oldItem, @NonNull Song newItem) {
+        return oldItem.getFsId() == newItem.getFsId()
+                && Objects.equals(oldItem.getPlaylistId(), newItem.getPlaylistId());
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull Song oldItem, @NonNull Song newItem) {
+        return Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                && Objects.equals(oldItem.getPath(), newItem.getPath())
+                && Objects.equals(oldItem.getArtist(), newItem.getArtist());
+    }
+}
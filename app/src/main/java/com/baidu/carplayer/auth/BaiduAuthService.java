@@ -4,16 +4,25 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.os.Handler;
 import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
 
 import com.baidu.carplayer.config.BaiduConfig;
 import com.baidu.carplayer.model.AuthInfo;
 import com.baidu.carplayer.model.DeviceCodeResponse;
 import com.baidu.carplayer.model.TokenResponse;
+import com.baidu.carplayer.network.AccessTokenProvider;
 import com.baidu.carplayer.network.ApiConstants;
 import com.baidu.carplayer.network.BaiduPanService;
 import com.baidu.carplayer.network.RetrofitClient;
 
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -22,8 +31,11 @@ import retrofit2.Response;
 /**
  * 百度网盘认证服务
  * 针对车载环境进行了优化
+ * - 后台定时在令牌过期前主动刷新
+ * - 作为 AccessTokenProvider 供网络层使用，并发刷新合并为一次请求
  */
-public class BaiduAuthService {
+public class BaiduAuthService implements AccessTokenProvider {
+    private static final String TAG = "BaiduAuthService";
     
     private static final String PREF_NAME = "baidu_auth";
     private static final String KEY_ACCESS_TOKEN = "access_token";
@@ -38,19 +50,50 @@ public class BaiduAuthService {
     private static final String KEY_IS_LOGGED_IN = "is_logged_in";
     private static final String KEY_DEVICE_ID = "device_id";
     
+    // 访问令牌有效期30天，提前1天主动刷新（车机可能长时间不启动，启动时进入该窗口即刷新）
+    private static final long PROACTIVE_REFRESH_AHEAD_MS = 24 * 60 * 60 * 1000L;
+    // 距过期不足该时间视为已过期，请求前需要先同步刷新
+    private static final long EXPIRY_MARGIN_MS = 5 * 60 * 1000L;
+    // 刷新失败后的重试间隔，期间并发请求不再重复刷新
+    private static final long REFRESH_RETRY_DELAY_MS = 5 * 60 * 1000L;
+    private static final long REFRESH_FAILURE_BACKOFF_MS = 10 * 1000L;
+    
     private static volatile BaiduAuthService instance;
     private final Context context;
     private final SharedPreferences prefs;
     private final BaiduPanService oauthService;
-    private AuthInfo authInfo;
+    // 认证信息快照：发布后不再修改，更新时复制一份修改后整体替换，读取方无需加锁
+    private volatile AuthInfo authInfo;
+    private final Object authInfoLock = new Object();
     private Handler handler;
     
+    // 令牌刷新（单飞）
+    private final Object refreshLock = new Object();
+    private final ScheduledExecutorService refreshScheduler;
+    private ScheduledFuture<?> scheduledRefresh;
+    private long lastRefreshFailureAt = 0;
+    private String lastRefreshError;
+    
+    // 统计信息
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong refreshFailureCount = new AtomicLong();
+    private final AtomicLong proactiveRefreshCount = new AtomicLong();
+    private final AtomicLong dedupedWaiterCount = new AtomicLong();
+    private final AtomicLong tokenExpiredFailureCount = new AtomicLong();
+    
     public BaiduAuthService(Context context) {
         this.context = context.getApplicationContext();
         this.prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
         this.oauthService = RetrofitClient.getOAuthInstance().create(BaiduPanService.class);
         this.handler = new Handler(Looper.getMainLooper());
         this.authInfo = loadAuthInfo();
+        this.refreshScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        RetrofitClient.setAccessTokenProvider(this);
+        scheduleProactiveRefresh();
     }
     
     public static BaiduAuthService getInstance(Context context) {
@@ -82,10 +125,33 @@ public class BaiduAuthService {
         return info;
     }
     
+    /**
+     * 用令牌响应生成新的认证信息快照，发布并保存
+     * @param includeSession 是否同时更新会话信息（设备码授权时返回）
+     * @return 新的快照
+     */
+    private AuthInfo applyTokenResponse(TokenResponse tokenResponse, boolean includeSession) {
+        synchronized (authInfoLock) {
+            AuthInfo updated = new AuthInfo(authInfo);
+            updated.setAccessToken(tokenResponse.getAccessToken());
+            updated.setRefreshToken(tokenResponse.getRefreshToken());
+            updated.setExpiresAt(System.currentTimeMillis() + tokenResponse.getExpiresIn() * 1000);
+            updated.setScope(tokenResponse.getScope());
+            if (includeSession) {
+                updated.setSessionKey(tokenResponse.getSessionKey());
+                updated.setSessionSecret(tokenResponse.getSessionSecret());
+            }
+            updated.setLoggedIn(true);
+            authInfo = updated;
+            saveAuthInfo(updated);
+            return updated;
+        }
+    }
+    
     /**
      * 保存认证信息到SharedPreferences
      */
-    private void saveAuthInfo() {
+    private void saveAuthInfo(AuthInfo authInfo) {
         SharedPreferences.Editor editor = prefs.edit();
         editor.putString(KEY_ACCESS_TOKEN, authInfo.getAccessToken());
         editor.putString(KEY_REFRESH_TOKEN, authInfo.getRefreshToken());
@@ -116,6 +182,7 @@ public class BaiduAuthService {
      * 检查是否已认证
      */
     public boolean isAuthenticated() {
+        AuthInfo authInfo = this.authInfo;
         if (!authInfo.isLoggedIn()) {
             return false;
         }
@@ -134,13 +201,172 @@ public class BaiduAuthService {
     
     /**
      * 获取访问令牌
+     * 令牌已过期时会在后台立即发起刷新，本次仍返回当前令牌（网络层会在请求时替换）
      */
+    @Override
     public String getAccessToken() {
+        AuthInfo authInfo = this.authInfo;
+        if (isExpired(authInfo) && hasRefreshToken(authInfo)) {
+            scheduleRefresh(0);
+        }
         return authInfo.getAccessToken();
     }
     
+    @Override
+    public boolean isAccessTokenExpired() {
+        return isExpired(authInfo);
+    }
+    
+    private static boolean isExpired(AuthInfo authInfo) {
+        return System.currentTimeMillis() >= authInfo.getExpiresAt() - EXPIRY_MARGIN_MS;
+    }
+    
+    private boolean hasRefreshToken() {
+        return hasRefreshToken(authInfo);
+    }
+    
+    private static boolean hasRefreshToken(AuthInfo authInfo) {
+        return authInfo.getRefreshToken() != null && !authInfo.getRefreshToken().isEmpty();
+    }
+    
+    /**
+     * 根据令牌过期时间安排下一次主动刷新
+     */
+    private void scheduleProactiveRefresh() {
+        AuthInfo authInfo = this.authInfo;
+        if (!authInfo.isLoggedIn() || !hasRefreshToken(authInfo)) {
+            return;
+        }
+        long delay = authInfo.getExpiresAt() - PROACTIVE_REFRESH_AHEAD_MS - System.currentTimeMillis();
+        scheduleRefresh(Math.max(0, delay));
+    }
+    
+    private synchronized void scheduleRefresh(long delayMs) {
+        if (scheduledRefresh != null && !scheduledRefresh.isDone()) {
+            // 已安排的刷新更早时保留
+            if (scheduledRefresh.getDelay(TimeUnit.MILLISECONDS) <= delayMs) {
+                return;
+            }
+            scheduledRefresh.cancel(false);
+        }
+        Log.d(TAG, "安排令牌刷新: " + delayMs + "ms 后");
+        ScheduledFuture<?>[] self = new ScheduledFuture<?>[1];
+        self[0] = refreshScheduler.schedule(() -> {
+            // 开始执行时清除记录，执行中安排的下一次刷新（成功后的主动刷新或失败重试）不会被当作已安排而跳过
+            // 安排时持有同一把锁，任务即使立即执行也能看到self[0]
+            synchronized (this) {
+                if (scheduledRefresh == self[0]) {
+                    scheduledRefresh = null;
+                }
+            }
+            proactiveRefreshCount.incrementAndGet();
+            if (refreshAccessTokenBlocking(authInfo.getAccessToken()) == null) {
+                // 刷新失败，稍后重试
+                scheduleRefresh(REFRESH_RETRY_DELAY_MS);
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+        scheduledRefresh = self[0];
+    }
+    
+    private synchronized void cancelScheduledRefresh() {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+            scheduledRefresh = null;
+        }
+    }
+    
+    /**
+     * 同步刷新访问令牌，并发调用合并为一次请求
+     * 等待期间其他线程已刷新成功（令牌与staleToken不同）时直接返回新令牌
+     */
+    @Override
+    @Nullable
+    public String refreshAccessTokenBlocking(String staleToken) {
+        synchronized (refreshLock) {
+            AuthInfo authInfo = this.authInfo;
+            String current = authInfo.getAccessToken();
+            if (current != null && !current.isEmpty() && !current.equals(staleToken) && !isExpired(authInfo)) {
+                dedupedWaiterCount.incrementAndGet();
+                return current;
+            }
+            // 刚刚刷新失败过，避免等待中的请求逐个重复刷新
+            if (System.currentTimeMillis() - lastRefreshFailureAt < REFRESH_FAILURE_BACKOFF_MS) {
+                dedupedWaiterCount.incrementAndGet();
+                return null;
+            }
+            if (!hasRefreshToken(authInfo)) {
+                lastRefreshError = "无刷新令牌";
+                return null;
+            }
+            
+            try {
+                Response<TokenResponse> response = oauthService.refreshToken(
+                        "refresh_token",
+                        authInfo.getRefreshToken(),
+                        BaiduConfig.APP_KEY,
+                        BaiduConfig.SECRET_KEY
+                ).execute();
+                TokenResponse tokenResponse = response.body();
+                if (response.isSuccessful() && tokenResponse != null
+                        && tokenResponse.getAccessToken() != null && !tokenResponse.getAccessToken().isEmpty()) {
+                    AuthInfo updated = applyTokenResponse(tokenResponse, false);
+                    refreshCount.incrementAndGet();
+                    lastRefreshFailureAt = 0;
+                    lastRefreshError = null;
+                    Log.d(TAG, "令牌刷新成功, " + getStatsSummary());
+                    scheduleProactiveRefresh();
+                    return updated.getAccessToken();
+                }
+                lastRefreshError = tokenResponse != null && tokenResponse.getErrorDescription() != null
+                        ? tokenResponse.getErrorDescription() : "刷新令牌失败";
+            } catch (Exception e) {
+                lastRefreshError = e.getMessage();
+            }
+            refreshFailureCount.incrementAndGet();
+            lastRefreshFailureAt = System.currentTimeMillis();
+            Log.e(TAG, "令牌刷新失败: " + lastRefreshError + ", " + getStatsSummary());
+            return null;
+        }
+    }
+    
+    @Override
+    public void recordTokenExpiredFailure() {
+        tokenExpiredFailureCount.incrementAndGet();
+    }
+    
+    public long getRefreshCount() {
+        return refreshCount.get();
+    }
+    
+    public long getRefreshFailureCount() {
+        return refreshFailureCount.get();
+    }
+    
+    public long getProactiveRefreshCount() {
+        return proactiveRefreshCount.get();
+    }
+    
+    public long getDedupedWaiterCount() {
+        return dedupedWaiterCount.get();
+    }
+    
+    public long getTokenExpiredFailureCount() {
+        return tokenExpiredFailureCount.get();
+    }
+    
+    /**
+     * 获取令牌刷新统计摘要（用于日志）
+     */
+    public String getStatsSummary() {
+        return "refreshes=" + refreshCount.get()
+                + ", failures=" + refreshFailureCount.get()
+                + ", proactive=" + proactiveRefreshCount.get()
+                + ", deduped=" + dedupedWaiterCount.get()
+                + ", expiredResponses=" + tokenExpiredFailureCount.get();
+    }
+    
     /**
-     * 获取认证信息
+     * 获取认证信息（当前快照，不应修改）
      */
     public AuthInfo getAuthInfo() {
         return authInfo;
@@ -206,14 +432,8 @@ public class BaiduAuthService {
                     
                     // 授权成功
                     if (tokenResponse.getAccessToken() != null && !tokenResponse.getAccessToken().isEmpty()) {
-                        authInfo.setAccessToken(tokenResponse.getAccessToken());
-                        authInfo.setRefreshToken(tokenResponse.getRefreshToken());
-                        authInfo.setExpiresAt(System.currentTimeMillis() + tokenResponse.getExpiresIn() * 1000);
-                        authInfo.setScope(tokenResponse.getScope());
-                        authInfo.setSessionKey(tokenResponse.getSessionKey());
-                        authInfo.setSessionSecret(tokenResponse.getSessionSecret());
-                        authInfo.setLoggedIn(true);
-                        saveAuthInfo();
+                        AuthInfo updated = applyTokenResponse(tokenResponse, true);
+                        scheduleProactiveRefresh();
                         callback.onSuccess(true);
                     } else {
                         // 理论上成功响应不应该包含错误，但为了健壮性保留处理
@@ -265,47 +485,24 @@ public class BaiduAuthService {
     
     /**
      * 刷新token
+     * 与网络层共用单飞刷新，在刷新线程中执行，结果回调到主线程
      */
     public void refreshToken(AuthCallback<Boolean> callback) {
-        if (authInfo.getRefreshToken() == null || authInfo.getRefreshToken().isEmpty()) {
+        if (!hasRefreshToken()) {
             callback.onError("无刷新令牌");
             return;
         }
         
-        Call<TokenResponse> call = oauthService.refreshToken(
-                "refresh_token",
-                authInfo.getRefreshToken(),
-                BaiduConfig.APP_KEY,
-                BaiduConfig.SECRET_KEY
-        );
-        
-        call.enqueue(new Callback<TokenResponse>() {
-            @Override
-            public void onResponse(Call<TokenResponse> call, Response<TokenResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    TokenResponse tokenResponse = response.body();
-                    
-                    if (tokenResponse.getAccessToken() != null && !tokenResponse.getAccessToken().isEmpty()) {
-                        authInfo.setAccessToken(tokenResponse.getAccessToken());
-                        authInfo.setRefreshToken(tokenResponse.getRefreshToken());
-                        authInfo.setExpiresAt(System.currentTimeMillis() + tokenResponse.getExpiresIn() * 1000);
-                        authInfo.setScope(tokenResponse.getScope());
-                        authInfo.setLoggedIn(true);
-                        saveAuthInfo();
-                        callback.onSuccess(true);
-                    } else {
-                        callback.onError(tokenResponse.getErrorDescription() != null ? 
-                                tokenResponse.getErrorDescription() : "刷新令牌失败");
-                    }
+        String staleToken = authInfo.getAccessToken();
+        refreshScheduler.execute(() -> {
+            String token = refreshAccessTokenBlocking(staleToken);
+            handler.post(() -> {
+                if (token != null) {
+                    callback.onSuccess(true);
                 } else {
-                    callback.onError("刷新令牌失败");
+                    callback.onError(lastRefreshError != null ? lastRefreshError : "刷新令牌失败");
                 }
-            }
-            
-            @Override
-            public void onFailure(Call<TokenResponse> call, Throwable t) {
-                callback.onError(t.getMessage());
-            }
+            });
         });
     }
     
@@ -313,8 +510,11 @@ public class BaiduAuthService {
      * 退出登录
      */
     public void logout() {
-        authInfo = new AuthInfo();
-        saveAuthInfo();
+        cancelScheduledRefresh();
+        synchronized (authInfoLock) {
+            authInfo = new AuthInfo();
+            saveAuthInfo(authInfo);
+        }
     }
     
     /**
@@ -383,15 +583,9 @@ public class BaiduAuthService {
                     
                     // 授权成功
                     if (tokenResponse.getAccessToken() != null && !tokenResponse.getAccessToken().isEmpty()) {
-                        authInfo.setAccessToken(tokenResponse.getAccessToken());
-                        authInfo.setRefreshToken(tokenResponse.getRefreshToken());
-                        authInfo.setExpiresAt(System.currentTimeMillis() + tokenResponse.getExpiresIn() * 1000);
-                        authInfo.setScope(tokenResponse.getScope());
-                        authInfo.setSessionKey(tokenResponse.getSessionKey());
-                        authInfo.setSessionSecret(tokenResponse.getSessionSecret());
-                        authInfo.setLoggedIn(true);
-                        saveAuthInfo();
-                        callback.onSuccess(authInfo);
+                        AuthInfo updated = applyTokenResponse(tokenResponse, true);
+                        scheduleProactiveRefresh();
+                        callback.onSuccess(updated);
                     } else {
                         handleAuthError(tokenResponse.getError(), tokenResponse.getErrorDescription(), callback);
                     }
@@ -1,16 +1,117 @@
 package com.baidu.carplayer.database;
 
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
+import com.baidu.carplayer.model.CachedDirectory;
+import com.baidu.carplayer.model.CachedFileEntry;
+import com.baidu.carplayer.model.IndexedDirectory;
 import com.baidu.carplayer.model.Playlist;
+import com.baidu.carplayer.model.SidecarFile;
 import com.baidu.carplayer.model.Song;
+import com.baidu.carplayer.model.SongFts;
 
 /**
  * 应用数据库类
  */
-@Database(entities = {Playlist.class, Song.class}, version = 2, exportSchema = false)
+@Database(entities = {Playlist.class, Song.class, SongFts.class, SidecarFile.class, IndexedDirectory.class,
+        CachedDirectory.class, CachedFileEntry.class},
+        version = 6, exportSchema = false)
 public abstract class AppDatabase extends RoomDatabase {
     public abstract PlaylistDao playlistDao();
     public abstract SongDao songDao();
-}
\ No newline at end of file
+    public abstract SidecarDao sidecarDao();
+    public abstract DirectoryCacheDao directoryCacheDao();
+
+    /**
+     * 版本2 -> 3：新增歌曲全文检索表
+     * 为已有歌曲生成检索关键词后重建索引，再创建与Room生成的一致的同步触发器
+     */
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `songs` ADD COLUMN `searchKeywords` TEXT");
+            try (Cursor cursor = db.query("SELECT rowid, title, artist, album, path FROM songs")) {
+                Song song = new Song();
+                while (cursor.moveToNext()) {
+                    song.setTitle(cursor.getString(1));
+                    song.setArtist(cursor.getString(2));
+                    song.setAlbum(cursor.getString(3));
+                    song.setPath(cursor.getString(4));
+                    db.execSQL("UPDATE songs SET searchKeywords = ? WHERE rowid = ?",
+                            new Object[]{song.getSearchKeywords(), cursor.getLong(0)});
+                }
+            }
+
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `songs_fts` USING FTS4("
+                    + "`title` TEXT, `artist` TEXT, `album` TEXT, `path` TEXT, `searchKeywords` TEXT, content=`songs`)");
+            db.execSQL("INSERT INTO songs_fts(songs_fts) VALUES('rebuild')");
+
+            String columns = "`title`, `artist`, `album`, `path`, `searchKeywords`";
+            String newValues = "NEW.`title`, NEW.`artist`, NEW.`album`, NEW.`path`, NEW.`searchKeywords`";
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_songs_fts_BEFORE_UPDATE BEFORE UPDATE ON `songs` "
+                    + "BEGIN DELETE FROM `songs_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_songs_fts_BEFORE_DELETE BEFORE DELETE ON `songs` "
+                    + "BEGIN DELETE FROM `songs_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_songs_fts_AFTER_UPDATE AFTER UPDATE ON `songs` "
+                    + "BEGIN INSERT INTO `songs_fts`(`docid`, " + columns + ") VALUES (NEW.`rowid`, " + newValues + "); END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_songs_fts_AFTER_INSERT AFTER INSERT ON `songs` "
+                    + "BEGIN INSERT INTO `songs_fts`(`docid`, " + columns + ") VALUES (NEW.`rowid`, " + newValues + "); END");
+        }
+    };
+
+    /**
+     * 版本3 -> 4：新增排序键列及索引，为已有歌曲生成排序键
+     */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `songs` ADD COLUMN `sortDirectory` TEXT");
+            db.execSQL("ALTER TABLE `songs` ADD COLUMN `sortTitle` TEXT");
+            try (Cursor cursor = db.query("SELECT rowid, title, path FROM songs")) {
+                Song song = new Song();
+                while (cursor.moveToNext()) {
+                    song.setTitle(cursor.getString(1));
+                    song.setPath(cursor.getString(2));
+                    db.execSQL("UPDATE songs SET sortDirectory = ?, sortTitle = ? WHERE rowid = ?",
+                            new Object[]{song.getSortDirectory(), song.getSortTitle(), cursor.getLong(0)});
+                }
+            }
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_songs_playlistId_sortDirectory_sortTitle` "
+                    + "ON `songs` (`playlistId`, `sortDirectory`, `sortTitle`)");
+        }
+    };
+
+    /**
+     * 版本4 -> 5：新增伴随文件索引表，下次扫描文件夹时填充
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `sidecar_files` (`fsId` INTEGER NOT NULL, `directory` TEXT NOT NULL, "
+                    + "`name` TEXT, `type` INTEGER NOT NULL, `size` INTEGER NOT NULL, PRIMARY KEY(`fsId`))");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_sidecar_files_directory` ON `sidecar_files` (`directory`)");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `indexed_directories` (`path` TEXT NOT NULL, "
+                    + "`indexedTime` INTEGER NOT NULL, PRIMARY KEY(`path`))");
+        }
+    };
+
+    /**
+     * 版本5 -> 6：新增目录列表缓存表
+     */
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `cached_directories` (`path` TEXT NOT NULL, "
+                    + "`listedTime` INTEGER NOT NULL, `itemCount` INTEGER NOT NULL, PRIMARY KEY(`path`))");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `cached_files` (`directory` TEXT NOT NULL, `position` INTEGER NOT NULL, "
+                    + "`fsId` INTEGER NOT NULL, `name` TEXT, `path` TEXT, `size` INTEGER NOT NULL, "
+                    + "`isDir` INTEGER NOT NULL, `md5` TEXT, PRIMARY KEY(`directory`, `position`))");
+        }
+    };
+}
@@ -0,0 +1,223 @@
+package com.baidu.carplayer.database;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 全局数据执行器 - 单例模式
+ * 所有数据库及相关IO任务统一在这里排队执行，代替各处临时创建的线程：
+ * - 写通道：单线程，保证写入串行，避免SQLite写锁竞争
+ * - 读通道：小型线程池，用于查询及歌词等网络读取
+ * - 网络通道：用于文件夹扫描、目录列表等耗时较长的网盘请求，不占用数据库读线程
+ * 各通道都统计队列深度和任务等待/执行耗时
+ */
+public class DataExecutor {
+    private static final String TAG = "DataExecutor";
+
+    public static final int READER_POOL_SIZE = 3;
+    public static final int NETWORK_POOL_SIZE = 3;
+    // 任务等待或执行超过该时间时输出警告日志
+    private static final long SLOW_TASK_THRESHOLD_MS = 500;
+
+    private static volatile DataExecutor instance;
+
+    private final Lane writer;
+    private final Lane reader;
+    private final Lane network;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private DataExecutor() {
+        writer = new Lane("data-writer", 1);
+        reader = new Lane("data-reader", READER_POOL_SIZE);
+        network = new Lane("data-network", NETWORK_POOL_SIZE);
+    }
+
+    public static DataExecutor getInstance() {
+        if (instance == null) {
+            synchronized (DataExecutor.class) {
+                if (instance == null) {
+                    instance = new DataExecutor();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 提交写任务（单线程串行执行）
+     */
+    public void executeWrite(Runnable task) {
+        writer.execute(task);
+    }
+
+    /**
+     * 提交读任务（读线程池并发执行）
+     */
+    public void executeRead(Runnable task) {
+        reader.execute(task);
+    }
+
+    /**
+     * 提交网络任务（扫描文件夹等长时间请求），数据库读写仍应提交到读/写通道
+     */
+    public void executeNetwork(Runnable task) {
+        network.execute(task);
+    }
+
+    /**
+     * 切回主线程执行
+     */
+    public void postToMain(Runnable task) {
+        mainHandler.post(task);
+    }
+
+    public Lane getWriterStats() {
+        return writer;
+    }
+
+    public Lane getReaderStats() {
+        return reader;
+    }
+
+    public Lane getNetworkStats() {
+        return network;
+    }
+
+    /**
+     * 获取统计摘要（用于日志）
+     */
+    public String getStatsSummary() {
+        return "writer[" + writer.getStatsSummary() + "], reader[" + reader.getStatsSummary()
+                + "], network[" + network.getStatsSummary() + "]";
+    }
+
+    /**
+     * 单个执行通道及其统计信息
+     */
+    public static class Lane {
+        private final String name;
+        private final ThreadPoolExecutor executor;
+
+        private final AtomicInteger queueDepth = new AtomicInteger();
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+        private final AtomicLong submittedCount = new AtomicLong();
+        private final AtomicLong completedCount = new AtomicLong();
+        private final AtomicLong failedCount = new AtomicLong();
+        private final AtomicLong totalWaitMs = new AtomicLong();
+        private final AtomicLong totalRunMs = new AtomicLong();
+        private final AtomicLong maxWaitMs = new AtomicLong();
+        private final AtomicLong maxRunMs = new AtomicLong();
+
+        Lane(String name, int threads) {
+            this.name = name;
+            AtomicInteger threadIndex = new AtomicInteger();
+            ThreadFactory factory = runnable -> {
+                Thread thread = new Thread(runnable, name + "-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), factory);
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+
+        void execute(Runnable task) {
+            long enqueuedAt = SystemClock.elapsedRealtime();
+            submittedCount.incrementAndGet();
+            updateMax(maxQueueDepth, queueDepth.incrementAndGet());
+            executor.execute(() -> {
+                queueDepth.decrementAndGet();
+                long startedAt = SystemClock.elapsedRealtime();
+                long waitMs = startedAt - enqueuedAt;
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    failedCount.incrementAndGet();
+                    Log.e(TAG, name + " 任务执行异常", e);
+                } finally {
+                    long runMs = SystemClock.elapsedRealtime() - startedAt;
+                    completedCount.incrementAndGet();
+                    totalWaitMs.addAndGet(waitMs);
+                    totalRunMs.addAndGet(runMs);
+                    updateMax(maxWaitMs, waitMs);
+                    updateMax(maxRunMs, runMs);
+                    if (waitMs > SLOW_TASK_THRESHOLD_MS || runMs > SLOW_TASK_THRESHOLD_MS) {
+                        Log.w(TAG, name + " 慢任务: 等待 " + waitMs + "ms, 执行 " + runMs + "ms, " + getStatsSummary());
+                    }
+                }
+            });
+        }
+
+        private static void updateMax(AtomicInteger max, int value) {
+            int current;
+            while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+                // 重试直到更新成功
+            }
+        }
+
+        private static void updateMax(AtomicLong max, long value) {
+            long current;
+            while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+                // 重试直到更新成功
+            }
+        }
+
+        public int getQueueDepth() {
+            return queueDepth.get();
+        }
+
+        public int getMaxQueueDepth() {
+            return maxQueueDepth.get();
+        }
+
+        public long getSubmittedCount() {
+            return submittedCount.get();
+        }
+
+        public long getCompletedCount() {
+            return completedCount.get();
+        }
+
+        public long getFailedCount() {
+            return failedCount.get();
+        }
+
+        public long getAverageWaitMs() {
+            long completed = completedCount.get();
+            return completed == 0 ? 0 : totalWaitMs.get() / completed;
+        }
+
+        public long getAverageRunMs() {
+            long completed = completedCount.get();
+            return completed == 0 ? 0 : totalRunMs.get() / completed;
+        }
+
+        public long getMaxWaitMs() {
+            return maxWaitMs.get();
+        }
+
+        public long getMaxRunMs() {
+            return maxRunMs.get();
+        }
+
+        public String getStatsSummary() {
+            return "queue=" + queueDepth.get()
+                    + ", maxQueue=" + maxQueueDepth.get()
+                    + ", done=" + completedCount.get() + "/" + submittedCount.get()
+                    + ", failed=" + failedCount.get()
+                    + ", avgWait=" + getAverageWaitMs() + "ms"
+                    + ", maxWait=" + maxWaitMs.get() + "ms"
+                    + ", avgRun=" + getAverageRunMs() + "ms"
+                    + ", maxRun=" + maxRunMs.get() + "ms";
+        }
+    }
+}
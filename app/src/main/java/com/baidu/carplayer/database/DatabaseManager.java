@@ -23,6 +23,8 @@ public class DatabaseManager {
                 AppDatabase.class,
                 DATABASE_NAME
         )
+        .addMigrations(AppDatabase.MIGRATION_2_3, AppDatabase.MIGRATION_3_4, AppDatabase.MIGRATION_4_5,
+                AppDatabase.MIGRATION_5_6)
         .fallbackToDestructiveMigration()
         .build();
     }
@@ -0,0 +1,41 @@
+package com.baidu.carplayer.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.baidu.carplayer.model.CachedDirectory;
+import com.baidu.carplayer.model.CachedFileEntry;
+
+import java.util.List;
+
+/**
+ * 目录列表缓存DAO接口
+ */
+@Dao
+public interface DirectoryCacheDao {
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertDirectories(List<CachedDirectory> directories);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertFiles(List<CachedFileEntry> files);
+
+    @Query("DELETE FROM cached_files WHERE directory IN (:directories)")
+    void deleteFilesInDirectories(List<String> directories);
+
+    @Query("DELETE FROM cached_directories WHERE path IN (:paths)")
+    void deleteDirectories(List<String> paths);
+
+    @Query("SELECT * FROM cached_directories WHERE path = :path")
+    CachedDirectory getDirectory(String path);
+
+    @Query("SELECT * FROM cached_files WHERE directory = :directory ORDER BY position")
+    List<CachedFileEntry> getFiles(String directory);
+
+    /**
+     * 超出保留数量的最久未列出的目录
+     */
+    @Query("SELECT path FROM cached_directories ORDER BY listedTime DESC LIMIT -1 OFFSET :keep")
+    List<String> getExpiredDirectories(int keep);
+}
@@ -16,10 +16,19 @@ import java.util.List;
  */
 @Dao
 public interface PlaylistDao {
-    @Query("SELECT * FROM playlists ORDER BY createdTime DESC")
+    // 查询播放列表时用一次聚合统计实际歌曲数量（覆盖 songCount 列），不需要逐个加载歌曲
+    String SELECT_WITH_SONG_COUNT = "SELECT playlists.id, playlists.name, playlists.createdTime, "
+            + "COUNT(songs.fsId) AS songCount FROM playlists "
+            + "LEFT JOIN songs ON songs.playlistId = playlists.id "
+            + "GROUP BY playlists.id ORDER BY playlists.createdTime DESC";
+
+    /**
+     * 观察所有播放列表（含歌曲数量），播放列表或歌曲变化时自动更新
+     */
+    @Query(SELECT_WITH_SONG_COUNT)
     LiveData<List<Playlist>> getAllPlaylists();
 
-    @Query("SELECT * FROM playlists ORDER BY createdTime DESC")
+    @Query(SELECT_WITH_SONG_COUNT)
     List<Playlist> getAllPlaylistsSync();
 
     @Query("SELECT * FROM playlists WHERE id = :id")
@@ -0,0 +1,35 @@
+package com.baidu.carplayer.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.baidu.carplayer.model.IndexedDirectory;
+import com.baidu.carplayer.model.SidecarFile;
+
+import java.util.List;
+
+/**
+ * 伴随文件索引DAO接口
+ */
+@Dao
+public interface SidecarDao {
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertSidecars(List<SidecarFile> sidecars);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertDirectories(List<IndexedDirectory> directories);
+
+    @Query("DELETE FROM sidecar_files WHERE directory IN (:directories)")
+    void deleteSidecarsInDirectories(List<String> directories);
+
+    @Query("SELECT * FROM sidecar_files WHERE directory = :directory AND name = :name COLLATE NOCASE LIMIT 1")
+    SidecarFile findByName(String directory, String name);
+
+    @Query("SELECT * FROM sidecar_files WHERE directory = :directory AND type = :type")
+    List<SidecarFile> findByType(String directory, int type);
+
+    @Query("SELECT * FROM indexed_directories WHERE path = :path")
+    IndexedDirectory getIndexedDirectory(String path);
+}
@@ -1,6 +1,7 @@
 package com.baidu.carplayer.database;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagingSource;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
@@ -17,12 +18,38 @@ import java.util.List;
  */
 @Dao
 public interface SongDao {
+    // 歌曲列表排序：先按所在目录，再按标题（自然排序），使用预先计算的排序键，
+    // 由 (playlistId, sortDirectory, sortTitle) 索引直接按顺序读取，正序倒序均无需额外排序
+    String ORDER_BY_DIRECTORY_TITLE_ASC = " ORDER BY sortDirectory ASC, sortTitle ASC";
+    String ORDER_BY_DIRECTORY_TITLE_DESC = " ORDER BY sortDirectory DESC, sortTitle DESC";
+
     @Query("SELECT * FROM songs WHERE playlistId = :playlistId ORDER BY addedTime ASC")
     LiveData<List<Song>> getSongsByPlaylist(String playlistId);
 
     @Query("SELECT * FROM songs WHERE playlistId = :playlistId ORDER BY addedTime ASC")
     List<Song> getSongsByPlaylistSync(String playlistId);
 
+    /**
+     * 分页读取播放列表（按目录、标题排序），数据变化时Room自动使分页失效并重新加载
+     */
+    @Query("SELECT * FROM songs WHERE playlistId = :playlistId" + ORDER_BY_DIRECTORY_TITLE_ASC)
+    PagingSource<Integer, Song> getSongsPagedAsc(String playlistId);
+
+    @Query("SELECT * FROM songs WHERE playlistId = :playlistId" + ORDER_BY_DIRECTORY_TITLE_DESC)
+    PagingSource<Integer, Song> getSongsPagedDesc(String playlistId);
+
+    /**
+     * 读取整个播放列表（与分页相同的排序），用于设置播放队列
+     */
+    @Query("SELECT * FROM songs WHERE playlistId = :playlistId" + ORDER_BY_DIRECTORY_TITLE_ASC)
+    List<Song> getSongsSortedAsc(String playlistId);
+
+    @Query("SELECT * FROM songs WHERE playlistId = :playlistId" + ORDER_BY_DIRECTORY_TITLE_DESC)
+    List<Song> getSongsSortedDesc(String playlistId);
+
+    @Query("SELECT fsId FROM songs WHERE playlistId = :playlistId")
+    List<Long> getSongIds(String playlistId);
+
     @Query("SELECT * FROM songs WHERE fsId = :fsId AND playlistId = :playlistId")
     Song getSong(long fsId, String playlistId);
 
@@ -35,9 +62,19 @@ public interface SongDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insertSongs(List<Song> songs);
 
+    /**
+     * 批量插入，已存在的歌曲（相同fsId和playlistId）会被忽略
+     * @return 每首歌曲的rowId，被忽略的为-1
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    List<Long> insertSongsIfAbsent(List<Song> songs);
+
     @Update
     void updateSong(Song song);
 
+    @Update
+    void updateSongs(List<Song> songs);
+
     @Delete
     void deleteSong(Song song);
     
@@ -50,6 +87,21 @@ public interface SongDao {
     @Query("DELETE FROM songs WHERE playlistId = :playlistId")
     void deleteSongsByPlaylist(String playlistId);
     
+    @Query("DELETE FROM songs WHERE playlistId = :playlistId AND fsId IN (:fsIds)")
+    void deleteSongs(String playlistId, List<Long> fsIds);
+    
     @Query("SELECT COUNT(*) FROM songs WHERE playlistId = :playlistId")
     int getSongCount(String playlistId);
+    
+    /**
+     * 全文检索所有播放列表中的歌曲（同一首歌在多个播放列表中只返回一次）
+     * 标题以输入开头的排在前面，其次标题越短越靠前
+     * @param matchQuery FTS的MATCH表达式，由 SearchTokenizer.buildMatchQuery 生成
+     * @param titlePrefix 用于排序的标题前缀（LIKE模式）
+     */
+    @Query("SELECT songs.* FROM songs JOIN songs_fts ON songs.rowid = songs_fts.rowid "
+            + "WHERE songs_fts MATCH :matchQuery GROUP BY songs.fsId "
+            + "ORDER BY CASE WHEN songs.title LIKE :titlePrefix THEN 0 ELSE 1 END, length(songs.title), songs.title "
+            + "LIMIT :limit")
+    List<Song> searchSongs(String matchQuery, String titlePrefix, int limit);
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.baidu.carplayer.database;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.baidu.carplayer.model.Song;
+import com.baidu.carplayer.utils.SearchTokenizer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 歌曲搜索 - 基于 songs_fts 全文索引，带输入防抖
+ * 连续输入时只执行最后一次查询，查询在读线程执行，过期的结果直接丢弃
+ * 需在主线程调用，结果在主线程回调
+ */
+public class SongSearch {
+    private static final String TAG = "SongSearch";
+
+    public static final long DEBOUNCE_MS = 250;
+    public static final int MAX_RESULTS = 200;
+
+    /**
+     * 搜索结果回调（主线程）
+     */
+    public interface OnSearchResultListener {
+        void onSearchResult(String query, List<Song> songs);
+    }
+
+    private final SongDao songDao;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private Runnable pendingSearch;
+    // 每次发起查询递增，回调时不是最新一次的结果被丢弃
+    private int generation = 0;
+
+    private long queryCount = 0;
+    private long totalQueryMs = 0;
+    private long maxQueryMs = 0;
+
+    public SongSearch(Context context) {
+        this.songDao = DatabaseManager.getInstance(context).getDatabase().songDao();
+    }
+
+    /**
+     * 防抖搜索：DEBOUNCE_MS 内没有新的输入才执行查询
+     */
+    public void search(String query, OnSearchResultListener listener) {
+        cancel();
+        pendingSearch = () -> {
+            pendingSearch = null;
+            runQuery(query, listener);
+        };
+        mainHandler.postDelayed(pendingSearch, DEBOUNCE_MS);
+    }
+
+    /**
+     * 取消尚未执行的搜索，并丢弃正在执行的查询结果
+     */
+    public void cancel() {
+        if (pendingSearch != null) {
+            mainHandler.removeCallbacks(pendingSearch);
+            pendingSearch = null;
+        }
+        generation++;
+    }
+
+    private void runQuery(String query, OnSearchResultListener listener) {
+        int queryGeneration = ++generation;
+        String matchQuery = SearchTokenizer.buildMatchQuery(query);
+        if (matchQuery == null) {
+            listener.onSearchResult(query, new ArrayList<>());
+            return;
+        }
+        String titlePrefix = query.trim().replace("%", "").replace("_", "") + "%";
+
+        DataExecutor.getInstance().executeRead(() -> {
+            long startTime = SystemClock.elapsedRealtime();
+            List<Song> songs;
+            try {
+                songs = songDao.searchSongs(matchQuery, titlePrefix, MAX_RESULTS);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "搜索失败: " + matchQuery, e);
+                songs = new ArrayList<>();
+            }
+            long elapsed = SystemClock.elapsedRealtime() - startTime;
+            List<Song> result = songs;
+            DataExecutor.getInstance().postToMain(() -> {
+                queryCount++;
+                totalQueryMs += elapsed;
+                maxQueryMs = Math.max(maxQueryMs, elapsed);
+                Log.d(TAG, "搜索 \"" + query + "\": " + result.size() + " 条, 耗时 " + elapsed + "ms");
+                if (queryGeneration == generation) {
+                    listener.onSearchResult(query, result);
+                }
+            });
+        });
+    }
+
+    public String getStatsSummary() {
+        return "queries=" + queryCount
+                + ", avg=" + (queryCount == 0 ? 0 : totalQueryMs / queryCount) + "ms"
+                + ", max=" + maxQueryMs + "ms";
+    }
+}
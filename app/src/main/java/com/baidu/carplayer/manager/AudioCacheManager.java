@@ -0,0 +1,215 @@
+package com.baidu.carplayer.manager;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.OptIn;
+import androidx.media3.common.C;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.database.StandaloneDatabaseProvider;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DefaultDataSource;
+import androidx.media3.datasource.cache.CacheDataSource;
+import androidx.media3.datasource.cache.ContentMetadata;
+import androidx.media3.datasource.cache.LeastRecentlyUsedCacheEvictor;
+import androidx.media3.datasource.cache.SimpleCache;
+import androidx.media3.datasource.okhttp.OkHttpDataSource;
+
+import com.baidu.carplayer.network.RetrofitClient;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 音频磁盘缓存管理器 - 单例模式
+ * 使用Media3 SimpleCache + LRU淘汰策略缓存百度网盘音频流
+ * 缓存键使用歌曲的fsId，而不是会过期的dlink地址，这样同一首歌重复播放或回拖时可直接读本地
+ */
+@OptIn(markerClass = UnstableApi.class)
+public class AudioCacheManager {
+    private static final String TAG = "AudioCacheManager";
+    private static final String CACHE_DIR_NAME = "audio_cache";
+    private static final String PREFS_NAME = "AudioCachePrefs";
+    private static final String KEY_MAX_CACHE_SIZE = "max_cache_size";
+
+    // 默认缓存上限 512MB，车机存储有限，可通过 setMaxCacheSize 调整（下次启动生效）
+    public static final long DEFAULT_MAX_CACHE_SIZE = 512L * 1024 * 1024;
+    public static final String EVICTION_POLICY = "LRU";
+
+    private static volatile AudioCacheManager instance;
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final long maxCacheSize;
+    private final SimpleCache cache;
+
+    // 统计信息
+    private final AtomicLong trackHits = new AtomicLong();
+    private final AtomicLong trackMisses = new AtomicLong();
+    private final AtomicLong cachedBytesRead = new AtomicLong();
+    private final AtomicLong cacheIgnoredCount = new AtomicLong();
+
+    private AudioCacheManager(Context context) {
+        this.context = context.getApplicationContext();
+        this.prefs = this.context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.maxCacheSize = prefs.getLong(KEY_MAX_CACHE_SIZE, DEFAULT_MAX_CACHE_SIZE);
+
+        File cacheDir = new File(this.context.getCacheDir(), CACHE_DIR_NAME);
+        this.cache = new SimpleCache(
+                cacheDir,
+                new LeastRecentlyUsedCacheEvictor(maxCacheSize),
+                new StandaloneDatabaseProvider(this.context)
+        );
+        Log.d(TAG, "音频缓存初始化完成: dir=" + cacheDir + ", maxSize=" + maxCacheSize
+                + ", policy=" + EVICTION_POLICY);
+    }
+
+    public static AudioCacheManager getInstance(Context context) {
+        if (instance == null) {
+            synchronized (AudioCacheManager.class) {
+                if (instance == null) {
+                    instance = new AudioCacheManager(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 根据歌曲fsId生成缓存键
+     */
+    public static String cacheKeyFor(long fsId) {
+        return "fsid_" + fsId;
+    }
+
+    /**
+     * 创建带缓存的数据源工厂，供ExoPlayer使用
+     * 上游网络请求使用共享的OkHttpClient（与API请求共用连接池和DNS缓存），网络异常时跳过缓存直接读取
+     */
+    public DataSource.Factory createDataSourceFactory() {
+        return new CacheDataSource.Factory()
+                .setCache(cache)
+                .setUpstreamDataSourceFactory(new DefaultDataSource.Factory(context,
+                        new OkHttpDataSource.Factory(RetrofitClient.getHttpClient())
+                                .setUserAgent(RetrofitClient.USER_AGENT)))
+                .setFlags(CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR)
+                .setEventListener(new CacheDataSource.EventListener() {
+                    @Override
+                    public void onCachedBytesRead(long cacheSizeBytes, long cachedBytesRead) {
+                        AudioCacheManager.this.cachedBytesRead.addAndGet(cachedBytesRead);
+                    }
+
+                    @Override
+                    public void onCacheIgnored(int reason) {
+                        cacheIgnoredCount.incrementAndGet();
+                        Log.w(TAG, "缓存被忽略, reason=" + reason);
+                    }
+                });
+    }
+
+    /**
+     * 判断歌曲是否已完整缓存
+     */
+    public boolean isFullyCached(long fsId) {
+        String key = cacheKeyFor(fsId);
+        long contentLength = ContentMetadata.getContentLength(cache.getContentMetadata(key));
+        return contentLength != C.LENGTH_UNSET && cache.isCached(key, 0, contentLength);
+    }
+
+    /**
+     * 记录一次曲目级别的命中/未命中（在开始播放时调用）
+     * @return 是否命中
+     */
+    public boolean recordTrackLookup(long fsId) {
+        boolean hit = isFullyCached(fsId);
+        if (hit) {
+            trackHits.incrementAndGet();
+        } else {
+            trackMisses.incrementAndGet();
+        }
+        Log.d(TAG, "缓存" + (hit ? "命中" : "未命中") + ": fsId=" + fsId + ", " + getStatsSummary());
+        return hit;
+    }
+
+    /**
+     * 删除指定歌曲的缓存
+     */
+    public void removeTrack(long fsId) {
+        try {
+            cache.removeResource(cacheKeyFor(fsId));
+        } catch (Exception e) {
+            Log.e(TAG, "删除缓存失败: fsId=" + fsId, e);
+        }
+    }
+
+    /**
+     * 清空全部缓存
+     */
+    public void clear() {
+        for (String key : cache.getKeys()) {
+            cache.removeResource(key);
+        }
+        Log.d(TAG, "音频缓存已清空");
+    }
+
+    /**
+     * 设置缓存上限（字节），下次启动生效
+     */
+    public void setMaxCacheSize(long bytes) {
+        prefs.edit().putLong(KEY_MAX_CACHE_SIZE, bytes).apply();
+    }
+
+    public long getMaxCacheSize() {
+        return maxCacheSize;
+    }
+
+    public long getUsedCacheSize() {
+        return cache.getCacheSpace();
+    }
+
+    public int getCachedTrackCount() {
+        return cache.getKeys().size();
+    }
+
+    public String getEvictionPolicy() {
+        return EVICTION_POLICY;
+    }
+
+    public long getTrackHits() {
+        return trackHits.get();
+    }
+
+    public long getTrackMisses() {
+        return trackMisses.get();
+    }
+
+    public long getCachedBytesRead() {
+        return cachedBytesRead.get();
+    }
+
+    public long getCacheIgnoredCount() {
+        return cacheIgnoredCount.get();
+    }
+
+    /**
+     * 曲目命中率（0~1）
+     */
+    public float getHitRate() {
+        long total = trackHits.get() + trackMisses.get();
+        return total == 0 ? 0f : (float) trackHits.get() / total;
+    }
+
+    /**
+     * 获取统计摘要（用于日志）
+     */
+    public String getStatsSummary() {
+        return "used=" + getUsedCacheSize() + "/" + maxCacheSize
+                + ", tracks=" + getCachedTrackCount()
+                + ", policy=" + EVICTION_POLICY
+                + ", hits=" + trackHits.get()
+                + ", misses=" + trackMisses.get()
+                + ", cachedBytesRead=" + cachedBytesRead.get()
+                + ", ignored=" + cacheIgnoredCount.get();
+    }
+}
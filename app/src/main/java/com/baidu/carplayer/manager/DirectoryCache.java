@@ -0,0 +1,404 @@
+package com.baidu.carplayer.manager;
+
+import android.content.Context;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.baidu.carplayer.database.AppDatabase;
+import com.baidu.carplayer.database.DataExecutor;
+import com.baidu.carplayer.database.DatabaseManager;
+import com.baidu.carplayer.model.CachedDirectory;
+import com.baidu.carplayer.model.CachedFileEntry;
+import com.baidu.carplayer.model.FileItem;
+import com.baidu.carplayer.network.BaiduPanService;
+import com.baidu.carplayer.network.FileListStreamParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.ResponseBody;
+import retrofit2.Response;
+
+/**
+ * 目录列表缓存 - 单例模式
+ * 按路径缓存网盘目录的完整列表（文件夹和音频文件）：
+ * - 内存：最近访问的少量目录（LRU），主线程可直接读取，返回上级目录时立即显示
+ * - 数据库：Room持久化，重启后仍可先显示缓存再后台重新验证，按列出时间淘汰最旧的目录
+ * - 获取：自动请求所有分页，完整列出后写入缓存并更新伴随文件索引
+ * - 预取：在低优先级线程中提前列出用户可能打开的子文件夹，新的预取请求使旧请求失效
+ * FolderScanner 设置缓存后，扫描时复用足够新的列表，并把扫描结果写回缓存
+ */
+public class DirectoryCache {
+    private static final String TAG = "DirectoryCache";
+
+    public static final int MEMORY_ENTRIES = 32;
+    public static final int MAX_STORED_DIRECTORIES = 1000;
+    public static final int PAGE_LIMIT = FolderScanner.PAGE_LIMIT;
+    // 浏览时缓存超过此时间才在后台重新验证
+    public static final long REVALIDATE_AFTER_MS = 30 * 1000;
+    // 缓存未超过此时间视为最新：预取时跳过，添加文件夹时扫描直接复用
+    public static final long FRESH_MS = 5 * 60 * 1000;
+    // 单条SQL中IN参数的最大数量（SQLite默认上限999）
+    private static final int SQL_BATCH_SIZE = 500;
+
+    // 预取线程池：单个低优先级线程，队列满时丢弃最旧的任务
+    private static final int PREFETCH_QUEUE_CAPACITY = 8;
+    private static final ThreadPoolExecutor PREFETCHER = createPrefetcher();
+
+    /**
+     * 一个目录的完整列表（不可修改）
+     */
+    public static class Listing {
+        private final String path;
+        private final List<FileItem> items;
+        private final long listedTime;
+
+        Listing(String path, List<FileItem> items, long listedTime) {
+            this.path = path;
+            this.items = Collections.unmodifiableList(items);
+            this.listedTime = listedTime;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public List<FileItem> getItems() {
+            return items;
+        }
+
+        public long getListedTime() {
+            return listedTime;
+        }
+
+        public long getAge() {
+            return System.currentTimeMillis() - listedTime;
+        }
+
+        /**
+         * 与另一份列表内容是否相同（比较fsId、名称和大小），相同时界面不需要刷新
+         */
+        public boolean hasSameItems(Listing other) {
+            if (other == null || other.items.size() != items.size()) {
+                return false;
+            }
+            for (int i = 0; i < items.size(); i++) {
+                FileItem a = items.get(i);
+                FileItem b = other.items.get(i);
+                if (a.getFsId() != b.getFsId() || a.getSize() != b.getSize()
+                        || a.isDirectory() != b.isDirectory() || !safeEquals(a.getName(), b.getName())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean safeEquals(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+
+    private static volatile DirectoryCache instance;
+
+    private final DatabaseManager databaseManager;
+    private final SidecarIndex sidecarIndex;
+    private final LruCache<String, Listing> memoryCache = new LruCache<>(MEMORY_ENTRIES);
+    // 预取代数：新的预取请求使之前排队的任务失效
+    private final AtomicInteger prefetchGeneration = new AtomicInteger();
+
+    // 统计信息
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong databaseHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong fetches = new AtomicLong();
+    private final AtomicLong pagesFetched = new AtomicLong();
+    private final AtomicLong prefetched = new AtomicLong();
+    private final AtomicLong unchangedRevalidations = new AtomicLong();
+
+    private DirectoryCache(Context context) {
+        this.databaseManager = DatabaseManager.getInstance(context);
+        this.sidecarIndex = SidecarIndex.getInstance(context);
+    }
+
+    public static DirectoryCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (DirectoryCache.class) {
+                if (instance == null) {
+                    instance = new DirectoryCache(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    private static ThreadPoolExecutor createPrefetcher() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(PREFETCH_QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "directory-prefetch");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardOldestPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 只查询内存缓存（可在主线程调用）
+     */
+    public Listing getFromMemory(String path) {
+        Listing listing = memoryCache.get(path);
+        if (listing != null) {
+            memoryHits.incrementAndGet();
+        }
+        return listing;
+    }
+
+    /**
+     * 查询内存和数据库缓存（需在后台线程调用），数据库命中后放入内存缓存
+     */
+    public Listing get(String path) {
+        Listing listing = memoryCache.get(path);
+        if (listing != null) {
+            memoryHits.incrementAndGet();
+            return listing;
+        }
+        listing = loadFromDatabase(path);
+        if (listing != null) {
+            memoryCache.put(path, listing);
+            databaseHits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return listing;
+    }
+
+    private Listing loadFromDatabase(String path) {
+        try {
+            AppDatabase db = databaseManager.getDatabase();
+            CachedDirectory directory = db.directoryCacheDao().getDirectory(path);
+            if (directory == null) {
+                return null;
+            }
+            List<CachedFileEntry> entries = db.directoryCacheDao().getFiles(path);
+            if (entries.size() != directory.getItemCount()) {
+                // 写入不完整，视为未缓存
+                return null;
+            }
+            List<FileItem> items = new ArrayList<>(entries.size());
+            for (CachedFileEntry entry : entries) {
+                items.add(entry.toFileItem());
+            }
+            return new Listing(path, items, directory.getListedTime());
+        } catch (Exception e) {
+            Log.e(TAG, "读取目录缓存失败: " + path, e);
+            return null;
+        }
+    }
+
+    /**
+     * 保存一个目录的完整列表（内存立即生效，数据库在写线程中更新）
+     */
+    public Listing put(String path, List<FileItem> items) {
+        Listing listing = new Listing(path, new ArrayList<>(items), System.currentTimeMillis());
+        memoryCache.put(path, listing);
+        persist(Collections.singletonList(listing));
+        return listing;
+    }
+
+    /**
+     * 批量保存目录列表（扫描结束时调用，所有目录在同一个事务中写入）
+     */
+    public void putAll(Map<String, List<FileItem>> listings) {
+        if (listings.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<Listing> batch = new ArrayList<>(listings.size());
+        for (Map.Entry<String, List<FileItem>> entry : listings.entrySet()) {
+            Listing listing = new Listing(entry.getKey(), new ArrayList<>(entry.getValue()), now);
+            memoryCache.put(entry.getKey(), listing);
+            batch.add(listing);
+        }
+        persist(batch);
+    }
+
+    private void persist(List<Listing> listings) {
+        DataExecutor.getInstance().executeWrite(() -> {
+            try {
+                List<String> paths = new ArrayList<>(listings.size());
+                List<CachedDirectory> directories = new ArrayList<>(listings.size());
+                List<CachedFileEntry> files = new ArrayList<>();
+                for (Listing listing : listings) {
+                    paths.add(listing.getPath());
+                    directories.add(new CachedDirectory(listing.getPath(), listing.getListedTime(), listing.getItems().size()));
+                    List<FileItem> items = listing.getItems();
+                    for (int i = 0; i < items.size(); i++) {
+                        files.add(new CachedFileEntry(listing.getPath(), i, items.get(i)));
+                    }
+                }
+                AppDatabase db = databaseManager.getDatabase();
+                db.runInTransaction(() -> {
+                    for (int i = 0; i < paths.size(); i += SQL_BATCH_SIZE) {
+                        db.directoryCacheDao().deleteFilesInDirectories(paths.subList(i, Math.min(i + SQL_BATCH_SIZE, paths.size())));
+                    }
+                    db.directoryCacheDao().insertFiles(files);
+                    db.directoryCacheDao().insertDirectories(directories);
+                    trimDatabase(db);
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "写入目录缓存失败", e);
+            }
+        });
+    }
+
+    /**
+     * 数据库中的目录超过上限时删除最久未列出的目录
+     */
+    private void trimDatabase(AppDatabase db) {
+        List<String> expired = db.directoryCacheDao().getExpiredDirectories(MAX_STORED_DIRECTORIES);
+        for (int i = 0; i < expired.size(); i += SQL_BATCH_SIZE) {
+            List<String> batch = expired.subList(i, Math.min(i + SQL_BATCH_SIZE, expired.size()));
+            db.directoryCacheDao().deleteFilesInDirectories(batch);
+            db.directoryCacheDao().deleteDirectories(batch);
+        }
+    }
+
+    /**
+     * 从网盘获取目录的完整列表（逐页请求直到最后一页，需在后台线程调用）
+     * 成功后写入缓存并更新该目录的伴随文件索引
+     * @return 完整列表，接口返回错误时返回null
+     */
+    public Listing fetch(BaiduPanService service, String accessToken, String path) throws IOException {
+        List<FileItem> items = new ArrayList<>();
+        List<FileItem> sidecars = new ArrayList<>();
+        FileListStreamParser.Listener listener = new FileListStreamParser.Listener() {
+            @Override
+            public void onDirectory(FileItem directory) {
+                items.add(directory);
+            }
+
+            @Override
+            public void onAudioFile(FileItem file) {
+                items.add(file);
+            }
+
+            @Override
+            public void onSidecarFile(FileItem file) {
+                sidecars.add(file);
+            }
+        };
+
+        fetches.incrementAndGet();
+        int start = 0;
+        while (true) {
+            Response<ResponseBody> response = service.getFileListStream(
+                    "list", accessToken, path, "name", start, PAGE_LIMIT, 1, 0, 0
+            ).execute();
+            if (!response.isSuccessful() || response.body() == null) {
+                Log.e(TAG, "获取目录列表失败: " + path + ", start=" + start + ", code=" + response.code());
+                return null;
+            }
+            FileListStreamParser.Result result = FileListStreamParser.parse(response.body(), listener);
+            pagesFetched.incrementAndGet();
+            if (!result.isSuccess()) {
+                Log.e(TAG, "获取目录列表失败: " + path + ", start=" + start + ", errno=" + result.getErrno());
+                return null;
+            }
+            if (result.getItemCount() < PAGE_LIMIT) {
+                break;
+            }
+            start += PAGE_LIMIT;
+        }
+
+        sidecarIndex.replaceDirectories(Collections.singletonList(path), sidecars);
+        return put(path, items);
+    }
+
+    /**
+     * 记录一次后台重新验证结果与缓存相同
+     */
+    public void recordUnchanged() {
+        unchangedRevalidations.incrementAndGet();
+    }
+
+    /**
+     * 在后台预取目录列表（可在主线程调用），已有足够新的缓存的目录跳过
+     * 新的调用会使之前尚未执行的预取失效（用户已离开原目录）
+     * @param paths 按可能打开的顺序排列的目录
+     */
+    public void prefetch(BaiduPanService service, String accessToken, List<String> paths) {
+        int generation = prefetchGeneration.incrementAndGet();
+        for (String path : paths) {
+            PREFETCHER.execute(() -> {
+                if (generation != prefetchGeneration.get()) {
+                    return;
+                }
+                Listing cached = get(path);
+                if (cached != null && cached.getAge() < FRESH_MS) {
+                    return;
+                }
+                try {
+                    if (fetch(service, accessToken, path) != null) {
+                        prefetched.incrementAndGet();
+                        Log.d(TAG, "预取目录完成: " + path);
+                    }
+                } catch (Exception e) {
+                    Log.w(TAG, "预取目录失败: " + path + ", " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * 取消尚未执行的预取（离开文件浏览页面时调用）
+     */
+    public void cancelPrefetch() {
+        prefetchGeneration.incrementAndGet();
+        PREFETCHER.getQueue().clear();
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDatabaseHits() {
+        return databaseHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getFetches() {
+        return fetches.get();
+    }
+
+    public long getPrefetched() {
+        return prefetched.get();
+    }
+
+    /**
+     * 获取统计摘要（用于日志）
+     */
+    public String getStatsSummary() {
+        return "memoryHits=" + memoryHits.get()
+                + ", databaseHits=" + databaseHits.get()
+                + ", misses=" + misses.get()
+                + ", fetches=" + fetches.get()
+                + ", pages=" + pagesFetched.get()
+                + ", prefetched=" + prefetched.get()
+                + ", unchanged=" + unchangedRevalidations.get()
+                + ", memoryEntries=" + memoryCache.size();
+    }
+}
@@ -0,0 +1,334 @@
+package com.baidu.carplayer.manager;
+
+import android.util.Log;
+
+import com.baidu.carplayer.model.FileItem;
+import com.baidu.carplayer.network.BaiduPanService;
+import com.baidu.carplayer.network.FileListStreamParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.ResponseBody;
+import retrofit2.Response;
+
+/**
+ * 网盘文件夹并发扫描器
+ * 使用工作窃取线程池（ForkJoinPool）并发遍历文件夹树，并发数可配置
+ * - 所有任务共享已扫描路径集合，避免重复扫描
+ * - 单个文件夹超过一页时，后续分页在窗口内并发请求
+ * - 文件列表流式解析，子文件夹在所在页下载完成前即开始扫描
+ * - 通过ProgressListener回调扫描进度
+ * - 设置了 SidecarIndex 时，扫描完成后记录各目录中的歌词、封面和CUE文件
+ * - 设置了 DirectoryCache 时，足够新的目录列表直接复用不再请求，扫描完成后把完整列出的目录写回缓存
+ */
+public class FolderScanner {
+    private static final String TAG = "FolderScanner";
+
+    public static final int DEFAULT_CONCURRENCY = 4;
+    public static final int PAGE_LIMIT = 1000;
+    // 同一文件夹最多同时请求的分页数
+    private static final int PAGE_WINDOW = 2;
+
+    private final BaiduPanService service;
+    private final String accessToken;
+    private final int concurrency;
+    private SidecarIndex sidecarIndex;
+    private DirectoryCache directoryCache;
+    private long cacheMaxAgeMs;
+    // 上一次扫描是否所有文件夹都成功列出
+    private volatile boolean lastScanComplete;
+
+    /**
+     * 扫描进度监听器（在扫描线程中回调）
+     */
+    public interface ProgressListener {
+        void onProgress(int foldersDone, int foldersQueued, int filesFound);
+    }
+
+    public FolderScanner(BaiduPanService service, String accessToken) {
+        this(service, accessToken, DEFAULT_CONCURRENCY);
+    }
+
+    public FolderScanner(BaiduPanService service, String accessToken, int concurrency) {
+        this.service = service;
+        this.accessToken = accessToken;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * 设置伴随文件索引，扫描成功后用完整列出的目录更新索引
+     */
+    public void setSidecarIndex(SidecarIndex sidecarIndex) {
+        this.sidecarIndex = sidecarIndex;
+    }
+
+    /**
+     * 设置目录列表缓存
+     * @param maxAgeMs 可直接复用的缓存最大时长，0表示不复用（只把扫描结果写入缓存）
+     */
+    public void setDirectoryCache(DirectoryCache directoryCache, long maxAgeMs) {
+        this.directoryCache = directoryCache;
+        this.cacheMaxAgeMs = maxAgeMs;
+    }
+
+    /**
+     * 递归扫描所有根路径，返回其中的音频文件（按路径排序）
+     * 阻塞直到扫描完成；任一请求出现网络异常时中止并抛出该异常
+     */
+    public List<FileItem> scan(Collection<String> roots, ProgressListener progressListener) throws Exception {
+        lastScanComplete = false;
+        ScanSession session = new ScanSession(progressListener);
+        ForkJoinPool pool = new ForkJoinPool(concurrency);
+        long startTime = System.currentTimeMillis();
+        try {
+            for (String root : roots) {
+                session.submitFolder(pool, root);
+            }
+            // 释放提交者持有的计数，所有根路径提交完之前不会提前结束
+            session.releaseTask();
+            session.done.await();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Exception error = session.error.get();
+        if (error != null) {
+            throw error;
+        }
+
+        if (sidecarIndex != null) {
+            sidecarIndex.replaceDirectories(session.completedFolders, session.sidecars);
+        }
+        if (directoryCache != null) {
+            directoryCache.putAll(session.listings);
+        }
+        lastScanComplete = session.failedFolders.get() == 0;
+
+        List<FileItem> result = new ArrayList<>(session.files);
+        // 并发扫描结果顺序不确定，按路径排序保证结果稳定
+        Collections.sort(result, (a, b) -> a.getPath().compareTo(b.getPath()));
+        Log.d(TAG, "扫描完成: 文件夹 " + session.foldersDone.get() + " 个, 音频文件 " + result.size()
+                + " 个, 复用缓存 " + session.cachedFolders.get() + " 个, 并发数 " + concurrency
+                + ", 失败 " + session.failedFolders.get() + " 个, 耗时 " + (System.currentTimeMillis() - startTime) + "ms");
+        return result;
+    }
+
+    /**
+     * 上一次扫描是否完整：没有任何文件夹列出失败
+     * 不完整的结果缺少失败文件夹下的文件，不能用来判断网盘中已删除的歌曲
+     */
+    public boolean isLastScanComplete() {
+        return lastScanComplete;
+    }
+
+    /**
+     * 单次扫描的共享状态
+     */
+    private class ScanSession {
+        final Set<String> scannedPaths = ConcurrentHashMap.newKeySet();
+        final Queue<FileItem> files = new ConcurrentLinkedQueue<>();
+        final Queue<FileItem> sidecars = new ConcurrentLinkedQueue<>();
+        // 所有分页都成功列出的文件夹，只有这些文件夹的伴随文件索引是完整的
+        final Set<String> completedFolders = ConcurrentHashMap.newKeySet();
+        // 从网络完整列出的文件夹的列表，扫描结束后写入目录缓存
+        final Map<String, List<FileItem>> listings = new ConcurrentHashMap<>();
+        final AtomicInteger cachedFolders = new AtomicInteger();
+        // 未完成的任务数，初始的1由提交根路径的线程持有
+        final AtomicInteger pendingTasks = new AtomicInteger(1);
+        final AtomicInteger failedFolders = new AtomicInteger();
+        final AtomicInteger foldersQueued = new AtomicInteger();
+        final AtomicInteger foldersDone = new AtomicInteger();
+        final AtomicInteger filesFound = new AtomicInteger();
+        final AtomicReference<Exception> error = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        final ProgressListener progressListener;
+
+        ScanSession(ProgressListener progressListener) {
+            this.progressListener = progressListener;
+        }
+
+        void submitFolder(ForkJoinPool pool, String path) {
+            // 防止重复扫描同一个路径
+            if (!scannedPaths.add(path)) {
+                return;
+            }
+            foldersQueued.incrementAndGet();
+            FolderPager pager = new FolderPager();
+            submitPage(pool, path, pager, pager.claimNextStart());
+        }
+
+        void submitPage(ForkJoinPool pool, String path, FolderPager pager, int start) {
+            pendingTasks.incrementAndGet();
+            pager.activePages.incrementAndGet();
+            pool.execute(() -> {
+                try {
+                    if (error.get() == null) {
+                        scanPage(pool, path, pager, start);
+                    }
+                } catch (Exception e) {
+                    error.compareAndSet(null, e);
+                } finally {
+                    if (pager.activePages.decrementAndGet() == 0 && pager.exhausted.get()) {
+                        if (pager.failed.get()) {
+                            failedFolders.incrementAndGet();
+                        } else if (!pager.fromCache && error.get() == null) {
+                            completedFolders.add(path);
+                            if (directoryCache != null) {
+                                listings.put(path, pager.collectItems());
+                            }
+                        }
+                        foldersDone.incrementAndGet();
+                        reportProgress();
+                    }
+                    releaseTask();
+                }
+            });
+        }
+
+        void scanPage(ForkJoinPool pool, String path, FolderPager pager, int start) throws IOException {
+            if (start == 0 && scanCachedFolder(pool, path, pager)) {
+                return;
+            }
+            
+            // 同步调用Retrofit接口（运行在扫描线程池中），响应流式解析
+            Response<ResponseBody> response = service.getFileListStream(
+                    "list", accessToken, path, "name", start, PAGE_LIMIT, 1, 0, 0
+            ).execute();
+
+            if (!response.isSuccessful() || response.body() == null) {
+                // 记录错误，停止当前文件夹扫描，但不中断整个过程
+                Log.e(TAG, "扫描失败: " + path + ", start=" + start + ", code=" + response.code());
+                pager.failed.set(true);
+                pager.exhausted.set(true);
+                return;
+            }
+
+            // 边解析边处理：子文件夹解析出来就作为新任务提交，由空闲线程窃取执行，不必等整页下载完
+            List<FileItem> pageItems = directoryCache != null ? pager.pageItems(start) : null;
+            FileListStreamParser.Result result = FileListStreamParser.parse(response.body(),
+                    new FileListStreamParser.Listener() {
+                        @Override
+                        public void onDirectory(FileItem directory) {
+                            if (pageItems != null) {
+                                pageItems.add(directory);
+                            }
+                            submitFolder(pool, directory.getPath());
+                        }
+
+                        @Override
+                        public void onAudioFile(FileItem file) {
+                            if (pageItems != null) {
+                                pageItems.add(file);
+                            }
+                            files.add(file);
+                            filesFound.incrementAndGet();
+                        }
+
+                        @Override
+                        public void onSidecarFile(FileItem file) {
+                            sidecars.add(file);
+                        }
+                    });
+
+            if (!result.isSuccess()) {
+                Log.e(TAG, "扫描失败: " + path + ", start=" + start + ", errno=" + result.getErrno());
+                pager.failed.set(true);
+                pager.exhausted.set(true);
+            } else if (result.getItemCount() < PAGE_LIMIT) {
+                pager.exhausted.set(true);
+            } else if (!pager.exhausted.get()) {
+                // 当前页已满，在窗口内并发请求后续分页
+                int window = pager.windowOpened.compareAndSet(false, true) ? PAGE_WINDOW : 1;
+                for (int i = 0; i < window; i++) {
+                    submitPage(pool, path, pager, pager.claimNextStart());
+                }
+            }
+        }
+
+        /**
+         * 目录缓存足够新时直接使用缓存的列表
+         * 伴随文件索引在缓存写入时已经更新，这里不再记录
+         * @return 是否使用了缓存
+         */
+        boolean scanCachedFolder(ForkJoinPool pool, String path, FolderPager pager) {
+            if (directoryCache == null || cacheMaxAgeMs <= 0) {
+                return false;
+            }
+            DirectoryCache.Listing listing = directoryCache.get(path);
+            if (listing == null || listing.getAge() >= cacheMaxAgeMs) {
+                return false;
+            }
+            for (FileItem item : listing.getItems()) {
+                if (item.isDirectory()) {
+                    submitFolder(pool, item.getPath());
+                } else {
+                    files.add(item);
+                    filesFound.incrementAndGet();
+                }
+            }
+            pager.fromCache = true;
+            pager.exhausted.set(true);
+            cachedFolders.incrementAndGet();
+            return true;
+        }
+
+        void releaseTask() {
+            if (pendingTasks.decrementAndGet() == 0) {
+                done.countDown();
+            }
+        }
+
+        void reportProgress() {
+            if (progressListener != null) {
+                progressListener.onProgress(foldersDone.get(), foldersQueued.get(), filesFound.get());
+            }
+        }
+    }
+
+    /**
+     * 单个文件夹的分页状态
+     */
+    private static class FolderPager {
+        final AtomicInteger nextStart = new AtomicInteger();
+        final AtomicInteger activePages = new AtomicInteger();
+        final AtomicBoolean exhausted = new AtomicBoolean();
+        final AtomicBoolean failed = new AtomicBoolean();
+        final AtomicBoolean windowOpened = new AtomicBoolean();
+        // 各分页解析出的条目（按起始位置排序），仅在设置了目录缓存时收集
+        final ConcurrentSkipListMap<Integer, List<FileItem>> pages = new ConcurrentSkipListMap<>();
+        volatile boolean fromCache;
+
+        int claimNextStart() {
+            return nextStart.getAndAdd(PAGE_LIMIT);
+        }
+
+        List<FileItem> pageItems(int start) {
+            List<FileItem> items = new ArrayList<>();
+            pages.put(start, items);
+            return items;
+        }
+
+        List<FileItem> collectItems() {
+            List<FileItem> items = new ArrayList<>();
+            for (List<FileItem> page : pages.values()) {
+                items.addAll(page);
+            }
+            return items;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.baidu.carplayer.manager;
+
+import android.content.Context;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.baidu.carplayer.model.Song;
+import com.baidu.carplayer.utils.LrcParser;
+import com.baidu.carplayer.utils.LrcTimeline;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 歌词缓存 - 单例模式
+ * 缓存解析后的歌词，避免同一首歌每次播放都重新搜索、获取链接和下载：
+ * - 内存：少量最近使用的歌词（LRU）
+ * - 磁盘：解析后的歌词以紧凑的二进制格式保存，按修改时间淘汰最旧的文件
+ * - 未命中：确认没有歌词的歌曲记录一个空标记文件，在有效期内不再访问网络
+ * 缓存键由fsId和路径生成，文件移动或改名后自动失效
+ * 同时统计播放服务预取歌词的效果（预取数量、切歌时命中预取结果的次数、因网络预算跳过的次数）
+ */
+public class LyricsCache {
+    private static final String TAG = "LyricsCache";
+    private static final String CACHE_DIR_NAME = "lyrics_cache";
+    private static final String SUFFIX_LYRICS = ".lrcbin";
+    private static final String SUFFIX_MISS = ".miss";
+    // 磁盘格式版本，格式变化时旧文件自动作废
+    private static final int FORMAT_VERSION = 1;
+
+    public static final int MEMORY_ENTRIES = 16;
+    public static final int MAX_DISK_ENTRIES = 500;
+    // 未命中记录的有效期：24小时（期间用户可能上传了歌词文件）
+    public static final long MISS_TTL_MS = 24L * 60 * 60 * 1000;
+    // 记录的预取键数量上限，超过时清空（只影响统计）
+    private static final int MAX_PREFETCHED_KEYS = 64;
+
+    private static volatile LyricsCache instance;
+
+    private final File cacheDir;
+    private final LruCache<String, List<LrcParser.LrcEntry>> memoryCache = new LruCache<>(MEMORY_ENTRIES);
+
+    // 统计信息
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong missHits = new AtomicLong();
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong prefetchedCount = new AtomicLong();
+    private final AtomicLong prefetchHits = new AtomicLong();
+    private final AtomicLong prefetchSkipped = new AtomicLong();
+    // 已预取但尚未被使用的缓存键
+    private final Set<String> prefetchedKeys = new HashSet<>();
+
+    private LyricsCache(Context context) {
+        this.cacheDir = new File(context.getApplicationContext().getCacheDir(), CACHE_DIR_NAME);
+        if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+            Log.w(TAG, "创建歌词缓存目录失败: " + cacheDir);
+        }
+    }
+
+    public static LyricsCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (LyricsCache.class) {
+                if (instance == null) {
+                    instance = new LyricsCache(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 根据歌曲生成缓存键
+     */
+    public static String cacheKeyFor(Song song) {
+        String path = song.getPath() != null ? song.getPath() : "";
+        return "fsid_" + song.getFsId() + "_" + Integer.toHexString(path.hashCode());
+    }
+
+    /**
+     * 只查询内存缓存（可在主线程调用）
+     */
+    public List<LrcParser.LrcEntry> getFromMemory(String key) {
+        List<LrcParser.LrcEntry> entries = memoryCache.get(key);
+        if (entries != null) {
+            lookups.incrementAndGet();
+            memoryHits.incrementAndGet();
+            recordPrefetchHit(key);
+        }
+        return entries;
+    }
+
+    /**
+     * 内存中是否已有该歌词（不计入统计）
+     */
+    public boolean isInMemory(String key) {
+        return memoryCache.get(key) != null;
+    }
+
+    /**
+     * 查询磁盘缓存（需在后台线程调用），命中后放入内存缓存
+     */
+    public List<LrcParser.LrcEntry> getFromDisk(String key) {
+        lookups.incrementAndGet();
+        File file = new File(cacheDir, key + SUFFIX_LYRICS);
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                file.delete();
+                return null;
+            }
+            int count = in.readInt();
+            long[] times = new long[count];
+            String[] texts = new String[count];
+            for (int i = 0; i < count; i++) {
+                times[i] = in.readLong();
+                texts[i] = in.readUTF();
+            }
+            LrcTimeline entries = LrcTimeline.wrap(times, texts);
+            memoryCache.put(key, entries);
+            diskHits.incrementAndGet();
+            recordPrefetchHit(key);
+            // 更新修改时间，淘汰时按最近使用排序
+            file.setLastModified(System.currentTimeMillis());
+            return entries;
+        } catch (IOException e) {
+            Log.w(TAG, "读取歌词缓存失败: " + key, e);
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * 是否在有效期内确认过没有歌词（需在后台线程调用）
+     */
+    public boolean isKnownMiss(String key) {
+        File marker = new File(cacheDir, key + SUFFIX_MISS);
+        if (!marker.exists()) {
+            return false;
+        }
+        if (System.currentTimeMillis() - marker.lastModified() < MISS_TTL_MS) {
+            missHits.incrementAndGet();
+            return true;
+        }
+        marker.delete();
+        return false;
+    }
+
+    /**
+     * 保存解析后的歌词到内存和磁盘（需在后台线程调用）
+     */
+    public void put(String key, List<LrcParser.LrcEntry> entries) {
+        LrcTimeline immutable = LrcTimeline.copyOf(entries);
+        memoryCache.put(key, immutable);
+        new File(cacheDir, key + SUFFIX_MISS).delete();
+
+        File file = new File(cacheDir, key + SUFFIX_LYRICS);
+        File tmp = new File(cacheDir, key + SUFFIX_LYRICS + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(immutable.size());
+            for (int i = 0; i < immutable.size(); i++) {
+                String text = immutable.getText(i);
+                out.writeLong(immutable.getTime(i));
+                out.writeUTF(text != null ? text : "");
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "写入歌词缓存失败: " + key, e);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            return;
+        }
+        trimDisk();
+    }
+
+    /**
+     * 记录没有歌词（需在后台线程调用）
+     */
+    public void putMiss(String key) {
+        File marker = new File(cacheDir, key + SUFFIX_MISS);
+        try {
+            if (!marker.createNewFile()) {
+                marker.setLastModified(System.currentTimeMillis());
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "写入未命中记录失败: " + key, e);
+            return;
+        }
+        trimDisk();
+    }
+
+    /**
+     * 记录一首预取完成的歌词
+     */
+    public void markPrefetched(String key) {
+        prefetchedCount.incrementAndGet();
+        synchronized (prefetchedKeys) {
+            if (prefetchedKeys.size() >= MAX_PREFETCHED_KEYS) {
+                prefetchedKeys.clear();
+            }
+            prefetchedKeys.add(key);
+        }
+    }
+
+    /**
+     * 记录一次因网络预算用完而跳过的预取
+     */
+    public void recordPrefetchSkipped() {
+        prefetchSkipped.incrementAndGet();
+    }
+
+    private void recordPrefetchHit(String key) {
+        synchronized (prefetchedKeys) {
+            if (prefetchedKeys.remove(key)) {
+                prefetchHits.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 清空全部歌词缓存
+     */
+    public void clear() {
+        memoryCache.evictAll();
+        File[] files = cacheDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        Log.d(TAG, "歌词缓存已清空");
+    }
+
+    /**
+     * 磁盘条目超过上限时删除最久未使用的文件
+     */
+    private void trimDisk() {
+        File[] files = cacheDir.listFiles();
+        if (files == null || files.length <= MAX_DISK_ENTRIES) {
+            return;
+        }
+        long[] modified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            modified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(modified[a], modified[b]));
+        for (int i = 0; i < files.length - MAX_DISK_ENTRIES; i++) {
+            files[order[i]].delete();
+        }
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMissHits() {
+        return missHits.get();
+    }
+
+    public long getLookups() {
+        return lookups.get();
+    }
+
+    public long getPrefetchedCount() {
+        return prefetchedCount.get();
+    }
+
+    public long getPrefetchHits() {
+        return prefetchHits.get();
+    }
+
+    public long getPrefetchSkipped() {
+        return prefetchSkipped.get();
+    }
+
+    /**
+     * 预取命中率（0~1）：预取的歌词中被实际使用的比例
+     */
+    public float getPrefetchHitRate() {
+        long prefetched = prefetchedCount.get();
+        return prefetched == 0 ? 0f : (float) prefetchHits.get() / prefetched;
+    }
+
+    /**
+     * 获取统计摘要（用于日志）
+     */
+    public String getStatsSummary() {
+        return "lookups=" + lookups.get()
+                + ", memoryHits=" + memoryHits.get()
+                + ", diskHits=" + diskHits.get()
+                + ", missHits=" + missHits.get()
+                + ", memoryEntries=" + memoryCache.size()
+                + ", prefetched=" + prefetchedCount.get()
+                + ", prefetchHits=" + prefetchHits.get()
+                + ", prefetchSkipped=" + prefetchSkipped.get();
+    }
+}
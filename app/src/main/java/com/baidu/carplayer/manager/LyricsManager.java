@@ -1,33 +1,73 @@
 package com.baidu.carplayer.manager;
 
 import android.content.Context;
-import android.os.AsyncTask;
 import android.util.Log;
 
 import com.baidu.carplayer.auth.BaiduAuthService;
-import com.baidu.carplayer.model.DownloadLinkResponse;
+import com.baidu.carplayer.database.DataExecutor;
 import com.baidu.carplayer.model.Song;
 import com.baidu.carplayer.network.BaiduPanService;
+import com.baidu.carplayer.network.DownloadLinkResolver;
 import com.baidu.carplayer.network.RetrofitClient;
 import com.baidu.carplayer.utils.LrcParser;
+import com.baidu.carplayer.utils.LrcTimeline;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Request;
+import okhttp3.Response;
 
 /**
  * 歌词管理器 - 负责从百度网盘加载LRC歌词文件
+ * 加载顺序：内存缓存 -> 磁盘缓存 -> 未命中记录 -> 伴随文件索引 -> 网络（获取链接、下载，索引未知时才搜索）
+ * 网络加载在专用的有界线程池中执行，切歌时取消上一首的加载，避免过期的请求堆积
+ * 播放服务通过 prefetch 在低优先级线程中提前加载后续歌曲的歌词，预取的网络请求受预算限制
  */
 public class LyricsManager {
     private static final String TAG = "LyricsManager";
     
+    // 歌词加载线程池：线程数和队列长度都很小，队列满时丢弃最旧的任务（一定是已过期的歌曲）
+    private static final int LOADER_THREADS = 2;
+    private static final int LOADER_QUEUE_CAPACITY = 4;
+    // 歌词文件读取的字节上限，超出部分忽略
+    private static final int MAX_LRC_BYTES = 1024 * 1024;
+    // 等待下载链接解析的最长时间
+    private static final long LINK_RESOLVE_TIMEOUT_MS = 15 * 1000;
+    private static final ThreadPoolExecutor LOADER =
+            createExecutor("lyrics-loader", LOADER_THREADS, LOADER_QUEUE_CAPACITY, Thread.NORM_PRIORITY);
+    
+    // 歌词预取线程池：单个低优先级线程，不与当前歌曲的加载争抢
+    private static final int PREFETCH_QUEUE_CAPACITY = 8;
+    private static final ThreadPoolExecutor PREFETCHER =
+            createExecutor("lyrics-prefetch", 1, PREFETCH_QUEUE_CAPACITY, Thread.MIN_PRIORITY);
+    
+    // 预取的网络预算：每个时间窗口内最多发起的网络加载次数（缓存命中不计入）
+    public static final int PREFETCH_NETWORK_BUDGET = 20;
+    public static final long PREFETCH_BUDGET_WINDOW_MS = 10 * 60 * 1000;
+    private static long budgetWindowStart = 0;
+    private static int budgetUsed = 0;
+    
     private Context context;
     private BaiduAuthService authService;
     private BaiduPanService panService;
+    private DownloadLinkResolver linkResolver;
+    private LyricsCache lyricsCache;
+    private SidecarIndex sidecarIndex;
+    
+    // 当前正在加载的任务（只在主线程访问）
+    private LoadLyricsTask currentTask;
+    // 尚未完成的预取任务，按缓存键索引（主线程提交，预取线程完成时移除）
+    private final Map<String, LoadLyricsTask> prefetchTasks = new HashMap<>();
     
     public interface OnLyricsLoadListener {
         void onLyricsLoaded(List<LrcParser.LrcEntry> lrcEntries);
@@ -38,14 +78,34 @@ public class LyricsManager {
         this.context = context.getApplicationContext();
         this.authService = BaiduAuthService.getInstance(context);
         this.panService = RetrofitClient.getInstance().create(BaiduPanService.class);
+        this.linkResolver = DownloadLinkResolver.getInstance();
+        this.lyricsCache = LyricsCache.getInstance(context);
+        this.sidecarIndex = SidecarIndex.getInstance(context);
+    }
+    
+    private static ThreadPoolExecutor createExecutor(String name, int threads, int queueCapacity, int priority) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, name + "-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(priority);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardOldestPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
     
     /**
-     * 加载歌曲的歌词
+     * 加载歌曲的歌词（需在主线程调用），会取消之前尚未完成的加载
      * @param song 歌曲对象
      * @param listener 加载监听器
      */
     public void loadLyrics(Song song, OnLyricsLoadListener listener) {
+        cancel();
+        
         if (song == null || song.getPath() == null || song.getPath().isEmpty()) {
             listener.onLyricsLoadFailed("歌曲路径为空");
             return;
@@ -66,10 +126,105 @@ public class LyricsManager {
         // 获取歌曲所在目录
         String songDir = extractDirectory(songPath);
         
-        Log.d(TAG, "搜索歌词文件: " + lrcFileName + " 在目录: " + songDir);
+        // 内存缓存命中时直接回调
+        String cacheKey = LyricsCache.cacheKeyFor(song);
+        List<LrcParser.LrcEntry> cached = lyricsCache.getFromMemory(cacheKey);
+        if (cached != null) {
+            Log.d(TAG, "歌词内存缓存命中: " + lrcFileName);
+            listener.onLyricsLoaded(cached);
+            return;
+        }
         
-        // 异步搜索并加载歌词
-        new LoadLyricsTask(lrcFileName, songDir, listener).execute();
+        // 异步加载歌词（在歌词专用线程池中执行）
+        currentTask = new LoadLyricsTask(LOADER, cacheKey, songPath, lrcFileName, songDir, listener);
+        LOADER.execute(currentTask);
+    }
+    
+    /**
+     * 预取后续歌曲的歌词（需在主线程调用），结果只写入缓存，切歌时即可从内存直接显示
+     * 不在列表中的旧预取任务会被取消（播放顺序已变化），已缓存或正在预取的歌曲不会重复提交
+     * @param songs 按播放顺序排列的后续歌曲
+     */
+    public void prefetch(List<Song> songs) {
+        Set<String> wanted = new HashSet<>();
+        for (Song song : songs) {
+            wanted.add(LyricsCache.cacheKeyFor(song));
+        }
+        synchronized (prefetchTasks) {
+            Iterator<Map.Entry<String, LoadLyricsTask>> iterator = prefetchTasks.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, LoadLyricsTask> entry = iterator.next();
+                if (!wanted.contains(entry.getKey())) {
+                    entry.getValue().cancel();
+                    iterator.remove();
+                } else if (!entry.getValue().isPending()) {
+                    // 队列满时被丢弃的任务，允许重新提交
+                    iterator.remove();
+                }
+            }
+            for (Song song : songs) {
+                String songPath = song.getPath();
+                String fileName = extractFileNameWithoutExtension(songPath);
+                String cacheKey = LyricsCache.cacheKeyFor(song);
+                if (fileName == null || fileName.isEmpty() || prefetchTasks.containsKey(cacheKey)
+                        || lyricsCache.isInMemory(cacheKey)) {
+                    continue;
+                }
+                LoadLyricsTask task = new LoadLyricsTask(PREFETCHER, cacheKey, songPath, fileName + ".lrc",
+                        extractDirectory(songPath), null);
+                prefetchTasks.put(cacheKey, task);
+                PREFETCHER.execute(task);
+            }
+        }
+    }
+    
+    /**
+     * 取消所有预取任务（播放服务销毁时调用）
+     */
+    public void cancelPrefetch() {
+        synchronized (prefetchTasks) {
+            for (LoadLyricsTask task : prefetchTasks.values()) {
+                task.cancel();
+            }
+            prefetchTasks.clear();
+        }
+    }
+    
+    /**
+     * 申请一次预取的网络预算，当前时间窗口已用完时返回false
+     */
+    private static synchronized boolean tryAcquirePrefetchBudget() {
+        long now = System.currentTimeMillis();
+        if (now - budgetWindowStart >= PREFETCH_BUDGET_WINDOW_MS) {
+            budgetWindowStart = now;
+            budgetUsed = 0;
+        }
+        if (budgetUsed >= PREFETCH_NETWORK_BUDGET) {
+            return false;
+        }
+        budgetUsed++;
+        return true;
+    }
+    
+    /**
+     * 取消当前的歌词加载（切歌或页面销毁时调用），被取消的任务不会回调
+     */
+    public void cancel() {
+        if (currentTask != null) {
+            currentTask.cancel();
+            currentTask = null;
+        }
+    }
+    
+    /**
+     * 获取统计摘要（用于日志）
+     */
+    public static String getStatsSummary(Context context) {
+        return "cache[" + LyricsCache.getInstance(context).getStatsSummary() + "]"
+                + ", sidecars[" + SidecarIndex.getInstance(context).getStatsSummary() + "]"
+                + ", queue=" + LOADER.getQueue().size()
+                + ", active=" + LOADER.getActiveCount()
+                + ", prefetchQueue=" + PREFETCHER.getQueue().size();
     }
     
     /**
@@ -115,22 +270,103 @@ public class LyricsManager {
     }
     
     /**
-     * 异步加载歌词任务
+     * 异步加载歌词任务，后台加载完成后切回主线程回调
+     * 取消时同时取消正在进行的网络请求；预取任务没有监听器，只写入缓存
      */
-    private class LoadLyricsTask extends AsyncTask<Void, Void, List<LrcParser.LrcEntry>> {
+    private class LoadLyricsTask implements Runnable {
+        private ThreadPoolExecutor executor;
+        private String cacheKey;
+        private String songPath;
         private String lrcFileName;
         private String searchDir;
         private OnLyricsLoadListener listener;
         private String errorMessage;
+        // 网盘中确认没有可用的歌词（而不是网络错误），此时记录未命中
+        private boolean confirmedMissing;
+        
+        private volatile boolean cancelled;
+        private volatile boolean started;
+        private volatile retrofit2.Call<?> activeApiCall;
+        private volatile okhttp3.Call activeDownloadCall;
+        private volatile CountDownLatch activeLinkWait;
         
-        public LoadLyricsTask(String lrcFileName, String searchDir, OnLyricsLoadListener listener) {
+        public LoadLyricsTask(ThreadPoolExecutor executor, String cacheKey, String songPath, String lrcFileName,
+                              String searchDir, OnLyricsLoadListener listener) {
+            this.executor = executor;
+            this.cacheKey = cacheKey;
+            this.songPath = songPath;
             this.lrcFileName = lrcFileName;
             this.searchDir = searchDir;
             this.listener = listener;
         }
         
+        void cancel() {
+            cancelled = true;
+            executor.remove(this);
+            retrofit2.Call<?> apiCall = activeApiCall;
+            if (apiCall != null) {
+                apiCall.cancel();
+            }
+            okhttp3.Call downloadCall = activeDownloadCall;
+            if (downloadCall != null) {
+                downloadCall.cancel();
+            }
+            // 不取消共享的批量请求，只停止等待
+            CountDownLatch linkWait = activeLinkWait;
+            if (linkWait != null) {
+                linkWait.countDown();
+            }
+        }
+        
+        boolean isPending() {
+            return started || executor.getQueue().contains(this);
+        }
+        
         @Override
-        protected List<LrcParser.LrcEntry> doInBackground(Void... voids) {
+        public void run() {
+            started = true;
+            if (cancelled) {
+                return;
+            }
+            List<LrcParser.LrcEntry> lrcEntries = loadInBackground();
+            if (listener == null) {
+                onPrefetchFinished(lrcEntries);
+                return;
+            }
+            if (cancelled) {
+                Log.d(TAG, "歌词加载已取消: " + lrcFileName);
+                return;
+            }
+            DataExecutor.getInstance().postToMain(() -> onPostExecute(lrcEntries));
+        }
+        
+        private List<LrcParser.LrcEntry> loadInBackground() {
+            // 磁盘缓存
+            List<LrcParser.LrcEntry> cached = lyricsCache.getFromDisk(cacheKey);
+            if (cached != null) {
+                Log.d(TAG, "歌词磁盘缓存命中: " + lrcFileName);
+                return cached;
+            }
+            if (lyricsCache.isKnownMiss(cacheKey)) {
+                errorMessage = "未找到歌词文件: " + lrcFileName;
+                return null;
+            }
+            if (listener == null && !tryAcquirePrefetchBudget()) {
+                lyricsCache.recordPrefetchSkipped();
+                Log.d(TAG, "预取网络预算已用完，跳过: " + lrcFileName);
+                return null;
+            }
+            
+            List<LrcParser.LrcEntry> lrcEntries = loadFromNetwork();
+            if (lrcEntries != null) {
+                lyricsCache.put(cacheKey, lrcEntries);
+            } else if (confirmedMissing) {
+                lyricsCache.putMiss(cacheKey);
+            }
+            return lrcEntries;
+        }
+        
+        private List<LrcParser.LrcEntry> loadFromNetwork() {
             try {
                 // 获取访问令牌
                 String accessToken = authService.getAccessToken();
@@ -139,29 +375,42 @@ public class LyricsManager {
                     return null;
                 }
                 
-                // 搜索LRC文件
-                String lrcDownloadUrl = searchLrcFile(accessToken, lrcFileName, searchDir);
+                // 先查伴随文件索引：找到时直接获取下载链接，确认不存在时不再搜索
+                String lrcDownloadUrl;
+                SidecarIndex.Lookup lookup = sidecarIndex.findByName(SidecarIndex.directoryOf(songPath), lrcFileName);
+                if (lookup.isFound()) {
+                    Log.d(TAG, "伴随文件索引命中: " + lrcFileName);
+                    lrcDownloadUrl = resolveDownloadLink(accessToken, lookup.getFile().getFsId());
+                } else if (lookup.isConfirmedMissing()) {
+                    errorMessage = "未找到歌词文件: " + lrcFileName;
+                    confirmedMissing = true;
+                    return null;
+                } else {
+                    // 目录未索引，回退到搜索LRC文件
+                    Log.d(TAG, "搜索歌词文件: " + lrcFileName + " 在目录: " + searchDir);
+                    lrcDownloadUrl = searchLrcFile(accessToken, lrcFileName, searchDir);
+                }
                 
                 if (lrcDownloadUrl == null || lrcDownloadUrl.isEmpty()) {
                     errorMessage = "未找到歌词文件: " + lrcFileName;
                     return null;
                 }
+                if (cancelled) {
+                    return null;
+                }
                 
                 Log.d(TAG, "找到歌词文件，下载链接: " + lrcDownloadUrl);
                 
-                // 下载并解析歌词
-                String lrcContent = downloadLrcContent(lrcDownloadUrl);
+                // 下载的同时解析歌词
+                LrcTimeline lrcEntries = downloadLyrics(lrcDownloadUrl);
                 
-                if (lrcContent == null || lrcContent.isEmpty()) {
-                    errorMessage = "歌词文件内容为空";
+                if (lrcEntries == null) {
+                    errorMessage = "下载歌词失败";
                     return null;
                 }
-                
-                // 解析LRC歌词
-                List<LrcParser.LrcEntry> lrcEntries = LrcParser.parseLrc(lrcContent);
-                
-                if (lrcEntries == null || lrcEntries.isEmpty()) {
-                    errorMessage = "歌词解析失败";
+                if (lrcEntries.isEmpty()) {
+                    errorMessage = "歌词文件为空或解析失败";
+                    confirmedMissing = true;
                     return null;
                 }
                 
@@ -169,14 +418,34 @@ public class LyricsManager {
                 return lrcEntries;
                 
             } catch (Exception e) {
+                if (cancelled) {
+                    return null;
+                }
                 Log.e(TAG, "加载歌词失败", e);
                 errorMessage = "加载歌词失败: " + e.getMessage();
                 return null;
             }
         }
         
-        @Override
-        protected void onPostExecute(List<LrcParser.LrcEntry> lrcEntries) {
+        private void onPrefetchFinished(List<LrcParser.LrcEntry> lrcEntries) {
+            synchronized (prefetchTasks) {
+                if (prefetchTasks.get(cacheKey) == this) {
+                    prefetchTasks.remove(cacheKey);
+                }
+            }
+            if (lrcEntries != null) {
+                lyricsCache.markPrefetched(cacheKey);
+                Log.d(TAG, "歌词预取完成: " + lrcFileName);
+            }
+        }
+        
+        private void onPostExecute(List<LrcParser.LrcEntry> lrcEntries) {
+            if (cancelled) {
+                return;
+            }
+            if (currentTask == this) {
+                currentTask = null;
+            }
             if (lrcEntries != null && !lrcEntries.isEmpty()) {
                 listener.onLyricsLoaded(lrcEntries);
             } else {
@@ -197,6 +466,10 @@ public class LyricsManager {
                         searchDir
                 );
                 
+                activeApiCall = call;
+                if (cancelled) {
+                    return null;
+                }
                 retrofit2.Response<Map<String, Object>> response = call.execute();
                 
                 if (!response.isSuccessful() || response.body() == null) {
@@ -210,10 +483,11 @@ public class LyricsManager {
                 int errno = (errnoNumber != null) ? errnoNumber.intValue() : -1;
                 
                 if (errno == 0) {
-                    // 搜索成功，获取文件列表
+                    // 获取文件列表
                     Object listObj = body.get("list");
                     if (listObj instanceof List) {
                         List<?> fileList = (List<?>) listObj;
+                        boolean nameMatched = false;
                         
                         // 查找匹配的LRC文件
                         for (Object item : fileList) {
@@ -222,117 +496,96 @@ public class LyricsManager {
                                 String serverFilename = (String) fileMap.get("server_filename");
                                 
                                 if (lrcFileName.equalsIgnoreCase(serverFilename)) {
+                                    nameMatched = true;
                                     // 找到匹配的文件，获取下载链接
                                     // 注意：百度网盘API返回的字段名是 fs_id 而不是 fsid
                                     Object fsidObj = fileMap.get("fs_id");
                                     if (fsidObj instanceof Number) {
                                         Long fsid = ((Number) fsidObj).longValue();
-                                        return getDownloadLink(accessToken, fsid);
+                                        return resolveDownloadLink(accessToken, fsid);
                                     } else {
                                         Log.w(TAG, "文件 fs_id 不存在或类型不正确: " + fsidObj);
                                     }
                                 }
                             }
                         }
+                        
+                        // 搜索结果完整且没有同名文件时，才记录为没有歌词
+                        if (!nameMatched) {
+                            confirmedMissing = true;
+                        }
                     }
                 }
                 
                 return null;
                 
             } catch (Exception e) {
+                if (cancelled) {
+                    return null;
+                }
                 Log.e(TAG, "搜索歌词文件异常", e);
                 return null;
             }
         }
         
         /**
-         * 获取文件下载链接
+         * 通过 DownloadLinkResolver 获取文件下载链接（共用缓存和批量请求），阻塞到解析完成、超时或取消
          */
-        private String getDownloadLink(String accessToken, long fsid) {
-            try {
-                // 将 fsid 转换为 JSON 数组格式的字符串，例如 "[12345]"
-                String fsids = "[" + fsid + "]";
-                retrofit2.Call<DownloadLinkResponse> call = panService.getFileDownloadLink(
-                        "filemetas",
-                        accessToken,
-                        fsids,
-                        1  // 添加 dlink=1 参数以获取下载链接
-                );
-                
-                retrofit2.Response<DownloadLinkResponse> response = call.execute();
-                
-                if (!response.isSuccessful() || response.body() == null) {
-                    Log.e(TAG, "获取下载链接失败: " + response.code());
-                    return null;
+        private String resolveDownloadLink(String accessToken, long fsid) {
+            CountDownLatch done = new CountDownLatch(1);
+            String[] result = new String[1];
+            activeLinkWait = done;
+            if (cancelled) {
+                return null;
+            }
+            linkResolver.resolve(accessToken, fsid, null, new DownloadLinkResolver.ResolveCallback() {
+                @Override
+                public void onResolved(String urlWithToken) {
+                    result[0] = urlWithToken;
+                    done.countDown();
                 }
                 
-                DownloadLinkResponse body = response.body();
-                int errno = body.getErrno();
-                
-                // 下载链接在 list 数组的第一个元素中
-                if (errno == 0 && body.getList() != null && !body.getList().isEmpty()) {
-                    String dlink = body.getList().get(0).getDlink();
-                    Log.d(TAG, "获取下载链接成功: " + dlink);
-                    
-                    // 百度网盘下载链接需要附加 access_token 参数
-                    String urlWithToken = dlink + (dlink.contains("?") ? "&" : "?") + "access_token=" + accessToken;
-                    return urlWithToken;
-                } else {
-                    Log.e(TAG, "获取下载链接失败，errno=" + errno);
+                @Override
+                public void onError(String message, Throwable cause) {
+                    Log.e(TAG, "获取下载链接失败: " + message);
+                    done.countDown();
+                }
+            });
+            try {
+                if (!done.await(LINK_RESOLVE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    Log.e(TAG, "获取下载链接超时: fsId=" + fsid);
                     return null;
                 }
-                
-            } catch (Exception e) {
-                Log.e(TAG, "获取下载链接异常", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 return null;
             }
+            return cancelled ? null : result[0];
         }
         
         /**
-         * 下载LRC文件内容
+         * 下载歌词并直接从响应流解析（自动识别编码），失败时返回null
+         * 使用共享的OkHttpClient，复用网盘下载主机的连接
          */
-        private String downloadLrcContent(String downloadUrl) {
-            HttpURLConnection connection = null;
-            BufferedReader reader = null;
-            
-            try {
-                URL url = new URL(downloadUrl);
-                connection = (HttpURLConnection) url.openConnection();
-                connection.setRequestMethod("GET");
-                connection.setConnectTimeout(30000);
-                connection.setReadTimeout(30000);
-                connection.connect();
-                
-                int responseCode = connection.getResponseCode();
-                if (responseCode != HttpURLConnection.HTTP_OK) {
-                    Log.e(TAG, "下载歌词失败: " + responseCode);
+        private LrcTimeline downloadLyrics(String downloadUrl) {
+            Request request = new Request.Builder().url(downloadUrl).get().build();
+            okhttp3.Call call = RetrofitClient.getHttpClient().newCall(request);
+            activeDownloadCall = call;
+            if (cancelled) {
+                return null;
+            }
+            try (Response response = call.execute()) {
+                if (!response.isSuccessful() || response.body() == null) {
+                    Log.e(TAG, "下载歌词失败: " + response.code());
                     return null;
                 }
-                
-                reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), "UTF-8"));
-                StringBuilder content = new StringBuilder();
-                String line;
-                
-                while ((line = reader.readLine()) != null) {
-                    content.append(line).append("\n");
-                }
-                
-                return content.toString();
-                
+                return LrcParser.parse(response.body().byteStream(), response.body().contentLength(), MAX_LRC_BYTES);
             } catch (Exception e) {
+                if (cancelled) {
+                    return null;
+                }
                 Log.e(TAG, "下载歌词异常", e);
                 return null;
-            } finally {
-                if (reader != null) {
-                    try {
-                        reader.close();
-                    } catch (IOException e) {
-                        Log.e(TAG, "关闭reader失败", e);
-                    }
-                }
-                if (connection != null) {
-                    connection.disconnect();
-                }
             }
         }
     }
@@ -4,41 +4,62 @@ import android.content.Context;
 
 import android.text.TextUtils;
 
+import androidx.lifecycle.LiveData;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
+
+import com.baidu.carplayer.database.DataExecutor;
 import com.baidu.carplayer.database.DatabaseManager;
+import com.baidu.carplayer.database.SongDao;
 import com.baidu.carplayer.model.FileItem;
-import com.baidu.carplayer.model.FileListResponse;
 import com.baidu.carplayer.model.Playlist;
 import com.baidu.carplayer.model.Song;
 import com.baidu.carplayer.network.BaiduPanService;
 
-import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.stream.Collectors;
-
-import retrofit2.Response;
 
 /**
  * 播放列表管理器
  */
 public class PlaylistManager {
     private DatabaseManager databaseManager;
+    private SidecarIndex sidecarIndex;
+    private DirectoryCache directoryCache;
+    private final DataExecutor dataExecutor = DataExecutor.getInstance();
+    private int scanConcurrency = FolderScanner.DEFAULT_CONCURRENCY;
+    
+    // 单条SQL中IN参数的最大数量（SQLite默认上限999）
+    private static final int SQL_BATCH_SIZE = 500;
+    // 歌曲列表分页大小
+    private static final int SONG_PAGE_SIZE = 60;
     
     public PlaylistManager(Context context) {
         databaseManager = DatabaseManager.getInstance(context);
+        sidecarIndex = SidecarIndex.getInstance(context);
+        directoryCache = DirectoryCache.getInstance(context);
+    }
+    
+    /**
+     * 设置刷新播放列表时扫描文件夹的并发数
+     */
+    public void setScanConcurrency(int scanConcurrency) {
+        this.scanConcurrency = Math.max(1, scanConcurrency);
     }
     
     /**
      * 创建播放列表
      */
     public void createPlaylist(String name, OnResultListener listener) {
-        new Thread(() -> {
+        dataExecutor.executeWrite(() -> {
             try {
                 Playlist playlist = new Playlist();
                 playlist.setId(UUID.randomUUID().toString());
@@ -56,14 +77,14 @@ public class PlaylistManager {
                     listener.onError(e.getMessage());
                 }
             }
-        }).start();
+        });
     }
     
     /**
      * 更新播放列表
      */
     public void updatePlaylist(Playlist playlist, OnResultListener listener) {
-        new Thread(() -> {
+        dataExecutor.executeWrite(() -> {
             try {
                 databaseManager.getDatabase().playlistDao().insertPlaylist(playlist);
                 
@@ -75,14 +96,14 @@ public class PlaylistManager {
                     listener.onError(e.getMessage());
                 }
             }
-        }).start();
+        });
     }
     
     /**
      * 删除播放列表
      */
     public void deletePlaylist(Playlist playlist, OnResultListener listener) {
-        new Thread(() -> {
+        dataExecutor.executeWrite(() -> {
             try {
                 // 删除播放列表及其关联的歌曲
                 databaseManager.getDatabase().songDao().deleteSongsByPlaylist(playlist.getId());
@@ -96,14 +117,14 @@ public class PlaylistManager {
                     listener.onError(e.getMessage());
                 }
             }
-        }).start();
+        });
     }
     
     /**
      * 删除播放列表（通过ID）
      */
     public void deletePlaylist(String playlistId, OnResultListener listener) {
-        new Thread(() -> {
+        dataExecutor.executeWrite(() -> {
             try {
                 Playlist playlist = databaseManager.getDatabase().playlistDao().getPlaylistById(playlistId);
                 if (playlist != null) {
@@ -118,14 +139,14 @@ public class PlaylistManager {
                     listener.onError(e.getMessage());
                 }
             }
-        }).start();
+        });
     }
     
     /**
      * 添加歌曲到播放列表
      */
     public void addSongToPlaylist(String playlistId, Song song, OnResultListener listener) {
-        new Thread(() -> {
+        dataExecutor.executeWrite(() -> {
             try {
                 // 检查歌曲是否已经在该播放列表中
                 Song existingSong = databaseManager.getDatabase().songDao().getSong(song.getFsId(), playlistId);
@@ -166,14 +187,73 @@ public class PlaylistManager {
                     listener.onError(e.getMessage());
                 }
             }
-        }).start();
+        });
+    }
+    
+    /**
+     * 批量添加歌曲到播放列表
+     * 在一个事务中插入，已存在的歌曲自动跳过，歌曲数量只更新一次
+     * 成功时回调实际新增的歌曲数量（Integer）
+     */
+    public void addSongsToPlaylist(String playlistId, List<Song> songs, OnResultListener listener) {
+        if (songs == null || songs.isEmpty()) {
+            if (listener != null) listener.onSuccess(0);
+            return;
+        }
+        dataExecutor.executeWrite(() -> {
+            try {
+                // 需要创建新的Song对象，避免修改原对象影响其他列表
+                List<Song> newSongs = new ArrayList<>(songs.size());
+                long now = System.currentTimeMillis();
+                for (Song song : songs) {
+                    Song newSong = new Song();
+                    newSong.setFsId(song.getFsId());
+                    newSong.setPlaylistId(playlistId);
+                    newSong.setTitle(song.getTitle());
+                    newSong.setPath(song.getPath());
+                    newSong.setSize(song.getSize());
+                    // addedTime递增以保持传入顺序
+                    newSong.setAddedTime(now + newSongs.size());
+                    newSong.setArtist(song.getArtist());
+                    newSong.setAlbum(song.getAlbum());
+                    newSong.setDuration(song.getDuration());
+                    newSong.setCoverUrl(song.getCoverUrl());
+                    newSongs.add(newSong);
+                }
+
+                int[] added = new int[1];
+                databaseManager.getDatabase().runInTransaction(() -> {
+                    List<Long> rowIds = databaseManager.getDatabase().songDao().insertSongsIfAbsent(newSongs);
+                    for (Long rowId : rowIds) {
+                        if (rowId != null && rowId != -1) {
+                            added[0]++;
+                        }
+                    }
+
+                    // 更新播放列表的歌曲数量
+                    Playlist playlist = databaseManager.getDatabase().playlistDao().getPlaylistById(playlistId);
+                    if (playlist != null && added[0] > 0) {
+                        playlist.setSongCount(databaseManager.getDatabase().songDao().getSongCount(playlistId));
+                        databaseManager.getDatabase().playlistDao().insertPlaylist(playlist);
+                    }
+                });
+
+                if (listener != null) {
+                    listener.onSuccess(added[0]);
+                }
+            } catch (Exception e) {
+                if (listener != null) {
+                    listener.onError(e.getMessage());
+                }
+            }
+        });
     }
     
     /**
      * 从播放列表移除歌曲
      */
     public void removeSongFromPlaylist(Song song, OnResultListener listener) {
-        new Thread(() -> {
+        dataExecutor.executeWrite(() -> {
             try {
                 String playlistId = song.getPlaylistId();
                 databaseManager.getDatabase().songDao().deleteSong(song.getFsId(), playlistId);
@@ -193,29 +273,46 @@ public class PlaylistManager {
                     listener.onError(e.getMessage());
                 }
             }
-        }).start();
+        });
     }
     
     /**
      * 从播放列表批量移除歌曲
      */
     public void removeSongsFromPlaylist(List<Song> songs, String playlistId, OnResultListener listener) {
-        if (songs == null || songs.isEmpty()) {
+        List<Long> fsIds = new ArrayList<>();
+        if (songs != null) {
+            for (Song song : songs) {
+                fsIds.add(song.getFsId());
+            }
+        }
+        removeSongsByIdFromPlaylist(fsIds, playlistId, listener);
+    }
+    
+    /**
+     * 按fsId从播放列表批量移除歌曲（单个事务，分批删除）
+     */
+    public void removeSongsByIdFromPlaylist(List<Long> fsIds, String playlistId, OnResultListener listener) {
+        if (fsIds == null || fsIds.isEmpty()) {
             if (listener != null) listener.onSuccess(null);
             return;
         }
-        new Thread(() -> {
+        List<Long> ids = new ArrayList<>(fsIds);
+        dataExecutor.executeWrite(() -> {
             try {
-                for (Song song : songs) {
-                    databaseManager.getDatabase().songDao().deleteSong(song.getFsId(), playlistId);
-                }
-                
-                // 更新播放列表的歌曲数量
-                Playlist playlist = databaseManager.getDatabase().playlistDao().getPlaylistById(playlistId);
-                if (playlist != null) {
-                    playlist.setSongCount(Math.max(0, playlist.getSongCount() - songs.size()));
-                    databaseManager.getDatabase().playlistDao().insertPlaylist(playlist);
-                }
+                databaseManager.getDatabase().runInTransaction(() -> {
+                    for (int i = 0; i < ids.size(); i += SQL_BATCH_SIZE) {
+                        databaseManager.getDatabase().songDao().deleteSongs(playlistId,
+                                ids.subList(i, Math.min(i + SQL_BATCH_SIZE, ids.size())));
+                    }
+                    
+                    // 更新播放列表的歌曲数量
+                    Playlist playlist = databaseManager.getDatabase().playlistDao().getPlaylistById(playlistId);
+                    if (playlist != null) {
+                        playlist.setSongCount(databaseManager.getDatabase().songDao().getSongCount(playlistId));
+                        databaseManager.getDatabase().playlistDao().insertPlaylist(playlist);
+                    }
+                });
                 
                 if (listener != null) {
                     listener.onSuccess(null);
@@ -225,29 +322,18 @@ public class PlaylistManager {
                     listener.onError(e.getMessage());
                 }
             }
-        }).start();
+        });
     }
     
     /**
      * 获取所有播放列表
      */
     public void getAllPlaylists(OnPlaylistsLoadListener listener) {
-        new Thread(() -> {
+        dataExecutor.executeRead(() -> {
             try {
+                // 歌曲数量由查询中的聚合统计得到，无需逐个加载歌曲
                 List<Playlist> playlists = databaseManager.getAllPlaylists();
                 
-                // 为每个播放列表更新实际的歌曲数量
-                for (Playlist playlist : playlists) {
-                    List<Song> songs = databaseManager.getDatabase().songDao().getSongsByPlaylistSync(playlist.getId());
-                    int actualCount = songs.size();
-                    
-                    // 如果歌曲数量不一致，更新数据库
-                    if (playlist.getSongCount() != actualCount) {
-                        playlist.setSongCount(actualCount);
-                        databaseManager.getDatabase().playlistDao().insertPlaylist(playlist);
-                    }
-                }
-                
                 if (listener != null) {
                     listener.onSuccess(playlists);
                 }
@@ -256,14 +342,21 @@ public class PlaylistManager {
                     listener.onError(e.getMessage());
                 }
             }
-        }).start();
+        });
+    }
+    
+    /**
+     * 观察所有播放列表（含歌曲数量），播放列表或歌曲变化时Room自动重新查询
+     */
+    public LiveData<List<Playlist>> getPlaylistsLiveData() {
+        return databaseManager.getDatabase().playlistDao().getAllPlaylists();
     }
     
     /**
      * 获取播放列表中的歌曲
      */
     public void getSongsForPlaylist(String playlistId, OnSongsLoadListener listener) {
-        new Thread(() -> {
+        dataExecutor.executeRead(() -> {
             try {
                 List<Song> songs = databaseManager.getDatabase().songDao().getSongsByPlaylistSync(playlistId);
                 if (listener != null) {
@@ -274,14 +367,65 @@ public class PlaylistManager {
                     listener.onError(e.getMessage());
                 }
             }
-        }).start();
+        });
+    }
+
+    /**
+     * 获取播放列表中的歌曲，在数据库中按目录、标题排序（与分页列表顺序一致）
+     */
+    public void getSortedSongsForPlaylist(String playlistId, boolean ascending, OnSongsLoadListener listener) {
+        dataExecutor.executeRead(() -> {
+            try {
+                List<Song> songs = ascending
+                        ? databaseManager.getDatabase().songDao().getSongsSortedAsc(playlistId)
+                        : databaseManager.getDatabase().songDao().getSongsSortedDesc(playlistId);
+                if (listener != null) {
+                    listener.onSuccess(songs);
+                }
+            } catch (Exception e) {
+                if (listener != null) {
+                    listener.onError(e.getMessage());
+                }
+            }
+        });
+    }
+    
+    /**
+     * 分页加载播放列表中的歌曲（按目录、标题排序），首屏只读取第一页
+     * 数据库变化时自动重新加载
+     */
+    public LiveData<PagingData<Song>> getPagedSongs(String playlistId, boolean ascending) {
+        SongDao songDao = databaseManager.getDatabase().songDao();
+        Pager<Integer, Song> pager = new Pager<>(
+                new PagingConfig(SONG_PAGE_SIZE, SONG_PAGE_SIZE, true, SONG_PAGE_SIZE * 2),
+                () -> ascending ? songDao.getSongsPagedAsc(playlistId) : songDao.getSongsPagedDesc(playlistId));
+        return PagingLiveData.getLiveData(pager);
+    }
+    
+    /**
+     * 获取播放列表中所有歌曲的fsId（用于全选，不加载完整歌曲信息）
+     * onSuccess 的结果为 List<Long>
+     */
+    public void getSongIds(String playlistId, OnResultListener listener) {
+        dataExecutor.executeRead(() -> {
+            try {
+                List<Long> ids = databaseManager.getDatabase().songDao().getSongIds(playlistId);
+                if (listener != null) {
+                    listener.onSuccess(ids);
+                }
+            } catch (Exception e) {
+                if (listener != null) {
+                    listener.onError(e.getMessage());
+                }
+            }
+        });
     }
 
     /**
      * 获取播放列表详情
      */
     public void getPlaylist(String playlistId, OnPlaylistLoadListener listener) {
-        new Thread(() -> {
+        dataExecutor.executeRead(() -> {
             try {
                 Playlist playlist = databaseManager.getDatabase().playlistDao().getPlaylistById(playlistId);
                 if (listener != null) {
@@ -292,15 +436,25 @@ public class PlaylistManager {
                     listener.onError(e.getMessage());
                 }
             }
-        }).start();
+        });
     }
 
     /**
      * 刷新播放列表
-     * 算法核心：从现有歌曲路径反推根文件夹，然后重新递归扫描并重建列表
+     * 算法核心：从现有歌曲路径反推根文件夹，然后重新递归扫描，按fsId计算差异后增量更新列表
+     * 成功时回调 RefreshResult，包含新增/删除/重命名/移动数量
      */
     public void refreshPlaylist(String playlistId, BaiduPanService service, String accessToken, OnResultListener listener) {
-        new Thread(() -> {
+        refreshPlaylist(playlistId, service, accessToken, null, listener);
+    }
+    
+    /**
+     * 刷新播放列表，并回调扫描进度
+     * @param progressListener 扫描进度监听器（在扫描线程中回调），可为null
+     */
+    public void refreshPlaylist(String playlistId, BaiduPanService service, String accessToken,
+                                FolderScanner.ProgressListener progressListener, OnResultListener listener) {
+        dataExecutor.executeRead(() -> {
             try {
                 // 1. 获取当前列表所有歌曲
                 List<Song> currentSongs = databaseManager.getDatabase().songDao().getSongsByPlaylistSync(playlistId);
@@ -320,15 +474,35 @@ public class PlaylistManager {
                     return;
                 }
 
-                // 3. 递归扫描这些根路径，获取网盘最新文件列表
-                List<FileItem> cloudFiles = scanAllRoots(service, accessToken, scanRoots);
-
-                // 4. 清空当前列表并重建
-                int newCount = rebuildPlaylist(playlistId, cloudFiles);
+                // 3. 在网络通道中递归扫描这些根路径（耗时较长，不占用数据库读线程）
+                dataExecutor.executeNetwork(() -> {
+                    List<FileItem> cloudFiles;
+                    try {
+                        cloudFiles = scanAllRoots(service, accessToken, scanRoots, progressListener);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        if (listener != null) {
+                            listener.onError("刷新失败: " + e.getMessage());
+                        }
+                        return;
+                    }
 
-                if (listener != null) {
-                    listener.onSuccess("刷新完成，共 " + newCount + " 首歌曲");
-                }
+                    // 4. 在写线程中计算差异并增量更新（重新读取列表，包含扫描期间的修改）
+                    dataExecutor.executeWrite(() -> {
+                        try {
+                            List<Song> latestSongs = databaseManager.getDatabase().songDao().getSongsByPlaylistSync(playlistId);
+                            RefreshResult result = applyPlaylistDiff(playlistId, latestSongs, cloudFiles);
+                            if (listener != null) {
+                                listener.onSuccess(result);
+                            }
+                        } catch (Exception e) {
+                            e.printStackTrace();
+                            if (listener != null) {
+                                listener.onError("刷新失败: " + e.getMessage());
+                            }
+                        }
+                    });
+                });
 
             } catch (Exception e) {
                 e.printStackTrace();
@@ -336,7 +510,7 @@ public class PlaylistManager {
                     listener.onError("刷新失败: " + e.getMessage());
                 }
             }
-        }).start();
+        });
     }
 
     /**
@@ -401,103 +575,132 @@ public class PlaylistManager {
 
     /**
      * 扫描所有根路径
+     * 使用FolderScanner在线程池中并发扫描，共享已扫描路径集合防止重复扫描
+     * 扫描同时更新伴随文件索引；刷新需要最新结果，不复用目录缓存，只把扫描结果写入缓存
      */
-    private List<FileItem> scanAllRoots(BaiduPanService service, String accessToken, Set<String> roots) throws Exception {
-        List<FileItem> allFiles = new ArrayList<>();
-        Set<String> scannedPaths = new HashSet<>();
-        // 这里可以使用线程池并发扫描，提高效率
-        // 为简单起见，暂时串行扫描
-        for (String root : roots) {
-            scanFolderRecursive(service, accessToken, root, allFiles, scannedPaths);
+    private List<FileItem> scanAllRoots(BaiduPanService service, String accessToken, Set<String> roots,
+                                        FolderScanner.ProgressListener progressListener) throws Exception {
+        FolderScanner scanner = new FolderScanner(service, accessToken, scanConcurrency);
+        scanner.setSidecarIndex(sidecarIndex);
+        scanner.setDirectoryCache(directoryCache, 0);
+        List<FileItem> files = scanner.scan(roots, progressListener);
+        if (!scanner.isLastScanComplete()) {
+            // 部分文件夹未能列出，其中的歌曲会被误判为已删除
+            throw new IOException("部分文件夹扫描失败，已取消同步");
         }
-        return allFiles;
+        return files;
     }
 
     /**
-     * 递归扫描单个文件夹（支持分页，防止重复扫描）
+     * 按fsId比较本地列表与网盘扫描结果，在一个事务中只写入变化的部分
+     * 已有歌曲保留原有的addedTime和扩展字段，保证用户的排序和元数据不丢失
      */
-    private void scanFolderRecursive(BaiduPanService service, String accessToken, String path, List<FileItem> result, Set<String> scannedPaths) throws Exception {
-        // 防止重复扫描同一个路径
-        if (scannedPaths.contains(path)) {
-            return;
+    private RefreshResult applyPlaylistDiff(String playlistId, List<Song> currentSongs, List<FileItem> cloudFiles) {
+        Map<Long, Song> existing = new HashMap<>();
+        for (Song song : currentSongs) {
+            existing.put(song.getFsId(), song);
         }
-        scannedPaths.add(path);
 
-        int start = 0;
-        final int limit = 1000;
-        boolean hasMore = true;
+        RefreshResult result = new RefreshResult();
+        List<Song> toInsert = new ArrayList<>();
+        List<Song> toUpdate = new ArrayList<>();
+        Set<Long> cloudIds = new HashSet<>();
+        long now = System.currentTimeMillis();
 
-        while (hasMore) {
-            // 同步调用Retrofit接口，处理分页
-            Response<FileListResponse> response = service.getFileList(
-                    "list", accessToken, path, "name", start, limit, 1, 0, 0
-            ).execute();
+        for (FileItem item : cloudFiles) {
+            if (!item.isAudioFile() || !cloudIds.add(item.getFsId())) {
+                continue;
+            }
+            Song song = existing.get(item.getFsId());
+            if (song == null) {
+                // 新增歌曲，addedTime递增以保持扫描顺序
+                Song newSong = new Song();
+                newSong.setPlaylistId(playlistId);
+                newSong.setFsId(item.getFsId());
+                newSong.setTitle(item.getServerFilename());
+                newSong.setPath(item.getPath());
+                newSong.setSize(item.getSize());
+                newSong.setAddedTime(now + toInsert.size());
+                toInsert.add(newSong);
+                result.added++;
+                continue;
+            }
 
-            if (response.isSuccessful() && response.body() != null) {
-                List<FileItem> list = response.body().getList();
-                
-                if (list != null && !list.isEmpty()) {
-                    for (FileItem item : list) {
-                        if (item.getIsdir() == 1) {
-                            // 递归扫描子文件夹
-                            scanFolderRecursive(service, accessToken, item.getPath(), result, scannedPaths);
-                        } else if (item.isAudioFile()) {
-                            result.add(item);
-                        }
-                    }
+            boolean renamed = !TextUtils.equals(song.getTitle(), item.getServerFilename());
+            boolean moved = !TextUtils.equals(Song.getDirectoryPath(song.getPath()), Song.getDirectoryPath(item.getPath()));
+            if (renamed || moved || song.getSize() != item.getSize()) {
+                song.setTitle(item.getServerFilename());
+                song.setPath(item.getPath());
+                song.setSize(item.getSize());
+                toUpdate.add(song);
+            }
+            if (renamed) {
+                result.renamed++;
+            }
+            if (moved) {
+                result.moved++;
+            }
+        }
 
-                    // 检查是否还有更多文件
-                    if (list.size() < limit) {
-                        hasMore = false;
-                    } else {
-                        start += limit;
-                    }
-                } else {
-                    hasMore = false;
-                }
-            } else {
-                // 记录错误，停止当前文件夹扫描，但不中断整个过程
-                System.err.println("扫描失败: " + path + ", code=" + response.code());
-                hasMore = false;
+        List<Long> toDelete = new ArrayList<>();
+        for (Long fsId : existing.keySet()) {
+            if (!cloudIds.contains(fsId)) {
+                toDelete.add(fsId);
             }
         }
+        result.removed = toDelete.size();
+        result.total = cloudIds.size();
+
+        if (!result.hasChanges() && toUpdate.isEmpty()) {
+            return result;
+        }
+
+        databaseManager.getDatabase().runInTransaction(() -> {
+            // 分批删除，避免超过SQLite参数数量上限
+            for (int i = 0; i < toDelete.size(); i += SQL_BATCH_SIZE) {
+                databaseManager.getDatabase().songDao().deleteSongs(playlistId,
+                        toDelete.subList(i, Math.min(i + SQL_BATCH_SIZE, toDelete.size())));
+            }
+            if (!toUpdate.isEmpty()) {
+                databaseManager.getDatabase().songDao().updateSongs(toUpdate);
+            }
+            if (!toInsert.isEmpty()) {
+                databaseManager.getDatabase().songDao().insertSongs(toInsert);
+            }
+
+            // 更新播放列表统计
+            Playlist playlist = databaseManager.getDatabase().playlistDao().getPlaylistById(playlistId);
+            if (playlist != null && playlist.getSongCount() != result.total) {
+                playlist.setSongCount(result.total);
+                databaseManager.getDatabase().playlistDao().insertPlaylist(playlist);
+            }
+        });
+
+        return result;
     }
 
     /**
-     * 清空当前列表并重建
-     * 返回新列表的歌曲数量
+     * 刷新播放列表的差异统计
      */
-    private int rebuildPlaylist(String playlistId, List<FileItem> cloudFiles) {
-        // 1. 删除当前列表中的所有歌曲
-        databaseManager.getDatabase().songDao().deleteSongsByPlaylist(playlistId);
-        
-        // 2. 插入新的歌曲列表
-        List<Song> newSongs = new ArrayList<>();
-        for (FileItem item : cloudFiles) {
-            if (item.isAudioFile()) {
-                Song song = new Song();
-                song.setPlaylistId(playlistId);
-                song.setFsId(item.getFsId());
-                song.setTitle(item.getServerFilename());
-                song.setPath(item.getPath());
-                song.setSize(item.getSize());
-                song.setAddedTime(System.currentTimeMillis());
-                newSongs.add(song);
-            }
-        }
-        
-        if (!newSongs.isEmpty()) {
-            databaseManager.getDatabase().songDao().insertSongs(newSongs);
+    public static class RefreshResult {
+        public int added;
+        public int removed;
+        public int renamed;
+        public int moved;
+        public int total;
+
+        public boolean hasChanges() {
+            return added > 0 || removed > 0 || renamed > 0 || moved > 0;
         }
-        
-        // 3. 更新播放列表统计
-        Playlist playlist = databaseManager.getDatabase().playlistDao().getPlaylistById(playlistId);
-        if (playlist != null) {
-            playlist.setSongCount(newSongs.size());
-            databaseManager.getDatabase().playlistDao().insertPlaylist(playlist);
+
+        @Override
+        public String toString() {
+            if (!hasChanges()) {
+                return "刷新完成，共 " + total + " 首歌曲，没有变化";
+            }
+            return "刷新完成，共 " + total + " 首歌曲（新增 " + added + "，删除 " + removed
+                    + "，重命名 " + renamed + "，移动 " + moved + "）";
         }
-        
-        return newSongs.size();
     }
     
     public interface OnResultListener {
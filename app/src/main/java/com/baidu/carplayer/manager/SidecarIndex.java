@@ -0,0 +1,189 @@
+package com.baidu.carplayer.manager;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.baidu.carplayer.database.AppDatabase;
+import com.baidu.carplayer.database.DataExecutor;
+import com.baidu.carplayer.database.DatabaseManager;
+import com.baidu.carplayer.model.FileItem;
+import com.baidu.carplayer.model.IndexedDirectory;
+import com.baidu.carplayer.model.SidecarFile;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 伴随文件索引 - 单例模式
+ * 文件夹扫描时记录目录中的歌词、封面和CUE文件，查找时只查本地数据库：
+ * - 找到文件：直接使用其fsId获取下载链接，不需要搜索
+ * - 目录已索引但没有该文件：可以确认文件不存在
+ * - 目录未索引或索引已过期：返回未知，由调用方回退到网盘搜索
+ */
+public class SidecarIndex {
+    private static final String TAG = "SidecarIndex";
+
+    // 单条SQL中IN参数的最大数量（SQLite默认上限999）
+    private static final int SQL_BATCH_SIZE = 500;
+    // 目录索引的有效期：超过后不再据此确认文件不存在（期间用户可能上传了新文件）
+    public static final long INDEX_TTL_MS = 7L * 24 * 60 * 60 * 1000;
+
+    /**
+     * 查找结果：找到、确认不存在、未知（需要回退到搜索）
+     */
+    public static class Lookup {
+        public static final Lookup MISSING = new Lookup(null, true);
+        public static final Lookup UNKNOWN = new Lookup(null, false);
+
+        private final SidecarFile file;
+        private final boolean indexed;
+
+        Lookup(SidecarFile file, boolean indexed) {
+            this.file = file;
+            this.indexed = indexed;
+        }
+
+        public SidecarFile getFile() {
+            return file;
+        }
+
+        public boolean isFound() {
+            return file != null;
+        }
+
+        public boolean isConfirmedMissing() {
+            return file == null && indexed;
+        }
+    }
+
+    private static volatile SidecarIndex instance;
+
+    private final DatabaseManager databaseManager;
+
+    // 统计信息
+    private final AtomicLong foundCount = new AtomicLong();
+    private final AtomicLong missingCount = new AtomicLong();
+    private final AtomicLong unknownCount = new AtomicLong();
+    private final AtomicLong indexedDirectories = new AtomicLong();
+
+    private SidecarIndex(Context context) {
+        this.databaseManager = DatabaseManager.getInstance(context);
+    }
+
+    public static SidecarIndex getInstance(Context context) {
+        if (instance == null) {
+            synchronized (SidecarIndex.class) {
+                if (instance == null) {
+                    instance = new SidecarIndex(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 获取文件所在目录（与扫描时的文件夹路径一致，根目录为"/"）
+     * 例如：/music/album1/song.lrc -> /music/album1，/song.lrc -> /
+     */
+    public static String directoryOf(String path) {
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        int lastSlash = path.lastIndexOf('/');
+        return lastSlash > 0 ? path.substring(0, lastSlash) : "/";
+    }
+
+    /**
+     * 用扫描结果替换这些目录的索引（在写线程中执行）
+     * @param directories 已完整列出的目录
+     * @param sidecars 这些目录中的伴随文件
+     */
+    public void replaceDirectories(Collection<String> directories, Collection<FileItem> sidecars) {
+        if (directories.isEmpty()) {
+            return;
+        }
+        List<String> dirs = new ArrayList<>(directories);
+        List<SidecarFile> files = new ArrayList<>(sidecars.size());
+        for (FileItem item : sidecars) {
+            files.add(new SidecarFile(item.getFsId(), directoryOf(item.getPath()), item.getName(),
+                    SidecarFile.typeForName(item.getName()), item.getSize()));
+        }
+        long now = System.currentTimeMillis();
+        List<IndexedDirectory> indexed = new ArrayList<>(dirs.size());
+        for (String dir : dirs) {
+            indexed.add(new IndexedDirectory(dir, now));
+        }
+
+        DataExecutor.getInstance().executeWrite(() -> {
+            try {
+                AppDatabase db = databaseManager.getDatabase();
+                db.runInTransaction(() -> {
+                    for (int i = 0; i < dirs.size(); i += SQL_BATCH_SIZE) {
+                        db.sidecarDao().deleteSidecarsInDirectories(dirs.subList(i, Math.min(i + SQL_BATCH_SIZE, dirs.size())));
+                    }
+                    db.sidecarDao().insertSidecars(files);
+                    db.sidecarDao().insertDirectories(indexed);
+                });
+                indexedDirectories.addAndGet(dirs.size());
+                Log.d(TAG, "伴随文件索引已更新: 目录 " + dirs.size() + " 个, 文件 " + files.size() + " 个");
+            } catch (Exception e) {
+                Log.e(TAG, "更新伴随文件索引失败", e);
+            }
+        });
+    }
+
+    /**
+     * 按文件名查找目录中的伴随文件（不区分大小写，需在后台线程调用）
+     */
+    public Lookup findByName(String directory, String name) {
+        SidecarFile file = databaseManager.getDatabase().sidecarDao().findByName(directory, name);
+        return toLookup(directory, file);
+    }
+
+    /**
+     * 查找目录中的封面图片（需在后台线程调用）
+     */
+    public Lookup findCover(String directory) {
+        List<SidecarFile> covers = databaseManager.getDatabase().sidecarDao()
+                .findByType(directory, SidecarFile.TYPE_COVER);
+        return toLookup(directory, covers.isEmpty() ? null : covers.get(0));
+    }
+
+    private Lookup toLookup(String directory, SidecarFile file) {
+        if (file != null) {
+            foundCount.incrementAndGet();
+            return new Lookup(file, true);
+        }
+        IndexedDirectory indexed = databaseManager.getDatabase().sidecarDao().getIndexedDirectory(directory);
+        if (indexed != null && System.currentTimeMillis() - indexed.getIndexedTime() < INDEX_TTL_MS) {
+            missingCount.incrementAndGet();
+            return Lookup.MISSING;
+        }
+        unknownCount.incrementAndGet();
+        return Lookup.UNKNOWN;
+    }
+
+    public long getFoundCount() {
+        return foundCount.get();
+    }
+
+    public long getMissingCount() {
+        return missingCount.get();
+    }
+
+    public long getUnknownCount() {
+        return unknownCount.get();
+    }
+
+    /**
+     * 获取统计摘要（用于日志）
+     */
+    public String getStatsSummary() {
+        return "found=" + foundCount.get()
+                + ", missing=" + missingCount.get()
+                + ", unknown=" + unknownCount.get()
+                + ", indexedDirs=" + indexedDirectories.get();
+    }
+}
@@ -19,6 +19,22 @@ public class AuthInfo {
         this.isLoggedIn = false;
     }
 
+    /**
+     * 复制认证信息（用于生成新的快照，不修改已发布的对象）
+     */
+    public AuthInfo(AuthInfo other) {
+        this.accessToken = other.accessToken;
+        this.refreshToken = other.refreshToken;
+        this.expiresAt = other.expiresAt;
+        this.scope = other.scope;
+        this.sessionSecret = other.sessionSecret;
+        this.sessionKey = other.sessionKey;
+        this.sessionExpiresAt = other.sessionExpiresAt;
+        this.userId = other.userId;
+        this.username = other.username;
+        this.isLoggedIn = other.isLoggedIn;
+    }
+
     public String getAccessToken() {
         return accessToken;
     }
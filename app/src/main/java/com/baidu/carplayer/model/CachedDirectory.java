@@ -0,0 +1,42 @@
+package com.baidu.carplayer.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.PrimaryKey;
+
+/**
+ * 已缓存列表的目录
+ * 记录目录完整列出（所有分页）的时间，用于判断缓存是否需要重新验证
+ */
+@Entity(tableName = "cached_directories")
+public class CachedDirectory {
+    @PrimaryKey
+    @NonNull
+    public String path = "";
+    public long listedTime;
+    public int itemCount;
+
+    public CachedDirectory() {
+    }
+
+    @Ignore
+    public CachedDirectory(@NonNull String path, long listedTime, int itemCount) {
+        this.path = path;
+        this.listedTime = listedTime;
+        this.itemCount = itemCount;
+    }
+
+    @NonNull
+    public String getPath() {
+        return path;
+    }
+
+    public long getListedTime() {
+        return listedTime;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+}
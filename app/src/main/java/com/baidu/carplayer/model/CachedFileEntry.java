@@ -0,0 +1,41 @@
+package com.baidu.carplayer.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+
+/**
+ * 目录列表缓存中的一项（文件夹或音频文件）
+ * 以所在目录和在列表中的位置为主键，读取时按位置恢复接口返回的顺序
+ */
+@Entity(tableName = "cached_files", primaryKeys = {"directory", "position"})
+public class CachedFileEntry {
+    @NonNull
+    public String directory = "";
+    public int position;
+    public long fsId;
+    public String name;
+    public String path;
+    public long size;
+    public boolean isDir;
+    public String md5;
+
+    public CachedFileEntry() {
+    }
+
+    @Ignore
+    public CachedFileEntry(@NonNull String directory, int position, FileItem item) {
+        this.directory = directory;
+        this.position = position;
+        this.fsId = item.getFsId();
+        this.name = item.getName();
+        this.path = item.getPath();
+        this.size = item.getSize();
+        this.isDir = item.isDirectory();
+        this.md5 = item.getMd5();
+    }
+
+    public FileItem toFileItem() {
+        return new FileItem(name, path, size, isDir, fsId, md5);
+    }
+}
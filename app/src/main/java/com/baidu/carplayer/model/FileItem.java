@@ -95,6 +95,14 @@ public class FileItem {
      */
     public boolean isAudioFile() {
         if (isDirectory) return false;
+        return isAudioFileName(name);
+    }
+
+    /**
+     * 根据文件名判断是否为音频文件
+     */
+    public static boolean isAudioFileName(String name) {
+        if (name == null) return false;
         String lowerName = name.toLowerCase();
         return lowerName.endsWith(".mp3") || 
                lowerName.endsWith(".wav") || 
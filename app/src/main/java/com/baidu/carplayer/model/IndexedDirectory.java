@@ -0,0 +1,36 @@
+package com.baidu.carplayer.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.PrimaryKey;
+
+/**
+ * 已建立伴随文件索引的目录
+ * 目录有记录但没有某类伴随文件时，可以确认该文件不存在
+ */
+@Entity(tableName = "indexed_directories")
+public class IndexedDirectory {
+    @PrimaryKey
+    @NonNull
+    public String path = "";
+    public long indexedTime;
+
+    public IndexedDirectory() {
+    }
+
+    @Ignore
+    public IndexedDirectory(@NonNull String path, long indexedTime) {
+        this.path = path;
+        this.indexedTime = indexedTime;
+    }
+
+    @NonNull
+    public String getPath() {
+        return path;
+    }
+
+    public long getIndexedTime() {
+        return indexedTime;
+    }
+}
@@ -0,0 +1,82 @@
+package com.baidu.carplayer.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * 伴随文件实体类
+ * 扫描文件夹时记录与音频文件放在一起的歌词、封面和CUE文件，按所在目录索引，
+ * 查找歌词或封面时直接查本地表，不需要调用网盘搜索接口
+ */
+@Entity(tableName = "sidecar_files", indices = {@Index(value = {"directory"})})
+public class SidecarFile {
+    public static final int TYPE_NONE = 0;
+    public static final int TYPE_LYRICS = 1;
+    public static final int TYPE_COVER = 2;
+    public static final int TYPE_CUE = 3;
+
+    @PrimaryKey
+    public long fsId;
+    @NonNull
+    public String directory = "";
+    public String name;
+    public int type;
+    public long size;
+
+    public SidecarFile() {
+    }
+
+    @Ignore
+    public SidecarFile(long fsId, @NonNull String directory, String name, int type, long size) {
+        this.fsId = fsId;
+        this.directory = directory;
+        this.name = name;
+        this.type = type;
+        this.size = size;
+    }
+
+    public long getFsId() {
+        return fsId;
+    }
+
+    @NonNull
+    public String getDirectory() {
+        return directory;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * 根据文件名判断伴随文件类型
+     * 歌词：*.lrc；封面：cover/folder 的 jpg/jpeg/png；CUE：*.cue
+     * @return 文件类型，不是伴随文件时返回 TYPE_NONE
+     */
+    public static int typeForName(String name) {
+        if (name == null) return TYPE_NONE;
+        String lowerName = name.toLowerCase();
+        if (lowerName.endsWith(".lrc")) {
+            return TYPE_LYRICS;
+        }
+        if (lowerName.endsWith(".cue")) {
+            return TYPE_CUE;
+        }
+        if (lowerName.equals("cover.jpg") || lowerName.equals("cover.jpeg") || lowerName.equals("cover.png")
+                || lowerName.equals("folder.jpg") || lowerName.equals("folder.jpeg") || lowerName.equals("folder.png")) {
+            return TYPE_COVER;
+        }
+        return TYPE_NONE;
+    }
+}
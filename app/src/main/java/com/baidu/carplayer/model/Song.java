@@ -3,16 +3,19 @@ package com.baidu.carplayer.model;
 import androidx.annotation.NonNull;
 import androidx.room.Entity;
 import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
-import java.util.Collections;
-import java.util.Comparator;
+import com.baidu.carplayer.utils.SearchTokenizer;
+import com.baidu.carplayer.utils.SortKeyUtils;
+
 import java.util.List;
 
 /**
  * 歌曲实体类
  */
-@Entity(tableName = "songs", primaryKeys = {"fsId", "playlistId"})
+@Entity(tableName = "songs", primaryKeys = {"fsId", "playlistId"},
+        indices = {@Index(value = {"playlistId", "sortDirectory", "sortTitle"})})
 public class Song {
     public long fsId;
     @NonNull
@@ -28,6 +31,13 @@ public class Song {
     public long duration;
     public String coverUrl;
     
+    // 全文检索关键词（汉字拆分及拼音首字母），写入数据库时由标题、歌手、专辑和目录生成
+    private String searchKeywords;
+    
+    // 排序键（目录、自然排序标题），写入数据库时由路径和标题生成，列表排序直接使用索引
+    private String sortDirectory;
+    private String sortTitle;
+    
     public Song() {
     }
     
@@ -122,6 +132,39 @@ public class Song {
         this.coverUrl = coverUrl;
     }
     
+    /**
+     * 获取全文检索关键词，每次根据当前字段重新生成，保证写入数据库时与歌曲信息一致
+     */
+    public String getSearchKeywords() {
+        return SearchTokenizer.buildKeywords(getTitleWithoutExtension(), artist, album, getDirectoryPath(path));
+    }
+    
+    public void setSearchKeywords(String searchKeywords) {
+        this.searchKeywords = searchKeywords;
+    }
+    
+    /**
+     * 获取目录排序键，每次根据当前路径重新生成
+     */
+    public String getSortDirectory() {
+        return SortKeyUtils.directoryKey(path);
+    }
+    
+    public void setSortDirectory(String sortDirectory) {
+        this.sortDirectory = sortDirectory;
+    }
+    
+    /**
+     * 获取标题排序键（自然排序），每次根据当前标题重新生成
+     */
+    public String getSortTitle() {
+        return SortKeyUtils.naturalKey(title);
+    }
+    
+    public void setSortTitle(String sortTitle) {
+        this.sortTitle = sortTitle;
+    }
+    
     // 添加getId方法用于适配器
     public long getId() {
         return fsId;
@@ -142,34 +185,6 @@ public class Song {
         return "";
     }
     
-    /**
-     * 按路径和歌曲标题排序
-     * 先按路径（文件夹）排序，保证同一文件夹的歌曲在一起
-     * 然后在同一文件夹内按标题排序
-     * @param songs 歌曲列表
-     * @param ascending true为正序，false为倒序
-     */
-    public static void sortSongs(List<Song> songs, boolean ascending) {
-        Collections.sort(songs, new Comparator<Song>() {
-            @Override
-            public int compare(Song s1, Song s2) {
-                // 获取文件夹路径（去掉文件名）
-                String dir1 = getDirectoryPath(s1.getPath());
-                String dir2 = getDirectoryPath(s2.getPath());
-                
-                // 先按文件夹路径排序
-                int dirCompare = dir1.compareToIgnoreCase(dir2);
-                if (dirCompare != 0) {
-                    return ascending ? dirCompare : -dirCompare;
-                }
-                
-                // 同一文件夹内按标题排序
-                int titleCompare = s1.getTitle().compareToIgnoreCase(s2.getTitle());
-                return ascending ? titleCompare : -titleCompare;
-            }
-        });
-    }
-    
     /**
      * 根据歌曲ID在列表中查找位置
      * @param songs 歌曲列表
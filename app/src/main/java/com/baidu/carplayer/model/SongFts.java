@@ -0,0 +1,19 @@
+package com.baidu.carplayer.model;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+
+/**
+ * 歌曲全文检索表（FTS4外部内容表）
+ * 内容来自 songs 表，由Room生成的触发器在 songs 增删改时同步索引，
+ * 查询时通过 rowid 与 songs 表关联
+ */
+@Fts4(contentEntity = Song.class)
+@Entity(tableName = "songs_fts")
+public class SongFts {
+    public String title;
+    public String artist;
+    public String album;
+    public String path;
+    public String searchKeywords;
+}
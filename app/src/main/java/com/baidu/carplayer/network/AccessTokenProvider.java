@@ -0,0 +1,33 @@
+package com.baidu.carplayer.network;
+
+import androidx.annotation.Nullable;
+
+/**
+ * 访问令牌提供者，供网络层在请求前后检查和刷新令牌
+ * 由认证服务实现并通过 RetrofitClient.setAccessTokenProvider 注册
+ */
+public interface AccessTokenProvider {
+    /**
+     * 当前保存的访问令牌
+     */
+    String getAccessToken();
+
+    /**
+     * 访问令牌是否已过期（或即将过期）
+     */
+    boolean isAccessTokenExpired();
+
+    /**
+     * 同步刷新访问令牌（阻塞，不能在主线程调用）
+     * 并发调用只会发起一次刷新请求，其余调用等待并直接使用新令牌
+     * @param staleToken 调用方认为已失效的令牌
+     * @return 新令牌，刷新失败返回null
+     */
+    @Nullable
+    String refreshAccessTokenBlocking(String staleToken);
+
+    /**
+     * 记录一次因令牌失效导致的请求失败
+     */
+    void recordTokenExpiredFailure();
+}
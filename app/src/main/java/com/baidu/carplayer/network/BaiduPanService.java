@@ -7,10 +7,12 @@ import com.baidu.carplayer.model.TokenResponse;
 
 import java.util.Map;
 
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.GET;
 import retrofit2.http.Query;
 import retrofit2.http.QueryMap;
+import retrofit2.http.Streaming;
 
 /**
  * 百度网盘API服务接口
@@ -66,6 +68,23 @@ public interface BaiduPanService {
             @Query("showempty") int showempty
     );
     
+    /**
+     * 获取文件列表（流式响应，配合 FileListStreamParser 边下载边解析）
+     */
+    @Streaming
+    @GET(ApiConstants.ENDPOINT_FILE)
+    Call<ResponseBody> getFileListStream(
+            @Query("method") String method,
+            @Query("access_token") String accessToken,
+            @Query("dir") String dir,
+            @Query("order") String order,
+            @Query("start") int start,
+            @Query("limit") int limit,
+            @Query("web") int web,
+            @Query("folder") int folder,
+            @Query("showempty") int showempty
+    );
+    
     /**
      * 获取文件下载链接
      */
@@ -0,0 +1,95 @@
+package com.baidu.carplayer.network;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Dns;
+
+/**
+ * 带缓存的DNS解析
+ * 网盘API和下载主机数量很少，解析结果缓存一段时间，避免每次建立连接都查询DNS；
+ * 查询失败（如隧道中断网）时返回过期的缓存结果，让连接有机会直接成功
+ */
+public class CachingDns implements Dns {
+    private static final String TAG = "CachingDns";
+    private static final long DEFAULT_TTL_MS = 5 * 60 * 1000L;
+
+    private final long ttlMs;
+    private final ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<>();
+
+    // 统计信息
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+
+    private static class Entry {
+        final List<InetAddress> addresses;
+        final long expiresAt;
+
+        Entry(List<InetAddress> addresses, long expiresAt) {
+            this.addresses = addresses;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public CachingDns() {
+        this(DEFAULT_TTL_MS);
+    }
+
+    public CachingDns(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    @Override
+    public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+        Entry entry = cache.get(hostname);
+        long now = SystemClock.elapsedRealtime();
+        if (entry != null && now < entry.expiresAt) {
+            hits.incrementAndGet();
+            return entry.addresses;
+        }
+
+        misses.incrementAndGet();
+        try {
+            List<InetAddress> addresses = Dns.SYSTEM.lookup(hostname);
+            cache.put(hostname, new Entry(addresses, now + ttlMs));
+            return addresses;
+        } catch (UnknownHostException e) {
+            if (entry != null) {
+                staleHits.incrementAndGet();
+                Log.w(TAG, "DNS解析失败，使用过期缓存: " + hostname);
+                return entry.addresses;
+            }
+            throw e;
+        }
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getStaleHits() {
+        return staleHits.get();
+    }
+
+    public String getStatsSummary() {
+        return "hosts=" + cache.size()
+                + ", hits=" + hits.get()
+                + ", misses=" + misses.get()
+                + ", stale=" + staleHits.get();
+    }
+}
@@ -0,0 +1,115 @@
+package com.baidu.carplayer.network;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * 熔断器 - 网络中断（如隧道）时快速失败，避免请求堆积在重试等待中
+ * - CLOSED：正常放行，连续失败达到阈值后打开
+ * - OPEN：直接拒绝，冷却时间过后进入半开
+ * - HALF_OPEN：只放行一个探测请求，成功则关闭，失败则重新打开
+ */
+public class CircuitBreaker {
+    private static final String TAG = "CircuitBreaker";
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationMs;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt = 0;
+    private boolean probeInFlight = false;
+
+    // 统计信息
+    private long openCount = 0;
+    private long rejectedCount = 0;
+
+    public CircuitBreaker(String name, int failureThreshold, long openDurationMs) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+    }
+
+    /**
+     * 判断是否放行请求
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN && SystemClock.elapsedRealtime() - openedAt >= openDurationMs) {
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+            Log.d(TAG, name + " 进入半开状态，放行探测请求");
+        }
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (!probeInFlight) {
+                    probeInFlight = true;
+                    return true;
+                }
+                rejectedCount++;
+                return false;
+            case OPEN:
+            default:
+                rejectedCount++;
+                return false;
+        }
+    }
+
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            Log.d(TAG, name + " 探测成功，熔断器关闭");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = SystemClock.elapsedRealtime();
+            probeInFlight = false;
+            openCount++;
+            Log.w(TAG, name + " 熔断器打开: 连续失败 " + consecutiveFailures + " 次");
+        }
+    }
+
+    /**
+     * 请求被调用方主动取消：不计入成功或失败，只释放半开状态下的探测名额
+     */
+    public synchronized void recordCancelled() {
+        probeInFlight = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public synchronized long getOpenCount() {
+        return openCount;
+    }
+
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public synchronized String getStatsSummary() {
+        return name + "{state=" + state
+                + ", failures=" + consecutiveFailures
+                + ", opened=" + openCount
+                + ", rejected=" + rejectedCount + "}";
+    }
+}
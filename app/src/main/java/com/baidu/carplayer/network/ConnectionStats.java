@@ -0,0 +1,90 @@
+package com.baidu.carplayer.network;
+
+import androidx.annotation.NonNull;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+
+/**
+ * 按主机统计连接复用情况
+ * 每次请求获取连接记为一次 acquired，其中新建的TCP连接和TLS握手分别计数，
+ * acquired - connects 即为复用连接节省的握手次数
+ */
+public class ConnectionStats extends EventListener {
+
+    /**
+     * 单个主机的统计
+     */
+    public static class HostStats {
+        final AtomicLong acquired = new AtomicLong();
+        final AtomicLong connects = new AtomicLong();
+        final AtomicLong tlsHandshakes = new AtomicLong();
+
+        public long getAcquired() {
+            return acquired.get();
+        }
+
+        public long getConnects() {
+            return connects.get();
+        }
+
+        public long getTlsHandshakes() {
+            return tlsHandshakes.get();
+        }
+
+        public long getReused() {
+            return Math.max(0, acquired.get() - connects.get());
+        }
+
+        @Override
+        public String toString() {
+            return "acquired=" + acquired.get()
+                    + ", connects=" + connects.get()
+                    + ", tls=" + tlsHandshakes.get()
+                    + ", reused=" + getReused();
+        }
+    }
+
+    private final ConcurrentHashMap<String, HostStats> hosts = new ConcurrentHashMap<>();
+
+    private HostStats statsFor(Call call) {
+        return hosts.computeIfAbsent(call.request().url().host(), host -> new HostStats());
+    }
+
+    @Override
+    public void connectStart(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress, @NonNull Proxy proxy) {
+        statsFor(call).connects.incrementAndGet();
+    }
+
+    @Override
+    public void secureConnectStart(@NonNull Call call) {
+        statsFor(call).tlsHandshakes.incrementAndGet();
+    }
+
+    @Override
+    public void connectionAcquired(@NonNull Call call, @NonNull Connection connection) {
+        statsFor(call).acquired.incrementAndGet();
+    }
+
+    public Map<String, HostStats> getHostStats() {
+        return hosts;
+    }
+
+    public String getStatsSummary() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, HostStats> entry : hosts.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append("; ");
+            }
+            sb.append(entry.getKey()).append(" {").append(entry.getValue()).append('}');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,319 @@
+package com.baidu.carplayer.network;
+
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.baidu.carplayer.model.DownloadLinkResponse;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * 下载链接解析器 - 单例模式
+ * 将当前歌曲与后续N首歌曲的fsId合并为一次filemetas请求，并在内存中按dlink有效期缓存结果
+ * 切歌时优先命中缓存，无需再次请求网络；播放出现403/链接过期时可调用invalidate强制刷新
+ */
+public class DownloadLinkResolver {
+    private static final String TAG = "DownloadLinkResolver";
+
+    // 百度网盘dlink有效期为8小时，提前5分钟视为过期
+    public static final long DLINK_TTL_MS = 8 * 60 * 60 * 1000L;
+    private static final long EXPIRY_MARGIN_MS = 5 * 60 * 1000L;
+
+    // 单次filemetas请求最多携带的fsId数量（接口上限100）
+    public static final int MAX_BATCH_SIZE = 100;
+    // 内存中最多缓存的链接数量，超出时淘汰最久未使用的
+    public static final int MAX_CACHED_LINKS = 300;
+
+    private static volatile DownloadLinkResolver instance;
+
+    private final BaiduPanService panService;
+    private final LruCache<Long, CachedLink> linkCache = new LruCache<>(MAX_CACHED_LINKS);
+    // 正在请求中的fsId及等待结果的回调，避免同一fsId重复请求
+    private final Map<Long, List<ResolveCallback>> inFlight = new ConcurrentHashMap<>();
+
+    // 统计信息
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong batchRequests = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * 解析回调
+     */
+    public interface ResolveCallback {
+        void onResolved(String urlWithToken);
+        void onError(String message, @Nullable Throwable cause);
+    }
+
+    /**
+     * 缓存的下载链接
+     */
+    private static class CachedLink {
+        final String dlink;
+        final long expiresAt;
+
+        CachedLink(String dlink, long expiresAt) {
+            this.dlink = dlink;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isValid() {
+            return SystemClock.elapsedRealtime() < expiresAt - EXPIRY_MARGIN_MS;
+        }
+    }
+
+    private DownloadLinkResolver() {
+        this.panService = RetrofitClient.getPanApiInstance().create(BaiduPanService.class);
+    }
+
+    public static DownloadLinkResolver getInstance() {
+        if (instance == null) {
+            synchronized (DownloadLinkResolver.class) {
+                if (instance == null) {
+                    instance = new DownloadLinkResolver();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 解析下载链接
+     * @param accessToken 访问令牌，附加在返回的链接上
+     * @param fsId 需要立即播放的歌曲
+     * @param upcomingFsIds 按播放顺序排列的后续歌曲，未缓存的会合并到同一次请求中
+     * @param callback 结果回调（Retrofit回调线程，Android上为主线程）
+     */
+    public void resolve(String accessToken, long fsId, @Nullable List<Long> upcomingFsIds, ResolveCallback callback) {
+        String cachedUrl = getCachedUrl(accessToken, fsId);
+        if (cachedUrl != null) {
+            cacheHits.incrementAndGet();
+            Log.d(TAG, "下载链接缓存命中: fsId=" + fsId);
+            callback.onResolved(cachedUrl);
+            // 顺便补齐后续歌曲的链接
+            if (upcomingFsIds != null && !upcomingFsIds.isEmpty()) {
+                prefetch(accessToken, upcomingFsIds);
+            }
+            return;
+        }
+        cacheMisses.incrementAndGet();
+
+        synchronized (inFlight) {
+            List<ResolveCallback> waiting = inFlight.get(fsId);
+            if (waiting != null) {
+                // 该fsId已在请求中，等待同一结果
+                waiting.add(callback);
+                return;
+            }
+            List<ResolveCallback> callbacks = new ArrayList<>();
+            callbacks.add(callback);
+            inFlight.put(fsId, callbacks);
+        }
+
+        Set<Long> batch = new LinkedHashSet<>();
+        batch.add(fsId);
+        if (upcomingFsIds != null) {
+            for (Long id : upcomingFsIds) {
+                if (batch.size() >= MAX_BATCH_SIZE) {
+                    break;
+                }
+                if (id != null && !hasValidLink(id) && !inFlight.containsKey(id)) {
+                    batch.add(id);
+                }
+            }
+        }
+        requestBatch(accessToken, batch);
+    }
+
+    /**
+     * 预取一组歌曲的下载链接（已缓存或请求中的会被跳过）
+     */
+    public void prefetch(String accessToken, List<Long> fsIds) {
+        Set<Long> batch = new LinkedHashSet<>();
+        for (Long id : fsIds) {
+            if (batch.size() >= MAX_BATCH_SIZE) {
+                break;
+            }
+            if (id != null && !hasValidLink(id) && !inFlight.containsKey(id)) {
+                batch.add(id);
+            }
+        }
+        if (!batch.isEmpty()) {
+            requestBatch(accessToken, batch);
+        }
+    }
+
+    /**
+     * 同步获取缓存中的有效链接（已附加access_token），不存在或已过期返回null
+     */
+    @Nullable
+    public String getCachedUrl(String accessToken, long fsId) {
+        CachedLink link = linkCache.get(fsId);
+        if (link == null) {
+            return null;
+        }
+        if (!link.isValid()) {
+            linkCache.remove(fsId);
+            return null;
+        }
+        return appendToken(link.dlink, accessToken);
+    }
+
+    public boolean hasValidLink(long fsId) {
+        CachedLink link = linkCache.get(fsId);
+        return link != null && link.isValid();
+    }
+
+    /**
+     * 使某首歌曲的缓存链接失效（例如播放时返回403或链接过期）
+     */
+    public void invalidate(long fsId) {
+        if (linkCache.remove(fsId) != null) {
+            invalidations.incrementAndGet();
+            Log.d(TAG, "下载链接已失效: fsId=" + fsId);
+        }
+    }
+
+    /**
+     * 清空全部缓存（例如切换账号时）
+     */
+    public void clear() {
+        linkCache.evictAll();
+    }
+
+    /**
+     * 清除已过期的链接，避免长时间播放后缓存中堆积无效条目
+     */
+    private void removeExpiredLinks() {
+        for (Map.Entry<Long, CachedLink> entry : linkCache.snapshot().entrySet()) {
+            if (!entry.getValue().isValid()) {
+                linkCache.remove(entry.getKey());
+            }
+        }
+    }
+
+    private void requestBatch(String accessToken, Set<Long> batch) {
+        // 注意：百度网盘API要求 fsids 参数为 JSON 数组格式，例如 "[900294067865041,900294067865042]"
+        StringBuilder fsidsJson = new StringBuilder("[");
+        for (Long id : batch) {
+            if (fsidsJson.length() > 1) {
+                fsidsJson.append(',');
+            }
+            fsidsJson.append(id);
+            synchronized (inFlight) {
+                if (!inFlight.containsKey(id)) {
+                    inFlight.put(id, new ArrayList<>());
+                }
+            }
+        }
+        fsidsJson.append(']');
+        batchRequests.incrementAndGet();
+        Log.d(TAG, "批量获取下载链接: " + batch.size() + " 个, fsids=" + fsidsJson);
+
+        // 必须添加 dlink=1 参数才能获取下载链接
+        panService.getFileDownloadLink("filemetas", accessToken, fsidsJson.toString(), 1)
+                .enqueue(new Callback<DownloadLinkResponse>() {
+                    @Override
+                    public void onResponse(@NonNull Call<DownloadLinkResponse> call, @NonNull Response<DownloadLinkResponse> response) {
+                        if (response.isSuccessful() && response.body() != null) {
+                            DownloadLinkResponse body = response.body();
+                            if (body.getErrno() == 0 && body.getList() != null) {
+                                removeExpiredLinks();
+                                long expiresAt = SystemClock.elapsedRealtime() + DLINK_TTL_MS;
+                                for (DownloadLinkResponse.FileInfo info : body.getList()) {
+                                    if (info.getDlink() != null && !info.getDlink().isEmpty()) {
+                                        linkCache.put(info.getFsId(), new CachedLink(info.getDlink(), expiresAt));
+                                    }
+                                }
+                                completeBatch(accessToken, batch, "获取下载链接失败", null);
+                            } else {
+                                Log.e(TAG, "获取下载链接失败，errno=" + body.getErrno());
+                                completeBatch(accessToken, batch, "获取下载链接失败", null);
+                            }
+                        } else {
+                            Log.e(TAG, "API响应失败: " + response.code());
+                            completeBatch(accessToken, batch, "API响应失败", null);
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(@NonNull Call<DownloadLinkResponse> call, @NonNull Throwable t) {
+                        Log.e(TAG, "获取下载链接网络请求失败", t);
+                        completeBatch(accessToken, batch, "网络请求失败: " + t.getMessage(), t);
+                    }
+                });
+    }
+
+    /**
+     * 批量请求结束，通知所有等待的回调
+     */
+    private void completeBatch(String accessToken, Set<Long> batch, String errorMessage, @Nullable Throwable cause) {
+        for (Long id : batch) {
+            List<ResolveCallback> callbacks;
+            synchronized (inFlight) {
+                callbacks = inFlight.remove(id);
+            }
+            if (callbacks == null || callbacks.isEmpty()) {
+                continue;
+            }
+            String url = getCachedUrl(accessToken, id);
+            for (ResolveCallback callback : callbacks) {
+                if (url != null) {
+                    callback.onResolved(url);
+                } else {
+                    callback.onError(errorMessage, cause);
+                }
+            }
+        }
+    }
+
+    private static String appendToken(String dlink, String accessToken) {
+        // 百度网盘下载链接需要附加 access_token 参数
+        return dlink + (dlink.contains("?") ? "&" : "?") + "access_token=" + accessToken;
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    public long getBatchRequests() {
+        return batchRequests.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    public int getCachedLinkCount() {
+        return linkCache.size();
+    }
+
+    /**
+     * 获取统计摘要（用于日志）
+     */
+    public String getStatsSummary() {
+        return "links=" + linkCache.size()
+                + ", hits=" + cacheHits.get()
+                + ", misses=" + cacheMisses.get()
+                + ", batches=" + batchRequests.get()
+                + ", invalidations=" + invalidations.get();
+    }
+}
@@ -0,0 +1,144 @@
+package com.baidu.carplayer.network;
+
+import com.baidu.carplayer.model.FileItem;
+import com.baidu.carplayer.model.SidecarFile;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+
+import okhttp3.ResponseBody;
+
+/**
+ * 文件列表流式解析器
+ * 直接从响应流中逐项解析 getFileList 的结果，不经过Gson生成完整的 FileListResponse：
+ * - 只读取 server_filename/path/size/isdir/fs_id/md5，其余字段（thumbs、category等）直接跳过
+ * - 解析过程中即过滤，只有文件夹、音频文件和伴随文件（歌词、封面、CUE）会创建 FileItem 并回调，其他文件不分配对象
+ * - 每解析完一项立即回调，调用方可以在整页下载完成前开始处理（如提交子文件夹扫描）
+ * 需配合 @Streaming 接口在后台线程调用
+ */
+public class FileListStreamParser {
+
+    /**
+     * 解析回调（在解析线程中调用）
+     */
+    public interface Listener {
+        void onDirectory(FileItem directory);
+
+        void onAudioFile(FileItem file);
+
+        /**
+         * 伴随文件（歌词、封面、CUE），不需要的调用方可以忽略
+         */
+        default void onSidecarFile(FileItem file) {
+        }
+    }
+
+    /**
+     * 解析结果
+     */
+    public static class Result {
+        private int errno;
+        private int itemCount;
+
+        public int getErrno() {
+            return errno;
+        }
+
+        /**
+         * 列表中的条目总数（含被过滤掉的文件），用于判断是否还有下一页
+         */
+        public int getItemCount() {
+            return itemCount;
+        }
+
+        public boolean isSuccess() {
+            return errno == 0;
+        }
+    }
+
+    private FileListStreamParser() {
+    }
+
+    /**
+     * 解析响应体并关闭它
+     */
+    public static Result parse(ResponseBody body, Listener listener) throws IOException {
+        try (JsonReader reader = new JsonReader(body.charStream())) {
+            reader.setLenient(true);
+            return parse(reader, listener);
+        }
+    }
+
+    private static Result parse(JsonReader reader, Listener listener) throws IOException {
+        Result result = new Result();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("errno".equals(name)) {
+                result.errno = reader.nextInt();
+            } else if ("list".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    readItem(reader, listener);
+                    result.itemCount++;
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return result;
+    }
+
+    private static void readItem(JsonReader reader, Listener listener) throws IOException {
+        String filename = null;
+        String path = null;
+        String md5 = null;
+        long size = 0;
+        long fsId = 0;
+        boolean isDir = false;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "server_filename":
+                    filename = reader.nextString();
+                    break;
+                case "path":
+                    path = reader.nextString();
+                    break;
+                case "md5":
+                    md5 = reader.nextString();
+                    break;
+                case "size":
+                    size = reader.nextLong();
+                    break;
+                case "fs_id":
+                    fsId = reader.nextLong();
+                    break;
+                case "isdir":
+                    isDir = reader.nextInt() == 1;
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (isDir) {
+            listener.onDirectory(new FileItem(filename, path, size, true, fsId, md5));
+        } else if (FileItem.isAudioFileName(filename)) {
+            listener.onAudioFile(new FileItem(filename, path, size, false, fsId, md5));
+        } else if (SidecarFile.typeForName(filename) != SidecarFile.TYPE_NONE) {
+            listener.onSidecarFile(new FileItem(filename, path, size, false, fsId, md5));
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.baidu.carplayer.network;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+/**
+ * 网络请求采样跟踪
+ * 作为OkHttp的EventListener.Factory，按采样率为请求记录 DNS/连接/TLS/首字节/响应体 各阶段耗时，
+ * 请求结束后写入固定大小的环形缓冲区，可随时导出查看
+ * 未被采样的请求只转发给 ConnectionStats 统计连接复用，没有额外开销
+ */
+public class NetworkTrace implements EventListener.Factory {
+
+    /**
+     * 跟踪级别
+     */
+    public enum Level {
+        // 不记录
+        NONE,
+        // 只记录请求总耗时和结果
+        BASIC,
+        // 记录各阶段耗时
+        TIMINGS
+    }
+
+    public static final int DEFAULT_CAPACITY = 200;
+
+    private final ConnectionStats connectionStats;
+    private final TraceRecord[] ring;
+    private int ringNext = 0;
+    private int ringSize = 0;
+
+    private volatile Level level;
+    private volatile int samplePercent;
+
+    private final AtomicLong callCount = new AtomicLong();
+    private final AtomicLong sampledCount = new AtomicLong();
+
+    public NetworkTrace(ConnectionStats connectionStats, Level level, int samplePercent) {
+        this(connectionStats, level, samplePercent, DEFAULT_CAPACITY);
+    }
+
+    public NetworkTrace(ConnectionStats connectionStats, Level level, int samplePercent, int capacity) {
+        this.connectionStats = connectionStats;
+        this.ring = new TraceRecord[capacity];
+        this.level = level;
+        this.samplePercent = samplePercent;
+    }
+
+    @NonNull
+    @Override
+    public EventListener create(@NonNull Call call) {
+        callCount.incrementAndGet();
+        int percent = samplePercent;
+        if (level == Level.NONE || percent <= 0
+                || (percent < 100 && ThreadLocalRandom.current().nextInt(100) >= percent)) {
+            return connectionStats;
+        }
+        sampledCount.incrementAndGet();
+        return new CallTracer(call, level);
+    }
+
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * 设置采样率（0-100）
+     */
+    public void setSamplePercent(int samplePercent) {
+        this.samplePercent = Math.max(0, Math.min(100, samplePercent));
+    }
+
+    public int getSamplePercent() {
+        return samplePercent;
+    }
+
+    private synchronized void add(TraceRecord record) {
+        ring[ringNext] = record;
+        ringNext = (ringNext + 1) % ring.length;
+        if (ringSize < ring.length) {
+            ringSize++;
+        }
+    }
+
+    /**
+     * 获取缓冲区中的记录（按时间从旧到新）
+     */
+    public synchronized List<TraceRecord> getRecords() {
+        List<TraceRecord> records = new ArrayList<>(ringSize);
+        int start = (ringNext - ringSize + ring.length) % ring.length;
+        for (int i = 0; i < ringSize; i++) {
+            records.add(ring[(start + i) % ring.length]);
+        }
+        return records;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < ring.length; i++) {
+            ring[i] = null;
+        }
+        ringNext = 0;
+        ringSize = 0;
+    }
+
+    public long getCallCount() {
+        return callCount.get();
+    }
+
+    public long getSampledCount() {
+        return sampledCount.get();
+    }
+
+    public String getStatsSummary() {
+        return "level=" + level + ", sample=" + samplePercent + "%"
+                + ", sampled=" + sampledCount.get() + "/" + callCount.get();
+    }
+
+    /**
+     * 导出所有记录（用于调试页面或日志），最新的记录在前
+     */
+    public String dump() {
+        List<TraceRecord> records = getRecords();
+        StringBuilder sb = new StringBuilder();
+        sb.append(getStatsSummary()).append('\n');
+        for (int i = records.size() - 1; i >= 0; i--) {
+            sb.append(records.get(i)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 单个请求的跟踪记录，耗时单位为毫秒，未经历的阶段为-1
+     */
+    public static class TraceRecord {
+        private static final SimpleDateFormat TIME_FORMAT = new SimpleDateFormat("HH:mm:ss.SSS", Locale.US);
+
+        public final long startTime;
+        public final String method;
+        public final String host;
+        public final String path;
+        public int code = -1;
+        public String protocol;
+        public boolean reusedConnection = true;
+        public long dnsMs = -1;
+        public long connectMs = -1;
+        public long tlsMs = -1;
+        public long ttfbMs = -1;
+        public long bodyMs = -1;
+        public long bodyBytes = -1;
+        public long totalMs = -1;
+        public String error;
+
+        TraceRecord(long startTime, String method, String host, String path) {
+            this.startTime = startTime;
+            this.method = method;
+            this.host = host;
+            this.path = path;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            synchronized (TIME_FORMAT) {
+                sb.append(TIME_FORMAT.format(new Date(startTime)));
+            }
+            sb.append(' ').append(method).append(' ').append(host).append(path)
+                    .append(" -> ").append(error != null ? error : String.valueOf(code))
+                    .append(", total=").append(totalMs).append("ms");
+            if (ttfbMs >= 0) {
+                sb.append(", ttfb=").append(ttfbMs).append("ms");
+            }
+            if (dnsMs >= 0) {
+                sb.append(", dns=").append(dnsMs).append("ms");
+            }
+            if (connectMs >= 0) {
+                sb.append(", connect=").append(connectMs).append("ms");
+            }
+            if (tlsMs >= 0) {
+                sb.append(", tls=").append(tlsMs).append("ms");
+            }
+            if (bodyMs >= 0) {
+                sb.append(", body=").append(bodyMs).append("ms/").append(bodyBytes).append("B");
+            }
+            if (protocol != null) {
+                sb.append(", ").append(protocol);
+            }
+            sb.append(reusedConnection ? ", reused" : ", new-conn");
+            return sb.toString();
+        }
+    }
+
+    /**
+     * 单个被采样请求的监听器，连接相关事件同时转发给 ConnectionStats
+     */
+    private class CallTracer extends EventListener {
+        private final Level callLevel;
+        private final TraceRecord record;
+        private final long callStartNanos = System.nanoTime();
+        private long dnsStartNanos;
+        private long connectStartNanos;
+        private long tlsStartNanos;
+        private long requestStartNanos;
+        private long bodyStartNanos;
+
+        CallTracer(Call call, Level callLevel) {
+            this.callLevel = callLevel;
+            this.record = new TraceRecord(System.currentTimeMillis(), call.request().method(),
+                    call.request().url().host(), call.request().url().encodedPath());
+        }
+
+        private long elapsedMs(long startNanos) {
+            return (System.nanoTime() - startNanos) / 1_000_000;
+        }
+
+        @Override
+        public void dnsStart(@NonNull Call call, @NonNull String domainName) {
+            dnsStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(@NonNull Call call, @NonNull String domainName, @NonNull List<InetAddress> inetAddressList) {
+            if (callLevel == Level.TIMINGS) {
+                record.dnsMs = elapsedMs(dnsStartNanos);
+            }
+        }
+
+        @Override
+        public void connectStart(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress, @NonNull Proxy proxy) {
+            connectionStats.connectStart(call, inetSocketAddress, proxy);
+            connectStartNanos = System.nanoTime();
+            record.reusedConnection = false;
+        }
+
+        @Override
+        public void secureConnectStart(@NonNull Call call) {
+            connectionStats.secureConnectStart(call);
+            tlsStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectEnd(@NonNull Call call, Handshake handshake) {
+            if (callLevel == Level.TIMINGS) {
+                record.tlsMs = elapsedMs(tlsStartNanos);
+            }
+        }
+
+        @Override
+        public void connectEnd(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress,
+                               @NonNull Proxy proxy, Protocol protocol) {
+            if (callLevel == Level.TIMINGS) {
+                record.connectMs = elapsedMs(connectStartNanos);
+            }
+        }
+
+        @Override
+        public void connectionAcquired(@NonNull Call call, @NonNull Connection connection) {
+            connectionStats.connectionAcquired(call, connection);
+            record.protocol = connection.protocol().toString();
+        }
+
+        @Override
+        public void requestHeadersStart(@NonNull Call call) {
+            requestStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void responseHeadersEnd(@NonNull Call call, @NonNull Response response) {
+            record.code = response.code();
+            if (callLevel == Level.TIMINGS) {
+                record.ttfbMs = elapsedMs(requestStartNanos);
+            }
+        }
+
+        @Override
+        public void responseBodyStart(@NonNull Call call) {
+            bodyStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void responseBodyEnd(@NonNull Call call, long byteCount) {
+            if (callLevel == Level.TIMINGS) {
+                record.bodyMs = elapsedMs(bodyStartNanos);
+                record.bodyBytes = byteCount;
+            }
+        }
+
+        @Override
+        public void callEnd(@NonNull Call call) {
+            record.totalMs = elapsedMs(callStartNanos);
+            add(record);
+        }
+
+        @Override
+        public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+            record.totalMs = elapsedMs(callStartNanos);
+            record.error = ioe.getClass().getSimpleName() + ": " + ioe.getMessage();
+            add(record);
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.baidu.carplayer.network;
 
+import com.baidu.carplayer.BuildConfig;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
 import java.util.concurrent.TimeUnit;
 
+import okhttp3.ConnectionPool;
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
@@ -13,11 +15,96 @@ import retrofit2.converter.gson.GsonConverterFactory;
 /**
  * Retrofit客户端封装
  * 针对车载环境进行了优化
+ * 所有网络请求（Retrofit、歌词下载、ExoPlayer音频流）共用同一个OkHttpClient的连接池、
+ * DNS缓存和线程池，连接与TLS会话可以跨用途复用
  */
 public class RetrofitClient {
     
+    // 连接池：最多保留8个空闲连接，空闲5分钟后关闭（车机切歌间隔内保持连接可复用）
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    public static final String USER_AGENT = "pan.baidu.com";
+    
+    private static volatile OkHttpClient sharedHttpClient;
+    private static final CachingDns cachingDns = new CachingDns();
+    private static final ConnectionStats connectionStats = new ConnectionStats();
+    // 采样跟踪，级别和采样率按构建类型配置；未采样的请求只经过 ConnectionStats
+    private static final NetworkTrace networkTrace = new NetworkTrace(connectionStats,
+            NetworkTrace.Level.valueOf(BuildConfig.NETWORK_TRACE_LEVEL),
+            BuildConfig.NETWORK_TRACE_SAMPLE_PERCENT);
+    
     private static volatile Retrofit panApiInstance;
     private static volatile Retrofit oauthInstance;
+    private static volatile AccessTokenProvider accessTokenProvider;
+    
+    /**
+     * 注册访问令牌提供者，Pan API请求会通过它自动刷新并替换过期令牌
+     */
+    public static void setAccessTokenProvider(AccessTokenProvider provider) {
+        accessTokenProvider = provider;
+    }
+    
+    public static AccessTokenProvider getAccessTokenProvider() {
+        return accessTokenProvider;
+    }
+    
+    /**
+     * 获取共享的OkHttpClient（不含Retrofit专用的拦截器）
+     * 歌词下载、ExoPlayer数据源直接使用；Retrofit实例在此基础上通过newBuilder添加拦截器，
+     * newBuilder派生的客户端与其共享连接池和调度器
+     */
+    public static OkHttpClient getHttpClient() {
+        if (sharedHttpClient == null) {
+            synchronized (RetrofitClient.class) {
+                if (sharedHttpClient == null) {
+                    sharedHttpClient = new OkHttpClient.Builder()
+                            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                            .dns(cachingDns)
+                            .eventListenerFactory(networkTrace)
+                            // 设置超时时间 - 车载环境网络可能不稳定，适当增加
+                            .connectTimeout(ApiConstants.CONNECT_TIMEOUT, TimeUnit.MILLISECONDS)
+                            .readTimeout(ApiConstants.READ_TIMEOUT, TimeUnit.MILLISECONDS)
+                            .writeTimeout(ApiConstants.WRITE_TIMEOUT, TimeUnit.MILLISECONDS)
+                            // 百度网盘下载链接要求 User-Agent 为 pan.baidu.com
+                            .addInterceptor(chain -> {
+                                okhttp3.Request original = chain.request();
+                                okhttp3.Request request = original.newBuilder()
+                                        .header("User-Agent", USER_AGENT)
+                                        // 移除 Accept-Encoding: gzip，让 OkHttp 自动处理 Gzip 压缩和解压
+                                        .method(original.method(), original.body())
+                                        .build();
+                                return chain.proceed(request);
+                            })
+                            .build();
+                }
+            }
+        }
+        return sharedHttpClient;
+    }
+    
+    public static CachingDns getDns() {
+        return cachingDns;
+    }
+    
+    public static ConnectionStats getConnectionStats() {
+        return connectionStats;
+    }
+    
+    public static NetworkTrace getNetworkTrace() {
+        return networkTrace;
+    }
+    
+    /**
+     * 获取连接复用及DNS缓存统计摘要（用于日志）
+     */
+    public static String getStatsSummary() {
+        OkHttpClient client = getHttpClient();
+        return "pool[idle=" + client.connectionPool().idleConnectionCount()
+                + ", total=" + client.connectionPool().connectionCount() + "]"
+                + ", dns[" + cachingDns.getStatsSummary() + "]"
+                + ", hosts[" + connectionStats.getStatsSummary() + "]"
+                + ", trace[" + networkTrace.getStatsSummary() + "]";
+    }
     
     /**
      * 获取百度网盘API的Retrofit实例
@@ -26,7 +113,7 @@ public class RetrofitClient {
         if (panApiInstance == null) {
             synchronized (RetrofitClient.class) {
                 if (panApiInstance == null) {
-                    panApiInstance = createRetrofit(ApiConstants.PAN_API_BASE_URL);
+                    panApiInstance = createRetrofit(ApiConstants.PAN_API_BASE_URL, true);
                 }
             }
         }
@@ -47,7 +134,8 @@ public class RetrofitClient {
         if (oauthInstance == null) {
             synchronized (RetrofitClient.class) {
                 if (oauthInstance == null) {
-                    oauthInstance = createRetrofit(ApiConstants.OAUTH_BASE_URL);
+                    // OAuth接口本身用于刷新令牌，不能再经过令牌刷新拦截器
+                    oauthInstance = createRetrofit(ApiConstants.OAUTH_BASE_URL, false);
                 }
             }
         }
@@ -57,33 +145,26 @@ public class RetrofitClient {
     /**
      * 创建Retrofit实例
      * 针对车载环境优化了超时时间和重试机制
+     * @param refreshToken 是否添加令牌刷新拦截器
      */
-    private static Retrofit createRetrofit(String baseUrl) {
-        OkHttpClient.Builder httpClientBuilder = new OkHttpClient.Builder();
+    private static Retrofit createRetrofit(String baseUrl, boolean refreshToken) {
+        OkHttpClient.Builder httpClientBuilder = getHttpClient().newBuilder();
         
-        // 添加日志拦截器（仅调试模式）
-        HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
-        loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-        httpClientBuilder.addInterceptor(loggingInterceptor);
-        
-        // 设置超时时间 - 车载环境网络可能不稳定，适当增加
-        httpClientBuilder.connectTimeout(ApiConstants.CONNECT_TIMEOUT, TimeUnit.MILLISECONDS);
-        httpClientBuilder.readTimeout(ApiConstants.READ_TIMEOUT, TimeUnit.MILLISECONDS);
-        httpClientBuilder.writeTimeout(ApiConstants.WRITE_TIMEOUT, TimeUnit.MILLISECONDS);
+        // 添加日志拦截器（级别按构建类型配置，不使用BODY级别：会把整页文件列表缓冲成字符串输出）
+        HttpLoggingInterceptor.Level logLevel = HttpLoggingInterceptor.Level.valueOf(BuildConfig.HTTP_LOG_LEVEL);
+        if (logLevel != HttpLoggingInterceptor.Level.NONE) {
+            HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
+            loggingInterceptor.setLevel(logLevel);
+            httpClientBuilder.addInterceptor(loggingInterceptor);
+        }
         
-        // 添加User-Agent和重试拦截器
-        httpClientBuilder.addInterceptor(chain -> {
-            okhttp3.Request original = chain.request();
-            okhttp3.Request request = original.newBuilder()
-                    .header("User-Agent", "pan.baidu.com")
-                    // 移除 Accept-Encoding: gzip，让 OkHttp 自动处理 Gzip 压缩和解压
-                    .method(original.method(), original.body())
-                    .build();
-            return chain.proceed(request);
-        });
+        // 添加令牌刷新拦截器 - 令牌过期时刷新并重放请求，避免带着失效令牌反复重试
+        if (refreshToken) {
+            httpClientBuilder.addInterceptor(new TokenRefreshInterceptor());
+        }
         
         // 添加重试拦截器 - 车载环境网络不稳定，自动重试
-        httpClientBuilder.addInterceptor(new RetryInterceptor(3));
+        httpClientBuilder.addInterceptor(new RetryInterceptor());
         
         OkHttpClient client = httpClientBuilder.build();
         
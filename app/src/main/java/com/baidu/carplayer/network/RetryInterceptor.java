@@ -1,6 +1,12 @@
 package com.baidu.carplayer.network;
 
+import android.util.Log;
+
 import java.io.IOException;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import okhttp3.Interceptor;
 import okhttp3.Request;
@@ -8,57 +14,165 @@ import okhttp3.Response;
 
 /**
  * 重试拦截器 - 处理车载环境网络不稳定的情况
+ * - 按接口选择重试策略（RetryPolicy），重试次数和退避总时间都有预算
+ * - 退避使用去相关抖动，响应带 Retry-After 时优先遵循（超出预算则不再重试）
+ * - 每个主机一个熔断器，网络中断时快速失败，恢复后通过半开探测自动关闭
+ * 熔断器和统计信息在所有实例间共享
  */
 public class RetryInterceptor implements Interceptor {
-    
-    private final int maxRetries;
-    private final long retryDelayMs;
-    
-    public RetryInterceptor(int maxRetries) {
-        this.maxRetries = maxRetries;
-        this.retryDelayMs = 1000;
-    }
-    
+    private static final String TAG = "RetryInterceptor";
+
+    // 连续失败5次打开熔断器，15秒后半开探测
+    private static final int BREAKER_FAILURE_THRESHOLD = 5;
+    private static final long BREAKER_OPEN_DURATION_MS = 15000;
+
+    private static final ConcurrentHashMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, AtomicLong> retryCounts = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, AtomicLong> exhaustedCounts = new ConcurrentHashMap<>();
+    private static final AtomicLong retryAfterCount = new AtomicLong();
+
+    private final Random random = new Random();
+
     @Override
     public Response intercept(Chain chain) throws IOException {
         Request request = chain.request();
-        Response response = null;
-        IOException exception = null;
-        
+        RetryPolicy policy = RetryPolicy.forPath(request.url().encodedPath());
+        CircuitBreaker breaker = breakers.computeIfAbsent(request.url().host(),
+                host -> new CircuitBreaker(host, BREAKER_FAILURE_THRESHOLD, BREAKER_OPEN_DURATION_MS));
+        // 只重试幂等请求
+        boolean idempotent = "GET".equals(request.method()) || "HEAD".equals(request.method());
+
+        long delayBudget = policy.getBudgetMs();
+        long previousDelay = 0;
         int tryCount = 0;
-        while (tryCount <= maxRetries) {
+        while (true) {
+            if (!breaker.allowRequest()) {
+                throw new IOException("Circuit open for " + request.url().host());
+            }
+
+            Response response = null;
+            IOException exception = null;
             try {
                 response = chain.proceed(request);
-                if (response.isSuccessful()) {
-                    return response;
-                } else {
-                    // 如果是5xx服务器错误，尝试重试
-                    if (response.code() >= 500) {
-                        response.close();
-                    } else {
-                        // 4xx客户端错误，不重试
-                        return response;
-                    }
-                }
             } catch (IOException e) {
                 exception = e;
             }
-            
-            tryCount++;
-            if (tryCount <= maxRetries) {
-                try {
-                    Thread.sleep(retryDelayMs * tryCount);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    throw new IOException("Interrupted during retry", e);
+
+            if (exception != null && chain.call().isCanceled()) {
+                // 主动取消（如切歌时取消歌词请求）不代表网络故障，不影响熔断器
+                breaker.recordCancelled();
+                throw exception;
+            }
+
+            boolean serverError = response != null && response.code() >= 500;
+            if (exception != null || serverError) {
+                breaker.recordFailure();
+            } else {
+                breaker.recordSuccess();
+            }
+
+            boolean retryable = exception != null || serverError
+                    || (response != null && (response.code() == 408 || response.code() == 429));
+            if (!retryable) {
+                return response;
+            }
+
+            // 计算退避时间：优先使用 Retry-After
+            long delay = policy.nextDelay(previousDelay, random);
+            long retryAfter = response != null ? parseRetryAfter(response) : -1;
+            if (retryAfter >= 0) {
+                retryAfterCount.incrementAndGet();
+                delay = retryAfter;
+            }
+
+            boolean canRetry = idempotent
+                    && tryCount < policy.getMaxRetries()
+                    && delay <= delayBudget
+                    && !chain.call().isCanceled()
+                    && breaker.getState() == CircuitBreaker.State.CLOSED;
+            if (!canRetry) {
+                exhaustedCounts.computeIfAbsent(policy.getName(), key -> new AtomicLong()).incrementAndGet();
+                if (response != null) {
+                    return response;
                 }
+                throw exception;
+            }
+
+            if (response != null) {
+                response.close();
+            }
+            tryCount++;
+            retryCounts.computeIfAbsent(policy.getName(), key -> new AtomicLong()).incrementAndGet();
+            Log.d(TAG, "重试 " + policy.getName() + " 第 " + tryCount + " 次, 等待 " + delay + "ms, "
+                    + (exception != null ? exception.getMessage() : "code=" + response.code()));
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted during retry", e);
             }
+            delayBudget -= delay;
+            previousDelay = delay;
+        }
+    }
+
+    /**
+     * 解析 Retry-After 头（秒数或HTTP日期），没有或无法解析返回-1
+     */
+    private static long parseRetryAfter(Response response) {
+        String value = response.header("Retry-After");
+        if (value == null || value.isEmpty()) {
+            return -1;
         }
-        
-        if (response != null) {
-            return response;
-        } else {
-            throw exception != null ? exception : new IOException("Unknown error");
+        try {
+            return Math.max(0, Long.parseLong(value.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            Date date = response.headers().getDate("Retry-After");
+            return date != null ? Math.max(0, date.getTime() - System.currentTimeMillis()) : -1;
+        }
+    }
+
+    /**
+     * 获取主机的熔断器状态，没有请求过该主机时返回 CLOSED
+     */
+    public static CircuitBreaker.State getBreakerState(String host) {
+        CircuitBreaker breaker = breakers.get(host);
+        return breaker != null ? breaker.getState() : CircuitBreaker.State.CLOSED;
+    }
+
+    /**
+     * 获取策略的累计重试次数
+     */
+    public static long getRetryCount(String policyName) {
+        AtomicLong counter = retryCounts.get(policyName);
+        return counter != null ? counter.get() : 0;
+    }
+
+    /**
+     * 获取策略的重试预算耗尽（放弃重试）次数
+     */
+    public static long getExhaustedCount(String policyName) {
+        AtomicLong counter = exhaustedCounts.get(policyName);
+        return counter != null ? counter.get() : 0;
+    }
+
+    /**
+     * 获取统计摘要（用于日志）
+     */
+    public static String getStatsSummary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("retries=").append(retryCounts)
+                .append(", exhausted=").append(exhaustedCounts)
+                .append(", retryAfter=").append(retryAfterCount.get())
+                .append(", breakers=[");
+        boolean first = true;
+        for (CircuitBreaker breaker : breakers.values()) {
+            if (!first) {
+                sb.append(", ");
+            }
+            sb.append(breaker.getStatsSummary());
+            first = false;
         }
+        return sb.append(']').toString();
     }
-}
\ No newline at end of file
+}
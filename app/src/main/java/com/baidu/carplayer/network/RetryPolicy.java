@@ -0,0 +1,85 @@
+package com.baidu.carplayer.network;
+
+import java.util.Random;
+
+/**
+ * 重试策略 - 按接口配置重试预算
+ * 退避时间使用去相关抖动（decorrelated jitter）：delay = min(cap, random(base, previous * 3))，
+ * 避免大量请求在网络恢复时同时重试
+ */
+public class RetryPolicy {
+
+    // 文件列表、搜索：刷新列表时批量调用，可以多等一会
+    public static final RetryPolicy FILE = new RetryPolicy(ApiConstants.ENDPOINT_FILE, 3, 500, 4000, 8000);
+    // 下载链接：影响切歌出声，快速失败
+    public static final RetryPolicy MULTIMEDIA = new RetryPolicy(ApiConstants.ENDPOINT_MULTIMEDIA, 2, 300, 2000, 3000);
+    // 令牌：失败会导致后续所有请求失败，允许更多重试
+    public static final RetryPolicy TOKEN = new RetryPolicy(ApiConstants.ENDPOINT_TOKEN, 4, 1000, 8000, 20000);
+    public static final RetryPolicy DEFAULT = new RetryPolicy("default", 2, 500, 4000, 6000);
+
+    private final String name;
+    private final int maxRetries;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final long budgetMs;
+
+    /**
+     * @param name 策略名称（用于统计）
+     * @param maxRetries 最大重试次数
+     * @param baseDelayMs 最小退避时间
+     * @param maxDelayMs 单次退避时间上限
+     * @param budgetMs 单个请求所有退避时间的总预算，超出后不再重试
+     */
+    public RetryPolicy(String name, int maxRetries, long baseDelayMs, long maxDelayMs, long budgetMs) {
+        this.name = name;
+        this.maxRetries = maxRetries;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.budgetMs = budgetMs;
+    }
+
+    /**
+     * 根据请求路径选择策略
+     */
+    public static RetryPolicy forPath(String path) {
+        if (path == null) {
+            return DEFAULT;
+        }
+        if (path.endsWith(ApiConstants.ENDPOINT_MULTIMEDIA)) {
+            return MULTIMEDIA;
+        }
+        if (path.endsWith(ApiConstants.ENDPOINT_FILE)) {
+            return FILE;
+        }
+        if (path.endsWith(ApiConstants.ENDPOINT_TOKEN)) {
+            return TOKEN;
+        }
+        return DEFAULT;
+    }
+
+    /**
+     * 计算下一次退避时间
+     * @param previousDelayMs 上一次退避时间，第一次重试传0
+     */
+    public long nextDelay(long previousDelayMs, Random random) {
+        long upper = Math.max(baseDelayMs, previousDelayMs * 3);
+        long delay = baseDelayMs + (long) (random.nextDouble() * (upper - baseDelayMs));
+        return Math.min(maxDelayMs, delay);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public long getMaxDelayMs() {
+        return maxDelayMs;
+    }
+
+    public long getBudgetMs() {
+        return budgetMs;
+    }
+}
@@ -0,0 +1,103 @@
+package com.baidu.carplayer.network;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 令牌刷新拦截器 - 处理URL中携带的 access_token
+ * - 请求前：令牌已过期时先同步刷新；URL中的令牌已被其他请求刷新时替换为最新令牌
+ * - 响应后：识别令牌失效（HTTP 401 或 errno 111/-6），刷新令牌后用新令牌重放一次请求
+ * 并发请求同时遇到令牌失效时，由 AccessTokenProvider 合并为一次刷新
+ */
+public class TokenRefreshInterceptor implements Interceptor {
+    private static final String TAG = "TokenRefreshInterceptor";
+    private static final String PARAM_ACCESS_TOKEN = "access_token";
+
+    // 百度网盘接口：111 = access token 失效，-6 = 身份验证失败
+    private static final int ERRNO_TOKEN_EXPIRED = 111;
+    private static final int ERRNO_AUTH_FAILED = -6;
+    // errno 位于响应开头，只预读少量字节判断，避免复制大响应体
+    private static final long PEEK_BYTES = 512;
+    private static final Pattern PATTERN_ERRNO = Pattern.compile("\"errno\"\\s*:\\s*(-?\\d+)");
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        AccessTokenProvider provider = RetrofitClient.getAccessTokenProvider();
+        String requestToken = request.url().queryParameter(PARAM_ACCESS_TOKEN);
+        if (provider == null || requestToken == null) {
+            return chain.proceed(request);
+        }
+
+        // 请求前检查：令牌过期则先刷新，URL中是旧令牌则替换
+        String token = requestToken;
+        if (provider.isAccessTokenExpired()) {
+            String refreshed = provider.refreshAccessTokenBlocking(token);
+            if (refreshed != null) {
+                token = refreshed;
+            }
+        } else {
+            String current = provider.getAccessToken();
+            if (current != null && !current.isEmpty()) {
+                token = current;
+            }
+        }
+        if (!token.equals(requestToken)) {
+            request = withToken(request, token);
+        }
+
+        Response response = chain.proceed(request);
+        if (!isTokenExpired(response)) {
+            return response;
+        }
+
+        provider.recordTokenExpiredFailure();
+        Log.w(TAG, "访问令牌失效，刷新后重试: " + request.url().encodedPath());
+        String refreshed = provider.refreshAccessTokenBlocking(token);
+        if (refreshed == null || refreshed.equals(token)) {
+            return response;
+        }
+        response.close();
+        return chain.proceed(withToken(request, refreshed));
+    }
+
+    private static Request withToken(Request request, String token) {
+        HttpUrl url = request.url().newBuilder()
+                .setQueryParameter(PARAM_ACCESS_TOKEN, token)
+                .build();
+        return request.newBuilder().url(url).build();
+    }
+
+    private static boolean isTokenExpired(Response response) throws IOException {
+        if (response.code() == 401) {
+            return true;
+        }
+        if (response.body() == null) {
+            return false;
+        }
+        // 百度接口的Content-Type并不总是json，只排除音频等二进制内容
+        MediaType contentType = response.body().contentType();
+        if (contentType != null && ("audio".equals(contentType.type()) || "octet-stream".equals(contentType.subtype()))) {
+            return false;
+        }
+        Matcher matcher = PATTERN_ERRNO.matcher(response.peekBody(PEEK_BYTES).string());
+        if (!matcher.find()) {
+            return false;
+        }
+        try {
+            int errno = Integer.parseInt(matcher.group(1));
+            return errno == ERRNO_TOKEN_EXPIRED || errno == ERRNO_AUTH_FAILED;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
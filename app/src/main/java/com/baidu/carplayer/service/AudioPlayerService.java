@@ -29,14 +29,19 @@ import androidx.core.app.NotificationManagerCompat;
 import com.baidu.carplayer.MainActivity;
 import com.baidu.carplayer.R;
 import com.baidu.carplayer.auth.BaiduAuthService;
-import com.baidu.carplayer.model.DownloadLinkResponse;
-import com.baidu.carplayer.network.BaiduPanService;
+import com.baidu.carplayer.database.DataExecutor;
+import com.baidu.carplayer.manager.AudioCacheManager;
+import com.baidu.carplayer.manager.LyricsManager;
+import com.baidu.carplayer.network.DownloadLinkResolver;
 import com.baidu.carplayer.network.RetrofitClient;
 import androidx.media3.common.MediaItem;
 import androidx.media3.common.PlaybackException;
 import androidx.media3.common.Player;
+import androidx.media3.datasource.HttpDataSource;
 import androidx.media3.exoplayer.ExoPlayer;
 import androidx.media3.exoplayer.DefaultRenderersFactory;
+import androidx.media3.exoplayer.analytics.AnalyticsListener;
+import androidx.media3.exoplayer.source.DefaultMediaSourceFactory;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
@@ -49,10 +54,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
-
 /**
  * 音频播放服务 - 使用Media3(ExoPlayer)实现音频播放
  * Media3提供更好的性能和更完善的格式支持，包括ALAC
@@ -64,8 +65,12 @@ public class AudioPlayerService extends Service {
     private static final String CHANNEL_ID = "audio_player_channel";
     private static final int NOTIFICATION_ID = 1;
     private static final String PREFS_NAME = "AudioPlayerPrefs";
-    private static final String KEY_PLAYLIST = "playlist";
+    // 旧版本将整个播放列表以JSON保存在该键下，仅用于升级迁移
+    private static final String KEY_LEGACY_PLAYLIST = "playlist";
+    private static final String KEY_QUEUE_SIZE = "queue_size";
     private static final String KEY_CURRENT_POSITION = "current_position";
+    private static final String KEY_CURRENT_FS_ID = "current_fs_id";
+    private static final String KEY_CURRENT_PLAYLIST_ID = "current_playlist_id";
     private static final String KEY_PLAYBACK_PROGRESS = "playback_progress";
     private static final String KEY_PLAY_MODE = "play_mode";
     private static final String KEY_IS_PLAYING = "is_playing";
@@ -93,13 +98,39 @@ public class AudioPlayerService extends Service {
     // 百度网盘认证服务
     private BaiduAuthService authService;
     
-    // 持久化相关
+    // 音频磁盘缓存
+    private AudioCacheManager audioCacheManager;
+    
+    // 下载链接解析（批量请求 + 按有效期缓存）
+    private DownloadLinkResolver downloadLinkResolver;
+    private static final int LINK_PREFETCH_COUNT = 5; // 解析当前歌曲时一并获取的后续歌曲数量
+    private long expiredLinkRetryFsId = -1;           // 已因链接过期重试过的歌曲，避免循环重试
+    
+    // 歌词预取：切歌时在后台低优先级加载后续歌曲的歌词
+    private LyricsManager lyricsManager;
+    private static final int LYRICS_PREFETCH_COUNT = 3;
+    
+    // 持久化相关：队列只在变化时写入PlayQueueStore，定时保存只写位置、进度和模式
     private SharedPreferences sharedPreferences;
-    private Gson gson;
+    private PlayQueueStore playQueueStore;
+    private boolean playbackStateRestored = false;
+    private final List<Runnable> restoreCallbacks = new ArrayList<>();
+    // 冷启动时先只加载当前歌曲组成的临时队列，完整队列在后台补全后替换
+    private List<com.baidu.carplayer.model.Song> placeholderQueue = null;
+    private boolean restoredPlaybackPending = false;  // 冷启动已自动开始加载当前歌曲，尚未出声
     
     // 待处理的seek位置（用于冷启动恢复播放进度）
     private Long pendingSeekPosition = null;
     
+    // 下一首预加载相关
+    private int prefetchedPosition = -1;          // 已加入ExoPlayer队列的下一首在列表中的位置
+    private int prefetchedShufflePosition = -1;   // 已预加载歌曲对应的洗牌序列位置
+    private int prefetchGeneration = 0;           // 预加载代次，列表/模式/切歌变化时递增以丢弃过期结果
+    private boolean prefetchRequested = false;    // 当前曲目是否已发起预加载
+    
+    // 播放性能指标（切歌延迟）
+    private final PlaybackMetrics playbackMetrics = new PlaybackMetrics();
+    
     // 定时保存进度
     private final android.os.Handler progressSaveHandler = new android.os.Handler(Looper.getMainLooper());
     private static final long PROGRESS_SAVE_INTERVAL = 5000; // 每5秒保存一次进度
@@ -136,10 +167,15 @@ public class AudioPlayerService extends Service {
     @Override
     public void onCreate() {
         super.onCreate();
-        authService = new BaiduAuthService(this);
+        playbackMetrics.markServiceCreated();
+        authService = BaiduAuthService.getInstance(this);
         sharedPreferences = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        gson = new Gson();
+        playQueueStore = new PlayQueueStore(this);
+        audioCacheManager = AudioCacheManager.getInstance(this);
+        downloadLinkResolver = DownloadLinkResolver.getInstance();
+        lyricsManager = new LyricsManager(this);
         initializePlayer();
+        playbackMetrics.markStartupPhase(PlaybackMetrics.PHASE_PLAYER_INITIALIZED);
         createNotificationChannel();
         // setupAudioFocus(); // 移除手动设置，ExoPlayer 自动处理
         setupMediaSession();
@@ -164,9 +200,10 @@ public class AudioPlayerService extends Service {
                         .setContentType(androidx.media3.common.C.AUDIO_CONTENT_TYPE_MUSIC)
                         .build();
 
-        // 创建ExoPlayer实例
+        // 创建ExoPlayer实例，数据源经过磁盘缓存（以fsId为缓存键）
         exoPlayer = new ExoPlayer.Builder(this)
             .setRenderersFactory(renderersFactory)
+            .setMediaSourceFactory(new DefaultMediaSourceFactory(audioCacheManager.createDataSourceFactory()))
             .setSeekBackIncrementMs(5000)
             .setSeekForwardIncrementMs(5000)
             .setAudioAttributes(audioAttributes, true) // 启用自动音频焦点管理
@@ -175,6 +212,7 @@ public class AudioPlayerService extends Service {
         Log.d(TAG, "ExoPlayer初始化完成，已配置AudioAttributes和自动焦点管理");
         Log.d(TAG, "已启用解码器回退机制");
         Log.d(TAG, "扩展渲染器模式: ON (启用扩展解码器)");
+        Log.d(TAG, "音频缓存: " + audioCacheManager.getStatsSummary());
         
         playerListener = new Player.Listener() {
             @Override
@@ -211,6 +249,9 @@ public class AudioPlayerService extends Service {
                             pendingSeekPosition = null;
                         }
                         
+                        // 当前曲目就绪后预加载下一首
+                        prefetchNextSong();
+                        
                         // 检查播放状态
                         Log.d(TAG, "========== 播放状态检查 ==========");
                         Log.d(TAG, "播放状态: " + (exoPlayer.getPlayWhenReady() ? "播放中" : "已暂停"));
@@ -255,6 +296,23 @@ public class AudioPlayerService extends Service {
                 updateNotification();
             }
             
+            @Override
+            public void onIsPlayingChanged(boolean isPlaying) {
+                if (isPlaying) {
+                    playbackMetrics.markTransitionPlaying();
+                    expiredLinkRetryFsId = -1;
+                    restoredPlaybackPending = false;
+                }
+            }
+            
+            @Override
+            public void onMediaItemTransition(@Nullable MediaItem mediaItem, int reason) {
+                if (reason == Player.MEDIA_ITEM_TRANSITION_REASON_AUTO
+                        || reason == Player.MEDIA_ITEM_TRANSITION_REASON_SEEK) {
+                    onQueuedItemTransition(reason);
+                }
+            }
+            
             @Override
             public void onPlayerError(@NonNull PlaybackException error) {
                 Log.e(TAG, "========== 播放错误 ==========");
@@ -266,6 +324,12 @@ public class AudioPlayerService extends Service {
                 }
                 Log.e(TAG, "================================");
                 
+                // 下载链接过期（403等）时刷新链接并从当前位置重试一次，用户无感知
+                if (retryWithFreshLink(error)) {
+                    return;
+                }
+                restoredPlaybackPending = false;
+                
                 if (playbackStateListener != null) {
                     playbackStateListener.onPlayerError(error);
                 }
@@ -282,6 +346,14 @@ public class AudioPlayerService extends Service {
         };
         
         exoPlayer.addListener(playerListener);
+        
+        // 音频输出位置开始推进即首帧出声，用于统计冷启动耗时
+        exoPlayer.addAnalyticsListener(new AnalyticsListener() {
+            @Override
+            public void onAudioPositionAdvancing(@NonNull EventTime eventTime, long playoutStartSystemTimeMs) {
+                playbackMetrics.markStartupPhase(PlaybackMetrics.PHASE_FIRST_AUDIO);
+            }
+        });
     }
     
     /**
@@ -391,8 +463,18 @@ public class AudioPlayerService extends Service {
      * ExoPlayer 2.19.1对ALAC等格式有更好的支持
      */
     public void play(String url) {
+        play(url, null);
+    }
+    
+    /**
+     * 播放音频
+     * @param url 播放地址
+     * @param cacheKey 磁盘缓存键（通常由fsId生成），null表示按URL缓存
+     */
+    public void play(String url, @Nullable String cacheKey) {
         Log.d(TAG, "========== 开始播放音频 ==========");
         Log.d(TAG, "URL: " + url);
+        Log.d(TAG, "缓存键: " + cacheKey);
         
         // 检测文件扩展名以识别音频格式
         String fileExtension = "";
@@ -432,7 +514,9 @@ public class AudioPlayerService extends Service {
         // if (requestAudioFocus()) {
             // Log.d(TAG, "✓ 音频焦点获取成功");
             
-            MediaItem mediaItem = MediaItem.fromUri(url);
+            // setMediaItem会清空队列，之前的预加载项随之失效
+            invalidatePrefetch();
+            MediaItem mediaItem = buildMediaItem(url, cacheKey);
             exoPlayer.setMediaItem(mediaItem);
             
             Log.d(TAG, "准备播放器...");
@@ -474,6 +558,21 @@ public class AudioPlayerService extends Service {
         // }
     }
     
+    /**
+     * 构建播放项
+     * @param url 播放地址
+     * @param cacheKey 磁盘缓存键，同时作为mediaId
+     */
+    private MediaItem buildMediaItem(String url, @Nullable String cacheKey) {
+        MediaItem.Builder builder = new MediaItem.Builder()
+                .setUri(url)
+                .setCustomCacheKey(cacheKey);
+        if (cacheKey != null) {
+            builder.setMediaId(cacheKey);
+        }
+        return builder.build();
+    }
+    
     /**
      * 播放（继续播放）
      */
@@ -489,9 +588,16 @@ public class AudioPlayerService extends Service {
      */
     public void setPlaylist(List<com.baidu.carplayer.model.Song> playlist) {
         this.playlist = playlist;
+        placeholderQueue = null;
         // 重置洗牌序列
         shuffledIndices = null;
         shufflePosition = -1;
+        invalidatePrefetch();
+        // 队列变化时才重写队列文件
+        if (playlist != null && !playlist.isEmpty()) {
+            playQueueStore.saveAsync(playlist);
+            sharedPreferences.edit().putInt(KEY_QUEUE_SIZE, playlist.size()).apply();
+        }
         savePlaybackState(); // 保存播放状态
     }
     
@@ -524,6 +630,8 @@ public class AudioPlayerService extends Service {
         
         currentPosition = position;
         pendingSeekPosition = seekToPosition;
+        invalidatePrefetch();
+        playbackMetrics.markTransitionStart(false);
         Log.d(TAG, "========== playAtPosition ==========");
         Log.d(TAG, "位置: " + position);
         Log.d(TAG, "seekToPosition: " + seekToPosition);
@@ -557,72 +665,299 @@ public class AudioPlayerService extends Service {
      */
     private void playFromBaiduPan(com.baidu.carplayer.model.Song song) {
         Log.d(TAG, "准备播放歌曲: " + song.getTitle() + ", fsId=" + song.getFsId());
+        prefetchUpcomingLyrics();
         
+        resolveDownloadUrl(song, new DownloadUrlCallback() {
+            @Override
+            public void onResolved(String urlWithToken) {
+                // 使用带token的下载链接播放，缓存键使用fsId，避免dlink过期导致缓存失效
+                playbackMetrics.markStartupPhase(PlaybackMetrics.PHASE_LINK_RESOLVED);
+                audioCacheManager.recordTrackLookup(song.getFsId());
+                play(urlWithToken, AudioCacheManager.cacheKeyFor(song.getFsId()));
+            }
+            
+            @Override
+            public void onError(String message, @Nullable Throwable cause) {
+                restoredPlaybackPending = false;
+                if (playbackStateListener != null) {
+                    playbackStateListener.onPlayerError(
+                        new PlaybackException(message, cause, PlaybackException.ERROR_CODE_UNSPECIFIED)
+                    );
+                }
+            }
+        });
+    }
+    
+    /**
+     * 下载链接解析回调
+     */
+    private interface DownloadUrlCallback {
+        void onResolved(String urlWithToken);
+        void onError(String message, @Nullable Throwable cause);
+    }
+    
+    /**
+     * 获取歌曲的下载链接（已附加access_token）
+     * 通过DownloadLinkResolver批量获取当前及后续歌曲的链接，已缓存的直接返回
+     */
+    private void resolveDownloadUrl(com.baidu.carplayer.model.Song song, DownloadUrlCallback callback) {
         String accessToken = authService.getAccessToken();
         if (accessToken == null) {
             Log.e(TAG, "无法获取访问令牌");
-            if (playbackStateListener != null) {
-                playbackStateListener.onPlayerError(
-                    new PlaybackException("无法获取访问令牌", null, PlaybackException.ERROR_CODE_UNSPECIFIED)
-                );
-            }
+            callback.onError("无法获取访问令牌", null);
             return;
         }
         
-        // 获取下载链接
-        // 注意：百度网盘API要求 fsids 参数为 JSON 数组格式，例如 "[900294067865041]"
-        // 必须添加 dlink=1 参数才能获取下载链接
-        String fsidsJson = "[" + song.getFsId() + "]";
-        RetrofitClient.getPanApiInstance()
-            .create(BaiduPanService.class)
-            .getFileDownloadLink("filemetas", accessToken, fsidsJson, 1)  // 添加 dlink=1 参数
-            .enqueue(new Callback<DownloadLinkResponse>() {
+        downloadLinkResolver.resolve(accessToken, song.getFsId(), getUpcomingFsIds(LINK_PREFETCH_COUNT),
+            new DownloadLinkResolver.ResolveCallback() {
                 @Override
-                public void onResponse(@NonNull Call<DownloadLinkResponse> call, @NonNull Response<DownloadLinkResponse> response) {
-                    if (response.isSuccessful() && response.body() != null) {
-                        DownloadLinkResponse downloadResponse = response.body();
-                        // 下载链接在 list 数组的第一个元素中
-                        if (downloadResponse.getErrno() == 0 && downloadResponse.getList() != null
-                                && !downloadResponse.getList().isEmpty()) {
-                            String downloadUrl = downloadResponse.getList().get(0).getDlink();
-                            Log.d(TAG, "获取下载链接成功: " + downloadUrl);
-                            
-                            // 百度网盘下载链接需要附加 access_token 参数
-                            String urlWithToken = downloadUrl + (downloadUrl.contains("?") ? "&" : "?") + "access_token=" + accessToken;
-                            Log.d(TAG, "带token的下载链接: " + urlWithToken);
-                            
-                            // 使用带token的下载链接播放
-                            play(urlWithToken);
-                        } else {
-                            Log.e(TAG, "获取下载链接失败，errno=" + downloadResponse.getErrno());
-                            if (playbackStateListener != null) {
-                                playbackStateListener.onPlayerError(
-                                    new PlaybackException("获取下载链接失败", null, PlaybackException.ERROR_CODE_UNSPECIFIED)
-                                );
-                            }
-                        }
-                    } else {
-                        Log.e(TAG, "API响应失败: " + response.code());
-                        if (playbackStateListener != null) {
-                            playbackStateListener.onPlayerError(
-                                new PlaybackException("API响应失败", null, PlaybackException.ERROR_CODE_UNSPECIFIED)
-                            );
-                        }
-                    }
+                public void onResolved(String urlWithToken) {
+                    Log.d(TAG, "获取下载链接成功: fsId=" + song.getFsId() + ", " + downloadLinkResolver.getStatsSummary());
+                    Log.d(TAG, "网络连接: " + RetrofitClient.getStatsSummary());
+                    callback.onResolved(urlWithToken);
                 }
                 
                 @Override
-                public void onFailure(@NonNull Call<DownloadLinkResponse> call, @NonNull Throwable t) {
-                    Log.e(TAG, "获取下载链接网络请求失败", t);
-                    if (playbackStateListener != null) {
-                        playbackStateListener.onPlayerError(
-                            new PlaybackException("网络请求失败: " + t.getMessage(), t, PlaybackException.ERROR_CODE_UNSPECIFIED)
-                        );
-                    }
+                public void onError(String message, @Nullable Throwable cause) {
+                    callback.onError(message, cause);
                 }
             });
     }
     
+    /**
+     * 按当前播放顺序获取后续若干首歌曲的fsId（单曲循环时为空）
+     */
+    private List<Long> getUpcomingFsIds(int count) {
+        List<com.baidu.carplayer.model.Song> songs = getUpcomingSongs(count);
+        List<Long> result = new ArrayList<>(songs.size());
+        for (com.baidu.carplayer.model.Song song : songs) {
+            result.add(song.getFsId());
+        }
+        return result;
+    }
+    
+    /**
+     * 按当前播放顺序获取后续若干首歌曲（不含当前歌曲，单曲循环时为空）
+     */
+    private List<com.baidu.carplayer.model.Song> getUpcomingSongs(int count) {
+        List<com.baidu.carplayer.model.Song> result = new ArrayList<>();
+        if (playlist == null || playlist.isEmpty() || playMode == PlayMode.SINGLE) {
+            return result;
+        }
+        int size = playlist.size();
+        for (int i = 1; i <= count && i < size; i++) {
+            int position;
+            if (playMode == PlayMode.RANDOM) {
+                if (shuffledIndices == null || shuffledIndices.size() != size
+                        || shufflePosition < 0 || shufflePosition + i >= shuffledIndices.size()) {
+                    break;
+                }
+                position = shuffledIndices.get(shufflePosition + i);
+            } else {
+                position = (currentPosition + i) % size;
+            }
+            result.add(playlist.get(position));
+        }
+        return result;
+    }
+    
+    /**
+     * 预取后续歌曲的歌词（当前歌曲的歌词由播放界面加载）
+     * 播放顺序变化时，不再需要的预取任务会被取消
+     */
+    private void prefetchUpcomingLyrics() {
+        if (lyricsManager != null) {
+            lyricsManager.prefetch(getUpcomingSongs(LYRICS_PREFETCH_COUNT));
+        }
+    }
+    
+    /**
+     * 播放错误是否由下载链接失效引起（HTTP 403/410等）
+     */
+    private static boolean isExpiredLinkError(PlaybackException error) {
+        Throwable cause = error.getCause();
+        while (cause != null) {
+            if (cause instanceof HttpDataSource.InvalidResponseCodeException) {
+                int code = ((HttpDataSource.InvalidResponseCodeException) cause).responseCode;
+                return code == 403 || code == 404 || code == 410;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+    
+    /**
+     * 下载链接失效时刷新链接并从当前进度重新播放
+     * @return 是否已发起重试
+     */
+    private boolean retryWithFreshLink(PlaybackException error) {
+        com.baidu.carplayer.model.Song song = getCurrentSong();
+        if (song == null || !isExpiredLinkError(error) || expiredLinkRetryFsId == song.getFsId()) {
+            return false;
+        }
+        Log.w(TAG, "下载链接可能已过期，刷新后重试: fsId=" + song.getFsId());
+        expiredLinkRetryFsId = song.getFsId();
+        downloadLinkResolver.invalidate(song.getFsId());
+        long resumePosition = exoPlayer != null ? exoPlayer.getCurrentPosition() : 0;
+        playAtPosition(currentPosition, false, resumePosition > 0 ? resumePosition : null);
+        return true;
+    }
+    
+    /**
+     * 按当前播放模式计算下一首的位置（不修改播放状态）
+     * @return {列表位置, 洗牌序列位置}，无法确定时返回null
+     */
+    @Nullable
+    private int[] peekNextPosition() {
+        if (playlist == null || playlist.isEmpty()) {
+            return null;
+        }
+        
+        switch (playMode) {
+            case RANDOM:
+                // 洗牌序列尚未生成或一轮即将结束（会重新洗牌）时无法预知下一首
+                if (shuffledIndices == null || shuffledIndices.size() != playlist.size()
+                        || shufflePosition < 0 || shufflePosition + 1 >= shuffledIndices.size()) {
+                    return null;
+                }
+                return new int[]{shuffledIndices.get(shufflePosition + 1), shufflePosition + 1};
+            case SINGLE:
+                // 单曲循环：下一首仍是当前歌曲
+                return new int[]{currentPosition, shufflePosition};
+            case ORDER:
+            default:
+                return new int[]{(currentPosition + 1) % playlist.size(), shufflePosition};
+        }
+    }
+    
+    /**
+     * 预加载下一首：提前解析下载链接并加入ExoPlayer队列，实现无缝切换
+     */
+    private void prefetchNextSong() {
+        if (prefetchRequested || exoPlayer == null || exoPlayer.getMediaItemCount() == 0) {
+            return;
+        }
+        // 冷启动队列尚未补全，补全后再预加载
+        if (isQueueHydrating()) {
+            return;
+        }
+        int[] next = peekNextPosition();
+        if (next == null) {
+            return;
+        }
+        
+        prefetchRequested = true;
+        final int generation = prefetchGeneration;
+        final com.baidu.carplayer.model.Song nextSong = playlist.get(next[0]);
+        Log.d(TAG, "预加载下一首: " + nextSong.getTitle() + ", position=" + next[0]);
+        
+        resolveDownloadUrl(nextSong, new DownloadUrlCallback() {
+            @Override
+            public void onResolved(String urlWithToken) {
+                if (generation != prefetchGeneration || exoPlayer == null || exoPlayer.getMediaItemCount() == 0) {
+                    Log.d(TAG, "预加载结果已过期，丢弃: " + nextSong.getTitle());
+                    return;
+                }
+                removeQueuedItems();
+                exoPlayer.addMediaItem(buildMediaItem(urlWithToken, AudioCacheManager.cacheKeyFor(nextSong.getFsId())));
+                prefetchedPosition = next[0];
+                prefetchedShufflePosition = next[1];
+                Log.d(TAG, "下一首已加入播放队列: " + nextSong.getTitle());
+            }
+            
+            @Override
+            public void onError(String message, @Nullable Throwable cause) {
+                // 预加载失败不影响当前播放，播放结束时会按原流程重新获取
+                Log.w(TAG, "预加载下一首失败: " + message);
+            }
+        });
+    }
+    
+    /**
+     * 移除ExoPlayer队列中当前曲目之后的项
+     */
+    private void removeQueuedItems() {
+        if (exoPlayer == null) {
+            return;
+        }
+        int nextIndex = exoPlayer.getCurrentMediaItemIndex() + 1;
+        int count = exoPlayer.getMediaItemCount();
+        if (count > nextIndex) {
+            exoPlayer.removeMediaItems(nextIndex, count);
+        }
+    }
+    
+    /**
+     * 使已有的预加载失效（播放列表、播放模式或当前曲目变化时调用）
+     */
+    private void invalidatePrefetch() {
+        prefetchGeneration++;
+        prefetchRequested = false;
+        prefetchedPosition = -1;
+        prefetchedShufflePosition = -1;
+        removeQueuedItems();
+    }
+    
+    /**
+     * 若目标位置正是已预加载的歌曲，直接切换到队列中的下一项
+     * @return 是否已切换
+     */
+    private boolean tryPlayPrefetched(int position) {
+        if (exoPlayer == null || prefetchedPosition < 0 || prefetchedPosition != position
+                || !exoPlayer.hasNextMediaItem()) {
+            return false;
+        }
+        Log.d(TAG, "切换到已预加载的歌曲: position=" + position);
+        playbackMetrics.markTransitionStart(true);
+        pendingSeekPosition = null;
+        exoPlayer.seekToNextMediaItem();
+        exoPlayer.setPlayWhenReady(true);
+        return true;
+    }
+    
+    /**
+     * ExoPlayer切换到队列中的预加载项（自动衔接或手动切歌）
+     */
+    private void onQueuedItemTransition(int reason) {
+        if (exoPlayer == null || exoPlayer.getCurrentMediaItemIndex() == 0) {
+            return;
+        }
+        
+        // 同步播放位置到预加载的歌曲（手动切歌时位置通常已更新，这里保证一致）
+        if (prefetchedPosition >= 0) {
+            currentPosition = prefetchedPosition;
+            if (playMode == PlayMode.RANDOM && prefetchedShufflePosition >= 0) {
+                shufflePosition = prefetchedShufflePosition;
+            }
+        }
+        if (reason == Player.MEDIA_ITEM_TRANSITION_REASON_AUTO) {
+            playbackMetrics.recordGaplessTransition();
+        } else if (exoPlayer.isPlaying()) {
+            playbackMetrics.markTransitionPlaying();
+        }
+        
+        // 移除已播放的曲目，队列只保留当前曲目
+        exoPlayer.removeMediaItems(0, exoPlayer.getCurrentMediaItemIndex());
+        prefetchGeneration++;
+        prefetchRequested = false;
+        prefetchedPosition = -1;
+        prefetchedShufflePosition = -1;
+        
+        com.baidu.carplayer.model.Song song = getCurrentSong();
+        if (song != null) {
+            audioCacheManager.recordTrackLookup(song.getFsId());
+        }
+        savePlaybackState();
+        if (playbackStateListener != null) {
+            playbackStateListener.onPositionDiscontinuity();
+        }
+        updateNotification();
+        
+        // 继续预加载后续歌曲
+        prefetchNextSong();
+        prefetchUpcomingLyrics();
+    }
+    
     /**
      * 检查播放器是否实际加载了媒体项
      * @return true如果播放器有媒体项，false如果播放器为空
@@ -633,8 +968,10 @@ public class AudioPlayerService extends Service {
         }
         // 检查播放器是否有媒体项
         boolean hasMedia = exoPlayer.getMediaItemCount() > 0;
-        Log.d(TAG, "isPlayerReady: mediaItemCount=" + exoPlayer.getMediaItemCount() + ", hasMedia=" + hasMedia);
-        return hasMedia;
+        Log.d(TAG, "isPlayerReady: mediaItemCount=" + exoPlayer.getMediaItemCount() + ", hasMedia=" + hasMedia
+                + ", restoredPlaybackPending=" + restoredPlaybackPending);
+        // 冷启动时服务已自动开始加载当前歌曲，视为已就绪，避免重复加载
+        return hasMedia || restoredPlaybackPending;
     }
     
     /**
@@ -721,6 +1058,10 @@ public class AudioPlayerService extends Service {
                 break;
         }
         
+        // 下一首已预加载时直接切换，省去获取下载链接和建立连接的时间
+        if (tryPlayPrefetched(currentPosition)) {
+            return;
+        }
         playAtPosition(currentPosition);
     }
     
@@ -739,6 +1080,10 @@ public class AudioPlayerService extends Service {
         if (playMode == PlayMode.RANDOM) {
             generateShuffleOrder();
         }
+        // 播放顺序变化，重新预加载下一首
+        invalidatePrefetch();
+        prefetchNextSong();
+        prefetchUpcomingLyrics();
         savePlaybackState(); // 保存播放状态
     }
     
@@ -750,6 +1095,9 @@ public class AudioPlayerService extends Service {
         if (shuffle) {
             generateShuffleOrder();
         }
+        invalidatePrefetch();
+        prefetchNextSong();
+        prefetchUpcomingLyrics();
     }
     
     /**
@@ -828,10 +1176,10 @@ public class AudioPlayerService extends Service {
     }
     
     /**
-     * 下一曲
+     * 下一曲（与 playNext 相同，按播放模式切换并维护播放位置）
      */
     public void next() {
-        exoPlayer.seekToNext();
+        playNext();
     }
     
     /**
@@ -869,6 +1217,20 @@ public class AudioPlayerService extends Service {
         return exoPlayer.getPlayWhenReady() && exoPlayer.getPlaybackState() == Player.STATE_READY;
     }
     
+    /**
+     * 获取播放性能指标（切歌延迟等）
+     */
+    public PlaybackMetrics getPlaybackMetrics() {
+        return playbackMetrics;
+    }
+    
+    /**
+     * 获取音频缓存管理器（用于查看缓存大小、淘汰策略和命中统计）
+     */
+    public AudioCacheManager getAudioCacheManager() {
+        return audioCacheManager;
+    }
+    
     /**
      * 设置播放状态监听器
      */
@@ -960,6 +1322,10 @@ public class AudioPlayerService extends Service {
         super.onDestroy();
         stopProgressSave();
         savePlaybackState(); // 在服务销毁前保存状态
+        if (lyricsManager != null) {
+            lyricsManager.cancelPrefetch();
+            Log.d(TAG, "歌词: " + LyricsManager.getStatsSummary(this));
+        }
         if (exoPlayer != null) {
             exoPlayer.release();
             exoPlayer = null;
@@ -969,6 +1335,7 @@ public class AudioPlayerService extends Service {
     
     /**
      * 保存播放状态到 SharedPreferences
+     * 只保存当前位置、进度和模式等少量字段，播放队列由 setPlaylist 写入 PlayQueueStore
      */
     public void savePlaybackState() {
         if (playlist == null || playlist.isEmpty()) {
@@ -977,12 +1344,12 @@ public class AudioPlayerService extends Service {
         
         SharedPreferences.Editor editor = sharedPreferences.edit();
         
-        // 保存播放列表（序列化为 JSON）
-        String playlistJson = gson.toJson(playlist);
-        editor.putString(KEY_PLAYLIST, playlistJson);
-        
-        // 保存当前播放位置（歌曲在列表中的索引）
+        // 保存当前播放位置（歌曲在列表中的索引及其fsId，恢复时优先按fsId定位）
         editor.putInt(KEY_CURRENT_POSITION, currentPosition);
+        if (currentPosition >= 0 && currentPosition < playlist.size()) {
+            editor.putLong(KEY_CURRENT_FS_ID, playlist.get(currentPosition).getFsId());
+            editor.putString(KEY_CURRENT_PLAYLIST_ID, playlist.get(currentPosition).getPlaylistId());
+        }
         
         // 保存当前播放进度（毫秒）
         if (exoPlayer != null) {
@@ -1001,43 +1368,164 @@ public class AudioPlayerService extends Service {
     }
     
     /**
-     * 从 SharedPreferences 恢复播放状态
+     * 从 SharedPreferences 和 PlayQueueStore 恢复播放状态
+     * 分两步在读线程中完成，尽快出声：
+     * 1. 只查询当前歌曲，以它组成临时队列；若上次退出时正在播放，立即从保存的进度开始播放
+     * 2. 加载并补全完整队列，切回主线程替换临时队列，然后执行 whenPlaybackStateRestored 注册的回调
      */
     private void restorePlaybackState() {
-        // 恢复播放列表
-        String playlistJson = sharedPreferences.getString(KEY_PLAYLIST, null);
-        if (playlistJson != null) {
-            Type listType = new TypeToken<ArrayList<com.baidu.carplayer.model.Song>>(){}.getType();
-            playlist = gson.fromJson(playlistJson, listType);
-            
-            // 恢复当前播放位置
-            currentPosition = sharedPreferences.getInt(KEY_CURRENT_POSITION, 0);
-            
-            // 恢复播放模式
-            String playModeName = sharedPreferences.getString(KEY_PLAY_MODE, PlayMode.ORDER.name());
-            try {
-                playMode = PlayMode.valueOf(playModeName);
-            } catch (IllegalArgumentException e) {
-                playMode = PlayMode.ORDER;
+        // 恢复播放模式
+        String playModeName = sharedPreferences.getString(KEY_PLAY_MODE, PlayMode.ORDER.name());
+        try {
+            playMode = PlayMode.valueOf(playModeName);
+        } catch (IllegalArgumentException e) {
+            playMode = PlayMode.ORDER;
+        }
+        
+        if (!hasSavedPlaybackState()) {
+            Log.d(TAG, "没有保存的播放状态");
+            onPlaybackStateRestored();
+            return;
+        }
+        
+        int savedPosition = sharedPreferences.getInt(KEY_CURRENT_POSITION, 0);
+        long savedFsId = sharedPreferences.getLong(KEY_CURRENT_FS_ID, -1);
+        String savedPlaylistId = sharedPreferences.getString(KEY_CURRENT_PLAYLIST_ID, null);
+        long savedProgress = getSavedProgress();
+        boolean wasPlaying = sharedPreferences.getBoolean(KEY_IS_PLAYING, false);
+        DataExecutor.getInstance().executeRead(() -> {
+            // 1. 先加载当前歌曲并开始播放
+            com.baidu.carplayer.model.Song currentSong = savedPlaylistId != null
+                    ? playQueueStore.loadSong(savedPlaylistId, savedFsId) : null;
+            if (currentSong != null) {
+                DataExecutor.getInstance().postToMain(() -> startRestoredSong(currentSong, savedProgress, wasPlaying));
             }
             
+            // 2. 再补全完整队列
+            List<com.baidu.carplayer.model.Song> restored = loadSavedQueue();
+            DataExecutor.getInstance().postToMain(() -> onQueueHydrated(restored, savedPosition, savedFsId));
+        });
+    }
+    
+    /**
+     * 以当前歌曲组成临时队列，上次退出时正在播放则立即恢复播放
+     */
+    private void startRestoredSong(com.baidu.carplayer.model.Song song, long savedProgress, boolean wasPlaying) {
+        // 恢复期间已设置了新的播放列表时不覆盖
+        if (playlist != null) {
+            return;
+        }
+        playbackMetrics.markStartupPhase(PlaybackMetrics.PHASE_CURRENT_SONG_LOADED);
+        placeholderQueue = new ArrayList<>(Collections.singletonList(song));
+        playlist = placeholderQueue;
+        currentPosition = 0;
+        Log.d(TAG, "已加载当前歌曲: " + song.getTitle() + ", wasPlaying=" + wasPlaying + ", " + playbackMetrics.getStartupSummary());
+        
+        if (wasPlaying) {
+            restoredPlaybackPending = true;
+            playAtPosition(0, false, savedProgress > 0 ? savedProgress : null);
+        }
+    }
+    
+    /**
+     * 完整队列加载完成，替换临时队列（或在没有临时队列时直接使用）
+     */
+    private void onQueueHydrated(@Nullable List<com.baidu.carplayer.model.Song> restored, int savedPosition, long savedFsId) {
+        boolean usable = restored != null && !restored.isEmpty();
+        if (usable && (playlist == null || playlist == placeholderQueue)) {
+            playlist = restored;
+            currentPosition = findRestoredPosition(restored, savedPosition, savedFsId);
+            
             // 如果恢复的是随机模式，重新生成洗牌序列
             if (playMode == PlayMode.RANDOM) {
                 generateShuffleOrder();
             }
-            
-            Log.d(TAG, "播放状态已恢复: playlist size=" + (playlist != null ? playlist.size() : 0)
-                    + ", position=" + currentPosition + ", mode=" + playMode);
+        }
+        placeholderQueue = null;
+        playbackMetrics.markStartupPhase(PlaybackMetrics.PHASE_QUEUE_HYDRATED);
+        Log.d(TAG, "播放状态已恢复: playlist size=" + (playlist != null ? playlist.size() : 0)
+                + ", position=" + currentPosition + ", mode=" + playMode + ", " + playbackMetrics.getStartupSummary());
+        
+        // 队列补全后再预加载下一首
+        prefetchNextSong();
+        onPlaybackStateRestored();
+    }
+    
+    private boolean isQueueHydrating() {
+        return placeholderQueue != null && playlist == placeholderQueue;
+    }
+    
+    /**
+     * 读取保存的队列（后台线程），旧版本的JSON格式会被迁移到 PlayQueueStore
+     */
+    @Nullable
+    private List<com.baidu.carplayer.model.Song> loadSavedQueue() {
+        String legacyJson = sharedPreferences.getString(KEY_LEGACY_PLAYLIST, null);
+        if (legacyJson == null) {
+            return playQueueStore.load();
+        }
+        
+        Type listType = new TypeToken<ArrayList<com.baidu.carplayer.model.Song>>(){}.getType();
+        List<com.baidu.carplayer.model.Song> legacyQueue = null;
+        try {
+            legacyQueue = new Gson().fromJson(legacyJson, listType);
+        } catch (Exception e) {
+            Log.e(TAG, "解析旧版播放列表失败", e);
+        }
+        SharedPreferences.Editor editor = sharedPreferences.edit().remove(KEY_LEGACY_PLAYLIST);
+        if (legacyQueue != null && !legacyQueue.isEmpty()) {
+            playQueueStore.save(legacyQueue);
+            editor.putInt(KEY_QUEUE_SIZE, legacyQueue.size());
+        }
+        editor.apply();
+        Log.d(TAG, "旧版播放列表已迁移: " + (legacyQueue != null ? legacyQueue.size() : 0) + " 首");
+        return legacyQueue;
+    }
+    
+    /**
+     * 按fsId定位恢复后的当前歌曲（队列中部分歌曲可能已被删除），找不到时退回保存的索引
+     */
+    private static int findRestoredPosition(List<com.baidu.carplayer.model.Song> queue, int savedPosition, long savedFsId) {
+        if (savedPosition >= 0 && savedPosition < queue.size() && queue.get(savedPosition).getFsId() == savedFsId) {
+            return savedPosition;
+        }
+        for (int i = 0; i < queue.size(); i++) {
+            if (queue.get(i).getFsId() == savedFsId) {
+                return i;
+            }
+        }
+        return Math.max(0, Math.min(savedPosition, queue.size() - 1));
+    }
+    
+    private void onPlaybackStateRestored() {
+        playbackStateRestored = true;
+        List<Runnable> callbacks = new ArrayList<>(restoreCallbacks);
+        restoreCallbacks.clear();
+        for (Runnable callback : callbacks) {
+            callback.run();
+        }
+    }
+    
+    /**
+     * 播放状态恢复完成后在主线程执行回调（已完成时立即执行）
+     */
+    public void whenPlaybackStateRestored(Runnable callback) {
+        if (playbackStateRestored) {
+            callback.run();
         } else {
-            Log.d(TAG, "没有保存的播放状态");
+            restoreCallbacks.add(callback);
         }
     }
     
+    public boolean isPlaybackStateRestored() {
+        return playbackStateRestored;
+    }
+    
     /**
      * 检查是否有保存的播放状态
      */
     public boolean hasSavedPlaybackState() {
-        return sharedPreferences.contains(KEY_PLAYLIST);
+        return playQueueStore.exists() || sharedPreferences.contains(KEY_LEGACY_PLAYLIST);
     }
     
     /**
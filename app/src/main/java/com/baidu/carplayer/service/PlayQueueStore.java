@@ -0,0 +1,176 @@
+package com.baidu.carplayer.service;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.baidu.carplayer.database.DataExecutor;
+import com.baidu.carplayer.database.DatabaseManager;
+import com.baidu.carplayer.model.Song;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 播放队列持久化存储
+ * 队列以紧凑的二进制文件保存（播放列表ID表 + 按播放顺序排列的fsId），只在队列变化时重写；
+ * 歌曲的其余信息在恢复时按 (fsId, playlistId) 从Room中读取
+ *
+ * 文件格式：
+ * int MAGIC, int VERSION,
+ * int 播放列表数量, 每个播放列表ID(UTF),
+ * int 歌曲数量, 每首歌曲 long fsId + short 播放列表ID下标
+ */
+public class PlayQueueStore {
+    private static final String TAG = "PlayQueueStore";
+    private static final String FILE_NAME = "play_queue.bin";
+    private static final int MAGIC = 0x50515545; // "PQUE"
+    private static final int VERSION = 1;
+
+    private final File file;
+    private final DatabaseManager databaseManager;
+
+    public PlayQueueStore(Context context) {
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+        this.databaseManager = DatabaseManager.getInstance(context);
+    }
+
+    public boolean exists() {
+        return file.exists();
+    }
+
+    /**
+     * 异步保存队列（在写线程中执行，保证多次保存按提交顺序落盘）
+     */
+    public void saveAsync(List<Song> queue) {
+        List<Song> snapshot = new ArrayList<>(queue);
+        DataExecutor.getInstance().executeWrite(() -> save(snapshot));
+    }
+
+    /**
+     * 同步保存队列，先写临时文件再重命名，避免写入中断导致文件损坏
+     * 没有播放列表ID的歌曲无法从数据库恢复，不写入文件
+     */
+    public void save(List<Song> queue) {
+        long startTime = System.currentTimeMillis();
+        Map<String, Integer> playlistIndex = new LinkedHashMap<>();
+        List<Song> saved = new ArrayList<>(queue.size());
+        for (Song song : queue) {
+            String playlistId = song.getPlaylistId();
+            if (playlistId == null) {
+                continue;
+            }
+            if (!playlistIndex.containsKey(playlistId)) {
+                playlistIndex.put(playlistId, playlistIndex.size());
+            }
+            saved.add(song);
+        }
+        if (saved.size() < queue.size()) {
+            Log.w(TAG, "跳过 " + (queue.size() - saved.size()) + " 首没有播放列表ID的歌曲");
+        }
+
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(playlistIndex.size());
+            for (String playlistId : playlistIndex.keySet()) {
+                out.writeUTF(playlistId);
+            }
+            out.writeInt(saved.size());
+            for (Song song : saved) {
+                out.writeLong(song.getFsId());
+                out.writeShort(playlistIndex.get(song.getPlaylistId()));
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "保存播放队列失败", e);
+            tmpFile.delete();
+            return;
+        }
+
+        if (!tmpFile.renameTo(file)) {
+            Log.e(TAG, "保存播放队列失败: 无法重命名临时文件");
+            tmpFile.delete();
+            return;
+        }
+        Log.d(TAG, "播放队列已保存: " + saved.size() + " 首, " + file.length() + " 字节, 耗时 "
+                + (System.currentTimeMillis() - startTime) + "ms");
+    }
+
+    /**
+     * 加载队列并从数据库补全歌曲信息（阻塞，需在后台线程调用）
+     * 已从数据库中删除的歌曲会被跳过
+     * @return 队列，文件不存在或损坏时返回null
+     */
+    public List<Song> load() {
+        if (!file.exists()) {
+            return null;
+        }
+        long startTime = System.currentTimeMillis();
+        String[] playlistIds;
+        long[] fsIds;
+        short[] playlistIndexes;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                Log.w(TAG, "播放队列文件格式不匹配，忽略");
+                return null;
+            }
+            playlistIds = new String[in.readInt()];
+            for (int i = 0; i < playlistIds.length; i++) {
+                playlistIds[i] = in.readUTF();
+            }
+            int count = in.readInt();
+            fsIds = new long[count];
+            playlistIndexes = new short[count];
+            for (int i = 0; i < count; i++) {
+                fsIds[i] = in.readLong();
+                playlistIndexes[i] = in.readShort();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "读取播放队列失败", e);
+            return null;
+        }
+
+        // 每个播放列表只查询一次数据库
+        List<Map<Long, Song>> songsByPlaylist = new ArrayList<>(playlistIds.length);
+        for (String playlistId : playlistIds) {
+            Map<Long, Song> songs = new HashMap<>();
+            for (Song song : databaseManager.getSongsForPlaylist(playlistId)) {
+                songs.put(song.getFsId(), song);
+            }
+            songsByPlaylist.add(songs);
+        }
+
+        List<Song> queue = new ArrayList<>(fsIds.length);
+        for (int i = 0; i < fsIds.length; i++) {
+            Song song = songsByPlaylist.get(playlistIndexes[i]).get(fsIds[i]);
+            if (song != null) {
+                queue.add(song);
+            }
+        }
+        Log.d(TAG, "播放队列已加载: " + queue.size() + "/" + fsIds.length + " 首, 耗时 "
+                + (System.currentTimeMillis() - startTime) + "ms");
+        return queue;
+    }
+
+    /**
+     * 从数据库读取单首歌曲（阻塞，需在后台线程调用），用于冷启动时优先恢复当前歌曲
+     */
+    public Song loadSong(String playlistId, long fsId) {
+        return databaseManager.getDatabase().songDao().getSong(fsId, playlistId);
+    }
+
+    public void clear() {
+        file.delete();
+    }
+}
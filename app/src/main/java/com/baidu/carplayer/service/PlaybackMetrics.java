@@ -0,0 +1,158 @@
+package com.baidu.carplayer.service;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 播放性能指标统计
+ * - 切歌延迟（从请求切歌到新歌曲开始出声的时间），用于验证预加载效果
+ * - 冷启动各阶段耗时（从服务创建到首帧音频输出），用于验证延迟恢复效果
+ */
+public class PlaybackMetrics {
+    private static final String TAG = "PlaybackMetrics";
+    
+    // 冷启动阶段
+    public static final String PHASE_PLAYER_INITIALIZED = "player_initialized";
+    public static final String PHASE_CURRENT_SONG_LOADED = "current_song_loaded";
+    public static final String PHASE_LINK_RESOLVED = "link_resolved";
+    public static final String PHASE_FIRST_AUDIO = "first_audio";
+    public static final String PHASE_QUEUE_HYDRATED = "queue_hydrated";
+    
+    // 冷启动统计（各阶段相对服务创建的耗时）
+    private long serviceCreatedAt = 0;
+    private final Map<String, Long> startupPhases = new LinkedHashMap<>();
+
+    // 切歌延迟统计
+    private long transitionRequestedAt = 0;
+    private boolean transitionPrefetched = false;
+    private int transitionCount = 0;
+    private int gaplessTransitionCount = 0;
+    private long lastTransitionLatencyMs = -1;
+    private long totalTransitionLatencyMs = 0;
+    private long maxTransitionLatencyMs = 0;
+
+    /**
+     * 标记服务创建，作为冷启动计时起点
+     */
+    public synchronized void markServiceCreated() {
+        serviceCreatedAt = SystemClock.elapsedRealtime();
+        startupPhases.clear();
+    }
+    
+    /**
+     * 记录冷启动阶段完成时间，每个阶段只记录第一次
+     */
+    public synchronized void markStartupPhase(String phase) {
+        if (serviceCreatedAt == 0 || startupPhases.containsKey(phase)) {
+            return;
+        }
+        long elapsed = SystemClock.elapsedRealtime() - serviceCreatedAt;
+        startupPhases.put(phase, elapsed);
+        Log.d(TAG, "冷启动阶段 " + phase + ": " + elapsed + "ms");
+        if (PHASE_FIRST_AUDIO.equals(phase)) {
+            Log.d(TAG, "冷启动完成: " + getStartupSummary());
+        }
+    }
+    
+    /**
+     * 获取冷启动阶段耗时，未到达该阶段返回-1
+     */
+    public synchronized long getStartupPhaseMs(String phase) {
+        Long elapsed = startupPhases.get(phase);
+        return elapsed != null ? elapsed : -1;
+    }
+    
+    /**
+     * 服务创建到首帧音频输出的耗时，尚未出声返回-1
+     */
+    public synchronized long getTimeToFirstAudioMs() {
+        return getStartupPhaseMs(PHASE_FIRST_AUDIO);
+    }
+    
+    /**
+     * 获取冷启动统计摘要（用于日志）
+     */
+    public synchronized String getStartupSummary() {
+        StringBuilder sb = new StringBuilder("startup[");
+        for (Map.Entry<String, Long> entry : startupPhases.entrySet()) {
+            if (sb.length() > 8) {
+                sb.append(", ");
+            }
+            sb.append(entry.getKey()).append('=').append(entry.getValue()).append("ms");
+        }
+        return sb.append(']').toString();
+    }
+    
+    /**
+     * 标记一次切歌请求的开始
+     * @param prefetched 新歌曲是否已预加载
+     */
+    public synchronized void markTransitionStart(boolean prefetched) {
+        transitionRequestedAt = SystemClock.elapsedRealtime();
+        transitionPrefetched = prefetched;
+    }
+
+    /**
+     * 新歌曲开始出声时调用，若存在未完成的切歌请求则记录延迟
+     */
+    public synchronized void markTransitionPlaying() {
+        if (transitionRequestedAt == 0) {
+            return;
+        }
+        recordTransition(SystemClock.elapsedRealtime() - transitionRequestedAt, transitionPrefetched);
+        transitionRequestedAt = 0;
+    }
+
+    /**
+     * 记录一次无缝切换（播放器自动衔接到已预加载的下一首）
+     */
+    public synchronized void recordGaplessTransition() {
+        transitionRequestedAt = 0;
+        recordTransition(0, true);
+    }
+
+    private void recordTransition(long latencyMs, boolean prefetched) {
+        transitionCount++;
+        if (prefetched) {
+            gaplessTransitionCount++;
+        }
+        lastTransitionLatencyMs = latencyMs;
+        totalTransitionLatencyMs += latencyMs;
+        maxTransitionLatencyMs = Math.max(maxTransitionLatencyMs, latencyMs);
+        Log.d(TAG, "切歌延迟: " + latencyMs + "ms (预加载=" + prefetched + "), " + getTransitionSummary());
+    }
+
+    public synchronized int getTransitionCount() {
+        return transitionCount;
+    }
+
+    public synchronized int getGaplessTransitionCount() {
+        return gaplessTransitionCount;
+    }
+
+    public synchronized long getLastTransitionLatencyMs() {
+        return lastTransitionLatencyMs;
+    }
+
+    public synchronized long getMaxTransitionLatencyMs() {
+        return maxTransitionLatencyMs;
+    }
+
+    public synchronized long getAverageTransitionLatencyMs() {
+        return transitionCount == 0 ? 0 : totalTransitionLatencyMs / transitionCount;
+    }
+
+    /**
+     * 获取切歌统计摘要（用于日志）
+     */
+    public synchronized String getTransitionSummary() {
+        return "transitions=" + transitionCount
+                + ", prefetched=" + gaplessTransitionCount
+                + ", last=" + lastTransitionLatencyMs + "ms"
+                + ", avg=" + getAverageTransitionLatencyMs() + "ms"
+                + ", max=" + maxTransitionLatencyMs + "ms";
+    }
+}
@@ -1,17 +1,26 @@
 package com.baidu.carplayer.utils;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * LRC歌词解析器
+ * 单遍扫描，不使用正则表达式：
+ * - 编码：识别UTF-8/UTF-16 BOM，无BOM时校验UTF-8，不合法则按GBK（GB18030）解码
+ * - 一行多个时间标签：[00:12.00][01:30.00]歌词，多个条目共用同一个文本
+ * - [offset:+/-毫秒]：整体调整时间（正数使歌词提前）
+ * - 增强格式的逐字时间标签 <mm:ss.xx> 从文本中去除
+ * - 时间使用整数运算，支持 mm:ss、mm:ss.x、mm:ss.xx、mm:ss.xxx 和 mm:ss:xx
+ * 结果为按时间排序的紧凑时间轴 {@link LrcTimeline}
  */
 public class LrcParser {
-    private static final Pattern PATTERN_LINE = Pattern.compile("\\[(\\d+):(\\d+\\.\\d+)](.*)");
-    private static final Pattern PATTERN_TIME = Pattern.compile("\\[(\\d+):(\\d+\\.\\d+)]");
+    private static final Charset GBK = Charset.forName("GB18030");
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+    // 排序键中索引占用的位数（时间左移后与索引合并为一个long）
+    private static final int INDEX_BITS = 24;
 
     public static class LrcEntry implements Comparable<LrcEntry> {
         private long time;
@@ -39,90 +48,334 @@ public class LrcParser {
     /**
      * 解析LRC歌词内容
      * @param lrcContent LRC歌词内容
-     * @return 歌词条目列表
+     * @return 歌词时间轴，内容为空时返回null
      */
-    public static List<LrcEntry> parseLrc(String lrcContent) {
+    public static LrcTimeline parseLrc(String lrcContent) {
         if (lrcContent == null || lrcContent.isEmpty()) {
             return null;
         }
+        return parseText(lrcContent);
+    }
 
-        List<LrcEntry> entries = new ArrayList<>();
-        String[] lines = lrcContent.split("\\r?\\n");
+    /**
+     * 从输入流读取并解析LRC歌词（自动识别编码）
+     * @param in 输入流（不会被关闭）
+     * @param expectedLength 预计的字节数，未知时传入-1
+     * @param maxBytes 最多读取的字节数，超出部分被忽略
+     */
+    public static LrcTimeline parse(InputStream in, long expectedLength, int maxBytes) throws IOException {
+        int capacity = expectedLength > 0 ? (int) Math.min(expectedLength, maxBytes) : Math.min(INITIAL_BUFFER_SIZE, maxBytes);
+        byte[] buffer = new byte[Math.max(capacity, 1)];
+        int length = 0;
+        while (length < maxBytes) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, (int) Math.min((long) buffer.length * 2, maxBytes));
+            }
+            int read = in.read(buffer, length, buffer.length - length);
+            if (read == -1) {
+                break;
+            }
+            length += read;
+        }
+        return parse(buffer, length);
+    }
+
+    /**
+     * 解析LRC歌词字节（自动识别编码）
+     */
+    public static LrcTimeline parse(byte[] data, int length) {
+        return parseText(decode(data, length));
+    }
 
-        for (String line : lines) {
-            line = line.trim();
-            if (line.isEmpty()) {
+    /**
+     * 按BOM或UTF-8校验结果解码
+     */
+    static String decode(byte[] data, int length) {
+        if (length >= 3 && (data[0] & 0xFF) == 0xEF && (data[1] & 0xFF) == 0xBB && (data[2] & 0xFF) == 0xBF) {
+            return new String(data, 3, length - 3, StandardCharsets.UTF_8);
+        }
+        if (length >= 2 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xFE) {
+            return new String(data, 2, length - 2, StandardCharsets.UTF_16LE);
+        }
+        if (length >= 2 && (data[0] & 0xFF) == 0xFE && (data[1] & 0xFF) == 0xFF) {
+            return new String(data, 2, length - 2, StandardCharsets.UTF_16BE);
+        }
+        return new String(data, 0, length, isValidUtf8(data, length) ? StandardCharsets.UTF_8 : GBK);
+    }
+
+    /**
+     * 检查字节是否为合法的UTF-8（末尾被截断的字符视为合法）
+     */
+    static boolean isValidUtf8(byte[] data, int length) {
+        int i = 0;
+        while (i < length) {
+            int b = data[i] & 0xFF;
+            if (b < 0x80) {
+                i++;
                 continue;
             }
+            int continuation;
+            if (b >= 0xC2 && b <= 0xDF) {
+                continuation = 1;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                continuation = 2;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                continuation = 3;
+            } else {
+                return false;
+            }
+            for (int k = 1; k <= continuation; k++) {
+                if (i + k >= length) {
+                    return true;
+                }
+                if ((data[i + k] & 0xC0) != 0x80) {
+                    return false;
+                }
+            }
+            i += continuation + 1;
+        }
+        return true;
+    }
 
-            Matcher matcher = PATTERN_LINE.matcher(line);
-            if (matcher.matches()) {
-                try {
-                    int minute = Integer.parseInt(matcher.group(1));
-                    float second = Float.parseFloat(matcher.group(2));
-                    String text = matcher.group(3);
+    /**
+     * 单遍扫描解析文本
+     */
+    private static LrcTimeline parseText(String s) {
+        int len = s.length();
+        long[] times = new long[64];
+        String[] texts = new String[64];
+        int size = 0;
+        boolean sorted = true;
+        long offset = 0;
+        long[] stamps = new long[4];
+
+        // 字符串形式的内容可能仍带有BOM
+        int pos = len > 0 && s.charAt(0) == '\uFEFF' ? 1 : 0;
+        while (pos < len) {
+            int lineEnd = pos;
+            while (lineEnd < len && s.charAt(lineEnd) != '\n' && s.charAt(lineEnd) != '\r') {
+                lineEnd++;
+            }
 
-                    long time = (long) (minute * 60 * 1000 + second * 1000);
-                    entries.add(new LrcEntry(time, text));
-                } catch (NumberFormatException e) {
-                    // 忽略解析错误的行
+            int stampCount = 0;
+            int i = skipSpaces(s, pos, lineEnd);
+            while (i < lineEnd && s.charAt(i) == '[') {
+                int close = indexOf(s, ']', i + 1, lineEnd);
+                if (close < 0) {
+                    break;
                 }
+                long time = parseTime(s, i + 1, close);
+                if (time >= 0) {
+                    if (stampCount == stamps.length) {
+                        stamps = Arrays.copyOf(stamps, stampCount * 2);
+                    }
+                    stamps[stampCount++] = time;
+                } else if (stampCount > 0) {
+                    // 时间标签后的其他方括号属于歌词文本
+                    break;
+                } else if (s.regionMatches(true, i + 1, "offset:", 0, 7)) {
+                    offset = parseOffset(s, i + 8, close, offset);
+                }
+                // 其他标签（ti/ar/al/by等）忽略
+                i = skipSpaces(s, close + 1, lineEnd);
             }
+
+            if (stampCount > 0) {
+                String text = lineText(s, i, lineEnd);
+                if (size + stampCount > times.length) {
+                    int capacity = Math.max(times.length * 2, size + stampCount);
+                    times = Arrays.copyOf(times, capacity);
+                    texts = Arrays.copyOf(texts, capacity);
+                }
+                for (int k = 0; k < stampCount; k++) {
+                    if (size > 0 && stamps[k] < times[size - 1]) {
+                        sorted = false;
+                    }
+                    times[size] = stamps[k];
+                    texts[size] = text;
+                    size++;
+                }
+            }
+            pos = lineEnd + 1;
         }
 
-        // 按时间排序
-        Collections.sort(entries);
-        return entries;
+        if (size == 0) {
+            return LrcTimeline.EMPTY;
+        }
+        if (!sorted) {
+            sortByTime(times, texts, size);
+        }
+        if (offset != 0) {
+            // 整体平移不改变顺序，小于0的时间截断为0仍保持升序
+            for (int k = 0; k < size; k++) {
+                times[k] = Math.max(0, times[k] - offset);
+            }
+        }
+        if (times.length != size) {
+            times = Arrays.copyOf(times, size);
+            texts = Arrays.copyOf(texts, size);
+        }
+        return LrcTimeline.wrap(times, texts);
     }
 
     /**
-     * 从多个时间标签中解析歌词
-     * @param lrcContent LRC歌词内容
-     * @return 歌词条目列表
+     * 按时间稳定排序（时间相同的条目保持文件中的顺序）
+     * 时间与原索引合并为一个long后排序，不需要创建对象
      */
-    public static List<LrcEntry> parseLrcWithMultipleTimeTags(String lrcContent) {
-        if (lrcContent == null || lrcContent.isEmpty()) {
-            return null;
+    private static void sortByTime(long[] times, String[] texts, int size) {
+        long[] keys = new long[size];
+        for (int k = 0; k < size; k++) {
+            keys[k] = (times[k] << INDEX_BITS) | k;
+        }
+        Arrays.sort(keys);
+        String[] sortedTexts = Arrays.copyOf(texts, size);
+        long indexMask = (1L << INDEX_BITS) - 1;
+        for (int k = 0; k < size; k++) {
+            int index = (int) (keys[k] & indexMask);
+            times[k] = keys[k] >>> INDEX_BITS;
+            texts[k] = sortedTexts[index];
         }
+    }
 
-        List<LrcEntry> entries = new ArrayList<>();
-        String[] lines = lrcContent.split("\\r?\\n");
+    /**
+     * 解析时间标签内容（不含方括号），格式不正确时返回-1
+     * 支持 mm:ss、mm:ss.x、mm:ss.xx、mm:ss.xxx 和 mm:ss:xx
+     */
+    private static long parseTime(String s, int start, int end) {
+        int i = start;
+        long minutes = 0;
+        int digits = 0;
+        while (i < end && isDigit(s.charAt(i))) {
+            if (++digits > 4) {
+                return -1;
+            }
+            minutes = minutes * 10 + (s.charAt(i) - '0');
+            i++;
+        }
+        if (digits == 0 || i >= end || s.charAt(i) != ':') {
+            return -1;
+        }
+        i++;
 
-        for (String line : lines) {
-            line = line.trim();
-            if (line.isEmpty()) {
-                continue;
+        long seconds = 0;
+        digits = 0;
+        while (i < end && isDigit(s.charAt(i))) {
+            if (++digits > 2) {
+                return -1;
             }
+            seconds = seconds * 10 + (s.charAt(i) - '0');
+            i++;
+        }
+        if (digits == 0) {
+            return -1;
+        }
 
-            // 查找所有时间标签
-            Matcher timeMatcher = PATTERN_TIME.matcher(line);
-            List<Long> times = new ArrayList<>();
-            
-            while (timeMatcher.find()) {
-                try {
-                    int minute = Integer.parseInt(timeMatcher.group(1));
-                    float second = Float.parseFloat(timeMatcher.group(2));
-                    long time = (long) (minute * 60 * 1000 + second * 1000);
-                    times.add(time);
-                } catch (NumberFormatException e) {
-                    // 忽略解析错误的时间标签
+        long millis = 0;
+        if (i < end) {
+            char separator = s.charAt(i);
+            if (separator != '.' && separator != ':') {
+                return -1;
+            }
+            i++;
+            digits = 0;
+            while (i < end && isDigit(s.charAt(i))) {
+                // 超过毫秒精度的数字忽略
+                if (digits < 3) {
+                    millis = millis * 10 + (s.charAt(i) - '0');
                 }
+                digits++;
+                i++;
+            }
+            if (digits == 0 || i != end) {
+                return -1;
+            }
+            for (int k = Math.min(digits, 3); k < 3; k++) {
+                millis *= 10;
             }
+        }
+        return minutes * 60_000 + seconds * 1000 + millis;
+    }
 
-            // 获取歌词文本（最后一个时间标签后的内容）
-            int lastBracketIndex = line.lastIndexOf(']');
-            if (lastBracketIndex != -1 && lastBracketIndex < line.length() - 1) {
-                String text = line.substring(lastBracketIndex + 1).trim();
-                
-                // 为每个时间标签创建一个歌词条目
-                for (Long time : times) {
-                    entries.add(new LrcEntry(time, text));
-                }
+    /**
+     * 解析 [offset:] 的值（毫秒，可带正负号），格式不正确时保留原值
+     */
+    private static long parseOffset(String s, int start, int end, long current) {
+        int i = skipSpaces(s, start, end);
+        boolean negative = false;
+        if (i < end && (s.charAt(i) == '+' || s.charAt(i) == '-')) {
+            negative = s.charAt(i) == '-';
+            i++;
+        }
+        long value = 0;
+        int digits = 0;
+        while (i < end && isDigit(s.charAt(i))) {
+            if (++digits > 9) {
+                return current;
             }
+            value = value * 10 + (s.charAt(i) - '0');
+            i++;
+        }
+        if (digits == 0 || skipSpaces(s, i, end) != end) {
+            return current;
         }
+        return negative ? -value : value;
+    }
+
+    /**
+     * 提取歌词文本：去除逐字时间标签 <mm:ss.xx> 和首尾空白
+     */
+    private static String lineText(String s, int start, int end) {
+        int tag = indexOf(s, '<', start, end);
+        if (tag < 0) {
+            return trim(s, start, end);
+        }
+        StringBuilder sb = new StringBuilder(end - start);
+        int i = start;
+        while (tag >= 0) {
+            int close = indexOf(s, '>', tag + 1, end);
+            if (close < 0) {
+                break;
+            }
+            if (parseTime(s, tag + 1, close) >= 0) {
+                sb.append(s, i, tag);
+                i = close + 1;
+            } else {
+                sb.append(s, i, close + 1);
+                i = close + 1;
+            }
+            tag = indexOf(s, '<', i, end);
+        }
+        sb.append(s, i, end);
+        return trim(sb, 0, sb.length());
+    }
+
+    private static String trim(CharSequence s, int start, int end) {
+        while (start < end && s.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && s.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return start == end ? "" : s.subSequence(start, end).toString();
+    }
+
+    private static int skipSpaces(String s, int start, int end) {
+        while (start < end && s.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int indexOf(String s, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
 
-        // 按时间排序
-        Collections.sort(entries);
-        return entries;
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+package com.baidu.carplayer.utils;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * 紧凑的歌词时间轴（不可修改）
+ * 时间保存在 long[] 中，文本保存在 String[] 中，多个时间标签共用同一行文本时只保存一份字符串
+ * 实现 List 接口以兼容使用 LrcEntry 列表的代码，get() 时才创建 LrcEntry
+ */
+public final class LrcTimeline extends AbstractList<LrcParser.LrcEntry> implements RandomAccess {
+    public static final LrcTimeline EMPTY = new LrcTimeline(new long[0], new String[0], 0);
+
+    private final long[] times;
+    private final String[] texts;
+    private final int size;
+
+    /**
+     * @param times 升序的开始时间（毫秒）
+     * @param texts 与时间一一对应的歌词文本
+     * @param size 有效条目数量
+     */
+    LrcTimeline(long[] times, String[] texts, int size) {
+        this.times = times;
+        this.texts = texts;
+        this.size = size;
+    }
+
+    /**
+     * 由歌词条目列表生成时间轴（列表需已按时间排序）
+     */
+    public static LrcTimeline copyOf(List<LrcParser.LrcEntry> entries) {
+        if (entries instanceof LrcTimeline) {
+            return (LrcTimeline) entries;
+        }
+        int count = entries.size();
+        long[] times = new long[count];
+        String[] texts = new String[count];
+        for (int i = 0; i < count; i++) {
+            LrcParser.LrcEntry entry = entries.get(i);
+            times[i] = entry.getTime();
+            texts[i] = entry.getText();
+        }
+        return new LrcTimeline(times, texts, count);
+    }
+
+    /**
+     * 由时间和文本数组生成时间轴（数组直接使用，调用方之后不得修改）
+     */
+    public static LrcTimeline wrap(long[] times, String[] texts) {
+        if (times.length != texts.length) {
+            throw new IllegalArgumentException("times和texts长度不一致");
+        }
+        return new LrcTimeline(times, texts, times.length);
+    }
+
+    public long getTime(int index) {
+        checkIndex(index);
+        return times[index];
+    }
+
+    public String getText(int index) {
+        checkIndex(index);
+        return texts[index];
+    }
+
+    @Override
+    public LrcParser.LrcEntry get(int index) {
+        checkIndex(index);
+        return new LrcParser.LrcEntry(times[index], texts[index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+        }
+    }
+}
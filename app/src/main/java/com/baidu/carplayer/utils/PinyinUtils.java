@@ -0,0 +1,74 @@
+package com.baidu.carplayer.utils;
+
+import java.nio.charset.Charset;
+
+/**
+ * 汉字拼音首字母工具
+ * 利用GB2312一级汉字按拼音排序的特点，根据GBK编码所在区间得到首字母，不需要拼音字典；
+ * 二级汉字及生僻字不按拼音排序，无法识别时返回0
+ */
+public class PinyinUtils {
+
+    private static final Charset GBK = Charset.forName("GBK");
+
+    // 一级汉字中每个首字母的起始区位码，最后一项为一级汉字结束位置
+    private static final int[] SECTION_STARTS = {
+            1601, 1637, 1833, 2078, 2274, 2302, 2433, 2594, 2787, 3106, 3212,
+            3472, 3635, 3722, 3730, 3858, 4027, 4086, 4390, 4558, 4684, 4925, 5249, 5590
+    };
+    private static final char[] SECTION_LETTERS = {
+            'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'j', 'k', 'l',
+            'm', 'n', 'o', 'p', 'q', 'r', 's', 't', 'w', 'x', 'y', 'z'
+    };
+
+    private PinyinUtils() {
+    }
+
+    /**
+     * 是否为中日韩统一表意文字
+     */
+    public static boolean isCjk(char c) {
+        return Character.UnicodeBlock.of(c) == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS;
+    }
+
+    /**
+     * 获取单个汉字的拼音首字母（小写），无法识别时返回0
+     */
+    public static char getInitial(char c) {
+        if (!isCjk(c)) {
+            return 0;
+        }
+        byte[] bytes = String.valueOf(c).getBytes(GBK);
+        if (bytes.length != 2) {
+            return 0;
+        }
+        int code = ((bytes[0] & 0xff) - 160) * 100 + ((bytes[1] & 0xff) - 160);
+        if (code < SECTION_STARTS[0] || code >= SECTION_STARTS[SECTION_STARTS.length - 1]) {
+            return 0;
+        }
+        for (int i = SECTION_LETTERS.length - 1; i >= 0; i--) {
+            if (code >= SECTION_STARTS[i]) {
+                return SECTION_LETTERS[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 获取字符串中汉字的拼音首字母，非汉字及无法识别的汉字被忽略
+     * 例如：晴天 -> qt
+     */
+    public static String getInitials(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char initial = getInitial(text.charAt(i));
+            if (initial != 0) {
+                sb.append(initial);
+            }
+        }
+        return sb.toString();
+    }
+}
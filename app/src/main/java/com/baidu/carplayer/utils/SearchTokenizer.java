@@ -0,0 +1,97 @@
+package com.baidu.carplayer.utils;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 全文检索分词工具
+ * SQLite的FTS分词器会把连续的汉字当成一个词，无法按词中间的字搜索，也不支持拼音。
+ * 这里为歌曲生成额外的检索关键词：
+ * - 每个汉字单独成词，搜索时用短语查询匹配连续的字
+ * - 每段连续汉字的拼音首字母，以及整段文本的拼音首字母
+ */
+public class SearchTokenizer {
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * 生成歌曲的检索关键词（写入FTS索引的 searchKeywords 列）
+     */
+    public static String buildKeywords(String... texts) {
+        Set<String> tokens = new LinkedHashSet<>();
+        StringBuilder cjkChars = new StringBuilder();
+        for (String text : texts) {
+            if (text == null || text.isEmpty()) {
+                continue;
+            }
+            StringBuilder runInitials = new StringBuilder();
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (PinyinUtils.isCjk(c)) {
+                    cjkChars.append(c).append(' ');
+                    char initial = PinyinUtils.getInitial(c);
+                    if (initial != 0) {
+                        runInitials.append(initial);
+                    }
+                } else if (runInitials.length() > 0) {
+                    tokens.add(runInitials.toString());
+                    runInitials.setLength(0);
+                }
+            }
+            if (runInitials.length() > 0) {
+                tokens.add(runInitials.toString());
+            }
+            String initials = PinyinUtils.getInitials(text);
+            if (initials.length() > 1) {
+                tokens.add(initials);
+            }
+        }
+
+        StringBuilder sb = new StringBuilder(cjkChars);
+        for (String token : tokens) {
+            sb.append(token).append(' ');
+        }
+        return sb.toString().trim();
+    }
+
+    /**
+     * 把用户输入转换为FTS的MATCH表达式
+     * 按空白拆分为多个词（同时满足），每个词拆成汉字和字母数字串组成短语，最后一个词元按前缀匹配
+     * @return MATCH表达式，输入中没有可检索的内容时返回null
+     */
+    public static String buildMatchQuery(String input) {
+        if (input == null) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        for (String term : input.trim().toLowerCase().split("\\s+")) {
+            StringBuilder phrase = new StringBuilder();
+            StringBuilder word = new StringBuilder();
+            for (int i = 0; i < term.length(); i++) {
+                char c = term.charAt(i);
+                if (PinyinUtils.isCjk(c)) {
+                    appendToken(phrase, word);
+                    phrase.append(phrase.length() > 0 ? " " : "").append(c);
+                } else if (Character.isLetterOrDigit(c)) {
+                    word.append(c);
+                } else {
+                    appendToken(phrase, word);
+                }
+            }
+            appendToken(phrase, word);
+            if (phrase.length() > 0) {
+                query.append(query.length() > 0 ? " " : "")
+                        .append('"').append(phrase).append("*\"");
+            }
+        }
+        return query.length() > 0 ? query.toString() : null;
+    }
+
+    private static void appendToken(StringBuilder phrase, StringBuilder word) {
+        if (word.length() > 0) {
+            phrase.append(phrase.length() > 0 ? " " : "").append(word);
+            word.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.baidu.carplayer.utils;
+
+import java.util.Locale;
+
+/**
+ * 排序键工具
+ * 生成写入数据库的排序键，使 ORDER BY 直接走索引，不需要在Java中逐项比较字符串：
+ * - 目录键：路径去掉文件名后转小写
+ * - 标题键：转小写，连续数字补零到固定宽度，实现自然排序（"Track 2" 排在 "Track 10" 之前）
+ */
+public class SortKeyUtils {
+
+    // 数字补齐的宽度，超过此长度的数字保持原样
+    private static final int NUMBER_WIDTH = 10;
+
+    private SortKeyUtils() {
+    }
+
+    /**
+     * 目录排序键
+     * 例如：/Music/Album1/song.mp3 -> /music/album1
+     */
+    public static String directoryKey(String path) {
+        if (path == null || path.isEmpty()) {
+            return "";
+        }
+        int lastSlash = path.lastIndexOf('/');
+        if (lastSlash <= 0) {
+            return "";
+        }
+        return path.substring(0, lastSlash).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 自然排序的标题键
+     * 例如：Track 2.mp3 -> track 0000000002.mp3
+     */
+    public static String naturalKey(String title) {
+        if (title == null || title.isEmpty()) {
+            return "";
+        }
+        String lower = title.toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(lower.length() + NUMBER_WIDTH);
+        int i = 0;
+        while (i < lower.length()) {
+            char c = lower.charAt(i);
+            if (c < '0' || c > '9') {
+                sb.append(c);
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < lower.length() && lower.charAt(i) >= '0' && lower.charAt(i) <= '9') {
+                i++;
+            }
+            // 去掉前导零后补齐，"02" 与 "2" 得到相同的键
+            int significant = start;
+            while (significant < i - 1 && lower.charAt(significant) == '0') {
+                significant++;
+            }
+            for (int pad = i - significant; pad < NUMBER_WIDTH; pad++) {
+                sb.append('0');
+            }
+            sb.append(lower, significant, i);
+        }
+        return sb.toString();
+    }
+}
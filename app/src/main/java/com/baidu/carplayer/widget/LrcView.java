@@ -2,19 +2,26 @@ package com.baidu.carplayer.widget;
 
 import android.content.Context;
 import android.graphics.Canvas;
+import android.graphics.LinearGradient;
+import android.graphics.Matrix;
 import android.graphics.Paint;
+import android.graphics.Shader;
 import android.util.AttributeSet;
 import android.view.View;
 
 import com.baidu.carplayer.utils.LrcParser.LrcEntry;
+import com.baidu.carplayer.utils.LrcTimeline;
 
 import java.util.List;
 
 /**
  * 歌词显示视图 - 静态居中显示当前歌词
+ * 设置歌词时预先生成时间戳索引（long[]），按时间查找当前行时：
+ * 顺序播放优先检查当前行及下一行，其余情况（拖动进度条、回退）使用二分查找
  */
 public class LrcView extends View {
     private List<LrcEntry> lrcEntries;
+    private long[] lineTimes = new long[0]; // 每行歌词的开始时间（毫秒），升序
     private long currentTime = 0;
     private int currentLine = -1;
 
@@ -30,6 +37,15 @@ public class LrcView extends View {
     private float shimmerOffset = 0f;
     private android.animation.ValueAnimator shimmerAnimator;
     
+    // 当前行的绘制缓存：渐变只在行或尺寸变化时创建，动画帧中只平移其矩阵
+    private int cachedLine = -1;
+    private int cachedWidth = -1;
+    private String cachedText;
+    private float cachedTextWidth;
+    private float cachedTextX;
+    private LinearGradient textShader;
+    private final Matrix shaderMatrix = new Matrix();
+    
     // 滚动相关
     private float scrollX = 0f;
 
@@ -99,26 +115,33 @@ public class LrcView extends View {
 
     public void setLrcEntries(List<LrcEntry> lrcEntries) {
         this.lrcEntries = lrcEntries;
+        int size = lrcEntries != null ? lrcEntries.size() : 0;
+        lineTimes = new long[size];
+        if (lrcEntries instanceof LrcTimeline) {
+            // 紧凑时间轴直接读取时间，不创建LrcEntry
+            LrcTimeline timeline = (LrcTimeline) lrcEntries;
+            for (int i = 0; i < size; i++) {
+                lineTimes[i] = timeline.getTime(i);
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                lineTimes[i] = lrcEntries.get(i).getTime();
+            }
+        }
         currentLine = -1;
+        cachedLine = -1;
         invalidate();
     }
 
     public void updateTime(long time) {
         this.currentTime = time;
         
-        if (lrcEntries == null || lrcEntries.isEmpty()) {
+        if (lineTimes.length == 0) {
             return;
         }
 
         // 查找当前应该高亮的行
-        int newCurrentLine = -1;
-        for (int i = 0; i < lrcEntries.size(); i++) {
-            if (lrcEntries.get(i).getTime() <= time) {
-                newCurrentLine = i;
-            } else {
-                break;
-            }
-        }
+        int newCurrentLine = findLine(time);
 
         if (newCurrentLine != currentLine) {
             currentLine = newCurrentLine;
@@ -126,6 +149,38 @@ public class LrcView extends View {
         }
     }
 
+    /**
+     * 查找时间对应的歌词行（开始时间 <= time 的最后一行），没有则返回-1
+     */
+    private int findLine(long time) {
+        // 顺序播放时绝大多数情况仍是当前行或下一行
+        if (currentLine >= 0 && currentLine < lineTimes.length) {
+            if (isLineAt(currentLine, time)) {
+                return currentLine;
+            }
+            if (currentLine + 1 < lineTimes.length && isLineAt(currentLine + 1, time)) {
+                return currentLine + 1;
+            }
+        }
+
+        // 二分查找第一个开始时间 > time 的行
+        int low = 0;
+        int high = lineTimes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (lineTimes[mid] <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+
+    private boolean isLineAt(int line, long time) {
+        return lineTimes[line] <= time && (line + 1 == lineTimes.length || time < lineTimes[line + 1]);
+    }
+
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
@@ -148,28 +203,31 @@ public class LrcView extends View {
         
         // 简化逻辑：只显示当前歌词，居中静止显示
         
-        // 获取当前歌词
-        LrcEntry currentEntry = lrcEntries.get(currentLine);
-        String text = currentEntry.getText();
-        
-        // 计算文本宽度
-        float textWidth = currentPaint.measureText(text);
-        
-        // 计算居中位置
-        float x = (viewWidth - textWidth) / 2f;
-        
-        // 与 PlayerActivity 的 updateShimmerGradient 保持完全一致的逻辑
-        float offset = shimmerOffset * textWidth;
+        // 行或尺寸变化时才重新测量文本并创建渐变
+        if (currentLine != cachedLine || viewWidth != cachedWidth) {
+            cachedLine = currentLine;
+            cachedWidth = viewWidth;
+            cachedText = lrcEntries.get(currentLine).getText();
+            
+            // 计算文本宽度及居中位置
+            cachedTextWidth = currentPaint.measureText(cachedText);
+            cachedTextX = (viewWidth - cachedTextWidth) / 2f;
+            
+            textShader = new LinearGradient(
+                cachedTextX, 0, cachedTextX + cachedTextWidth, textSize,
+                new int[]{shimmerColor1, shimmerColor2, shimmerColor1},
+                new float[]{0f, 0.5f, 1f},
+                Shader.TileMode.MIRROR
+            );
+            currentPaint.setShader(textShader);
+        }
         
-        android.graphics.Shader textShader = new android.graphics.LinearGradient(
-            x - offset, 0, x + textWidth - offset, textSize,
-            new int[]{shimmerColor1, shimmerColor2, shimmerColor1},
-            new float[]{0f, 0.5f, 1f},
-            android.graphics.Shader.TileMode.MIRROR
-        );
-        currentPaint.setShader(textShader);
+        // 与 PlayerActivity 的 updateShimmerGradient 保持完全一致的逻辑：渐变随动画向左平移
+        float offset = shimmerOffset * cachedTextWidth;
+        shaderMatrix.setTranslate(-offset, 0);
+        textShader.setLocalMatrix(shaderMatrix);
         
         // 绘制文本
-        canvas.drawText(text, x, centerY, currentPaint);
+        canvas.drawText(cachedText, cachedTextX, centerY, currentPaint);
     }
 }
\ No newline at end of file